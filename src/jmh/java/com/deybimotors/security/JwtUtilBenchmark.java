@@ -0,0 +1,64 @@
+package com.deybimotors.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de tokens JWT: con la caché de tokens verificados y sin ella
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    private JwtUtil jwtCacheado;
+    private JwtUtil jwtSinCache;
+    private UserDetails[] usuarios;
+    private String[] tokens;
+    private int siguiente;
+
+    @Setup
+    public void setup() {
+        jwtCacheado = crear(10_000);
+        // Caché de una sola entrada con tokens rotando: cada validación parsea y verifica la firma
+        jwtSinCache = crear(1);
+
+        usuarios = new UserDetails[TOKENS];
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            usuarios[i] = User.withUsername("usuario" + i).password("").roles("VENDEDOR").build();
+            tokens[i] = jwtCacheado.generateToken(usuarios[i], Map.of("userId", (long) i, "rol", "VENDEDOR", "sedeId", 1L));
+        }
+    }
+
+    @Benchmark
+    public Boolean validateTokenCacheado() {
+        int i = siguiente++ & (TOKENS - 1);
+        return jwtCacheado.validateToken(tokens[i], usuarios[i]);
+    }
+
+    @Benchmark
+    public Boolean validateTokenSinCache() {
+        int i = siguiente++ & (TOKENS - 1);
+        return jwtSinCache.validateToken(tokens[i], usuarios[i]);
+    }
+
+    private JwtUtil crear(int maxTokens) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "BenchmarkSecretKeyParaJWTDeAlMenos256BitsDeLongitud");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "maxTokensVerificados", maxTokens);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
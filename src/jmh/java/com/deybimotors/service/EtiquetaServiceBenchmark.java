@@ -0,0 +1,71 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.EtiquetaDTO;
+import com.deybimotors.entity.Producto;
+import com.deybimotors.repository.ProductoRepository;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Código de barras Code128 y render de hojas de etiquetas (PDF / ZPL)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EtiquetaServiceBenchmark {
+
+    @Param({"50"})
+    private int productos;
+
+    @Param({"10"})
+    private int copias;
+
+    private EtiquetaService etiquetaService;
+    private List<Long> ids;
+
+    @Setup
+    public void setup() {
+        List<Producto> datos = ProductosSinteticos.generar(productos);
+        ids = datos.stream().map(Producto::getId).toList();
+
+        ProductoRepository productoRepository = mock(ProductoRepository.class);
+        when(productoRepository.findAllById(anyIterable())).thenReturn(datos);
+
+        etiquetaService = ServiciosSimulados.crear(EtiquetaService.class, productoRepository);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void generarCodigoBarras(Blackhole bh) {
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDoc.addNewPage();
+        for (int i = 0; i < 100; i++) {
+            bh.consume(etiquetaService.generarCodigoBarras(String.format("DM-%06d", i), pdfDoc));
+        }
+        pdfDoc.close();
+    }
+
+    @Benchmark
+    public byte[] hojaPdf() throws IOException {
+        return etiquetaService.generarEtiquetas(ids, copias, EtiquetaDTO.FormatoEtiqueta.PDF);
+    }
+
+    @Benchmark
+    public byte[] zpl() throws IOException {
+        return etiquetaService.generarEtiquetas(ids, copias, EtiquetaDTO.FormatoEtiqueta.ZPL);
+    }
+}
@@ -0,0 +1,49 @@
+package com.deybimotors.service;
+
+import com.deybimotors.entity.Producto;
+import com.deybimotors.repository.ProductoRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Emisión de filas en los reportes de productos (Excel y PDF)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportServiceBenchmark {
+
+    @Param({"2000"})
+    private int productos;
+
+    private ExportService exportService;
+
+    @Setup
+    public void setup() {
+        List<Producto> datos = ProductosSinteticos.generar(productos);
+
+        ProductoRepository productoRepository = mock(ProductoRepository.class);
+        when(productoRepository.findByEstadoTrue()).thenReturn(datos);
+
+        exportService = ServiciosSimulados.crear(ExportService.class, productoRepository);
+    }
+
+    @Benchmark
+    public byte[] productosExcel() throws IOException {
+        return exportService.exportarProductosExcel(null);
+    }
+
+    @Benchmark
+    public byte[] productosPdf() throws IOException {
+        return exportService.exportarProductosPDF(null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.deybimotors.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura de celdas de la plantilla de importación de productos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportServiceBenchmark {
+
+    @Param({"5000"})
+    private int filas;
+
+    private ImportService importService;
+    private XSSFWorkbook workbook;
+    private Sheet sheet;
+
+    @Setup
+    public void setup() {
+        importService = ServiciosSimulados.crear(ImportService.class);
+
+        // CODIGO | NOMBRE | CATEGORIA | SUBCATEGORIA | MARCA | PRECIO_VENTA | SEDE
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet("Productos");
+        for (int i = 1; i <= filas; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(String.format("DM-%06d", i));
+            row.createCell(1).setCellValue("  PASTILLA DE FRENO " + i + "  ");
+            row.createCell(2).setCellValue("FRENOS");
+            row.createCell(3).setCellValue("PASTILLAS");
+            row.createCell(4).setCellValue("BOSCH");
+            row.createCell(5).setCellValue(10.5 + i % 300);
+            row.createCell(6).setCellValue("PRINCIPAL");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    public void parsearFilas(Blackhole bh) {
+        for (int i = 1; i <= filas; i++) {
+            Row row = sheet.getRow(i);
+            for (int c = 0; c < 7; c++) {
+                bh.consume(importService.getCellValueAsString(row.getCell(c)));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.ProductoDTO;
+import com.deybimotors.entity.Producto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo entidad -> DTO de productos (listados, búsquedas, catálogo)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoServiceBenchmark {
+
+    @Param({"1000"})
+    private int productos;
+
+    private ProductoService productoService;
+    private List<Producto> datos;
+
+    @Setup
+    public void setup() {
+        // Los repositorios no participan en el mapeo
+        productoService = ServiciosSimulados.crear(ProductoService.class);
+        datos = ProductosSinteticos.generar(productos);
+    }
+
+    @Benchmark
+    public void convertirADTO(Blackhole bh) {
+        for (Producto producto : datos) {
+            bh.consume(productoService.convertirADTO(producto));
+        }
+    }
+
+    @Benchmark
+    public void copiarDatosBasicos(Blackhole bh) {
+        for (Producto producto : datos) {
+            ProductoDTO.ProductoResponse dto = new ProductoDTO.ProductoResponse();
+            productoService.copiarDatosBasicos(producto, dto);
+            bh.consume(dto);
+        }
+    }
+}
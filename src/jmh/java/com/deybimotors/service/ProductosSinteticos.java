@@ -0,0 +1,117 @@
+package com.deybimotors.service;
+
+import com.deybimotors.entity.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Productos en memoria para los benchmarks (sin base de datos)
+ * Semilla fija: cada ejecución mide exactamente los mismos datos.
+ */
+final class ProductosSinteticos {
+
+    private static final String[] CATEGORIAS = {"FRENOS", "MOTOR", "SUSPENSION", "ELECTRICO", "TRANSMISION"};
+    private static final String[] MARCAS = {"BOSCH", "NGK", "DENSO", "FRAS-LE", "MONROE", "SKF"};
+    private static final String[] AUTOS = {"TOYOTA", "NISSAN", "HYUNDAI", "KIA", "SUZUKI"};
+
+    private ProductosSinteticos() {
+    }
+
+    static List<Producto> generar(int cantidad) {
+        Random random = new Random(42);
+
+        Sede sede = new Sede();
+        sede.setId(1L);
+        sede.setNombre("PRINCIPAL");
+
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            Categoria categoria = new Categoria();
+            categoria.setId((long) i + 1);
+            categoria.setNombre(CATEGORIAS[i]);
+            categorias.add(categoria);
+        }
+
+        List<Marca> marcas = new ArrayList<>();
+        for (int i = 0; i < MARCAS.length; i++) {
+            Marca marca = new Marca();
+            marca.setId((long) i + 1);
+            marca.setNombre(MARCAS[i]);
+            marcas.add(marca);
+        }
+
+        Origen origen = new Origen();
+        origen.setId(1L);
+        origen.setPais("JAPON");
+
+        CodigoPrecio codigoPrecio = new CodigoPrecio();
+        codigoPrecio.setId(1L);
+        codigoPrecio.setCodigo("A");
+
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = new Producto();
+            producto.setId((long) i + 1);
+            producto.setSede(sede);
+            producto.setCodigoInterno(String.format("DM-%06d", i + 1));
+            producto.setCodigoMarca("MK" + random.nextInt(100_000));
+            producto.setDescripcion("PASTILLA DE FRENO DELANTERA " + AUTOS[i % AUTOS.length] + " " + i);
+            producto.setCategoria(categorias.get(i % categorias.size()));
+            producto.setMarcaProducto(marcas.get(i % marcas.size()));
+            producto.setOrigen(origen);
+            producto.setMedida("120x45");
+            producto.setTipo("ORIGINAL");
+            producto.setStock(random.nextInt(50));
+            producto.setCodigoPrecio(codigoPrecio);
+            producto.setPrecioCosto(BigDecimal.valueOf(10 + random.nextInt(500), 1));
+            producto.setPrecioVenta(BigDecimal.valueOf(20 + random.nextInt(900), 1));
+            producto.setPublicoCatalogo(i % 3 == 0);
+            producto.setFechaCreacion(LocalDateTime.of(2024, 1, 1, 8, 0).plusMinutes(i));
+
+            for (int c = 0; c < 3; c++) {
+                MarcaAutomovil marcaAuto = new MarcaAutomovil();
+                marcaAuto.setId((long) c + 1);
+                marcaAuto.setNombre(AUTOS[(i + c) % AUTOS.length]);
+
+                ModeloAutomovil modelo = new ModeloAutomovil();
+                modelo.setId((long) c + 1);
+                modelo.setNombre("MODELO " + c);
+
+                Compatibilidad compatibilidad = new Compatibilidad();
+                compatibilidad.setId((long) i * 3 + c);
+                compatibilidad.setProducto(producto);
+                compatibilidad.setMarcaAutomovil(marcaAuto);
+                compatibilidad.setModeloAutomovil(modelo);
+                compatibilidad.setAnio(String.valueOf(2010 + c));
+                compatibilidad.setMotor("1.6");
+                producto.getCompatibilidades().add(compatibilidad);
+            }
+
+            CodigoOem codigoOem = new CodigoOem();
+            codigoOem.setId((long) i + 1);
+            codigoOem.setCodigoOem("OEM-" + (100_000 + i));
+            ProductoOem productoOem = new ProductoOem();
+            productoOem.setProducto(producto);
+            productoOem.setCodigoOem(codigoOem);
+            producto.getCodigosOem().add(productoOem);
+
+            for (int img = 2; img >= 0; img--) {
+                ProductoImagen imagen = new ProductoImagen();
+                imagen.setId((long) i * 3 + img);
+                imagen.setProducto(producto);
+                imagen.setUrl("https://res.cloudinary.com/demo/productos/" + i + "_" + img + ".jpg");
+                imagen.setOrden(img);
+                imagen.setEsPrincipal(img == 0);
+                producto.getImagenes().add(imagen);
+            }
+
+            productos.add(producto);
+        }
+
+        return productos;
+    }
+}
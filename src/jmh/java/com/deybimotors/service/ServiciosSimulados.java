@@ -0,0 +1,40 @@
+package com.deybimotors.service;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Instancia servicios para los benchmarks sin depender de la forma de su constructor
+ * Cada dependencia es un mock de Mockito salvo las que se pasan explícitamente,
+ * así una dependencia nueva en el servicio no rompe el perfil de benchmarks.
+ * El servicio en sí es la clase real: no hay proxy en el camino medido.
+ */
+final class ServiciosSimulados {
+
+    private ServiciosSimulados() {
+    }
+
+    static <T> T crear(Class<T> tipo, Object... dependencias) {
+        Constructor<?>[] constructores = tipo.getConstructors();
+        if (constructores.length != 1) {
+            throw new IllegalStateException(tipo.getSimpleName() + " debe tener un único constructor público");
+        }
+
+        Constructor<?> constructor = constructores[0];
+        Object[] argumentos = Arrays.stream(constructor.getParameterTypes())
+                .map(parametro -> Arrays.stream(dependencias)
+                        .filter(parametro::isInstance)
+                        .findFirst()
+                        .orElseGet(() -> mock(parametro)))
+                .toArray();
+
+        try {
+            return tipo.cast(constructor.newInstance(argumentos));
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("No se pudo crear " + tipo.getSimpleName(), e);
+        }
+    }
+}
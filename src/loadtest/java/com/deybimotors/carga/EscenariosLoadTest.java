@@ -0,0 +1,352 @@
+package com.deybimotors.carga;
+
+import com.deybimotors.config.PresupuestoSqlInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de extremo a extremo (mvn -Pcarga test)
+ * Levanta la aplicación sobre H2 en modo MySQL con datos sintéticos y ejecuta
+ * una mezcla concurrente de escenarios por HTTP:
+ * - pos: búsqueda por código (80% SKUs calientes)
+ * - salida: ventas de una unidad sobre SKUs calientes
+ * - compra: registro de compra y recepción (PAGADO), que repone stock
+ * - catalogo: catálogo público
+ * - exportacion: Excel de productos por sede
+ * Reporta throughput, percentiles de latencia y endpoints que exceden su
+ * presupuesto SQL en target/carga/reporte.txt
+ * Falla si algún escenario supera carga.max-errores-5xx (errores del servidor o timeouts)
+ * o si algún endpoint excede su presupuesto SQL (carga.falla-por-presupuesto-sql=false para solo reportarlo).
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"datos-sinteticos", "carga"})
+class EscenariosLoadTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PresupuestoSqlInterceptor presupuestoSql;
+
+    @Value("${carga.hilos}")
+    private int hilos;
+
+    @Value("${carga.calentamiento-seg}")
+    private int calentamientoSeg;
+
+    @Value("${carga.duracion-seg}")
+    private int duracionSeg;
+
+    @Value("${carga.semilla}")
+    private long semilla;
+
+    @Value("${carga.mezcla}")
+    private String mezcla;
+
+    @Value("${carga.max-errores-5xx:0}")
+    private int maxErrores5xx;
+
+    @Value("${carga.falla-por-presupuesto-sql:true}")
+    private boolean fallaPorPresupuestoSql;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String token;
+    private List<ProductoCarga> calientes;
+    private List<ProductoCarga> todos;
+    private Map<Long, List<ProductoCarga>> calientesPorSede;
+    private List<Long> proveedores;
+    private List<Long> categorias;
+
+    @Test
+    void mezclaDeEscenarios() throws Exception {
+
+        cargarDatos();
+        token = login("admin", "admin123");
+
+        Map<String, Escenario> escenarios = Map.of(
+                "pos", this::pos,
+                "salida", this::salida,
+                "compra", this::compra,
+                "catalogo", this::catalogo,
+                "exportacion", this::exportacion
+        );
+        Map<String, Integer> pesos = parsearMezcla();
+        List<String> ruleta = new ArrayList<>();
+        pesos.forEach((escenario, peso) -> {
+            assertThat(escenarios).containsKey(escenario);
+            for (int i = 0; i < peso; i++) {
+                ruleta.add(escenario);
+            }
+        });
+
+        // Una corrida de cada escenario al abrir la ventana: los de poco peso también quedan medidos
+        Queue<String> pendientes = new ConcurrentLinkedQueue<>(pesos.keySet());
+
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + calentamientoSeg * 1_000_000_000L;
+        long fin = inicioMedicion + duracionSeg * 1_000_000_000L;
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Future<RegistroLatencias>> futuros = new ArrayList<>();
+
+        for (int h = 0; h < hilos; h++) {
+            Random random = new Random(semilla + h);
+            futuros.add(pool.submit(() -> {
+                RegistroLatencias registro = new RegistroLatencias();
+                while (true) {
+                    long t0 = System.nanoTime();
+                    String escenario = t0 >= inicioMedicion ? pendientes.poll() : null;
+                    if (escenario == null) {
+                        if (t0 >= fin) {
+                            break;
+                        }
+                        escenario = ruleta.get(random.nextInt(ruleta.size()));
+                    }
+                    int status;
+                    try {
+                        status = escenarios.get(escenario).ejecutar(random);
+                    } catch (IOException e) {
+                        status = 599;
+                    }
+                    // Cuenta toda operación iniciada dentro de la ventana, aunque termine después
+                    if (t0 >= inicioMedicion) {
+                        registro.registrar(escenario, System.nanoTime() - t0, status);
+                    }
+                }
+                return registro;
+            }));
+        }
+
+        RegistroLatencias total = new RegistroLatencias();
+        for (Future<RegistroLatencias> futuro : futuros) {
+            total.combinar(futuro.get());
+        }
+        pool.shutdown();
+        double segundosMedidos = (System.nanoTime() - inicioMedicion) / 1_000_000_000.0;
+
+        List<PresupuestoSqlInterceptor.Violacion> violaciones = presupuestoSql.violaciones();
+        String reporte = String.format("%n=== Carga %s | %d hilos | %.1fs medidos (+%ds calentamiento) | %d productos ===%n%s%s",
+                LocalDateTime.now().withNano(0), hilos, segundosMedidos, calentamientoSeg, todos.size(),
+                total.reporte(segundosMedidos), reportePresupuestoSql(violaciones));
+        log.info(reporte);
+
+        Path archivo = Path.of("target", "carga", "reporte.txt");
+        Files.createDirectories(archivo.getParent());
+        Files.writeString(archivo, reporte, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        pesos.keySet().forEach(escenario -> {
+            assertThat(total.operaciones(escenario))
+                    .as("operaciones de %s", escenario)
+                    .isPositive();
+            assertThat(total.errores5xx(escenario))
+                    .as("respuestas 5xx de %s (ver reporte)", escenario)
+                    .isLessThanOrEqualTo(maxErrores5xx);
+        });
+
+        if (fallaPorPresupuestoSql) {
+            assertThat(violaciones).as("endpoints sobre su presupuesto SQL").isEmpty();
+        }
+    }
+
+    // ========================================
+    // ESCENARIOS
+    // ========================================
+
+    private int pos(Random random) throws IOException, InterruptedException {
+        ProductoCarga producto = random.nextInt(10) < 8 ? elegir(calientes, random) : elegir(todos, random);
+        return get("/api/productos/codigo/" + producto.codigo());
+    }
+
+    private int salida(Random random) throws IOException, InterruptedException {
+        ProductoCarga producto = elegir(calientes, random);
+        Map<String, Object> body = Map.of(
+                "sedeId", producto.sedeId(),
+                "motivo", "VENTA",
+                "productos", List.of(Map.of("productoId", producto.id(), "cantidad", 1))
+        );
+        return enviar("POST", "/api/stock/salida", body).statusCode();
+    }
+
+    private int compra(Random random) throws IOException, InterruptedException {
+        List<ProductoCarga> deSede = calientesPorSede.get(elegir(calientes, random).sedeId());
+
+        List<Map<String, Object>> detalles = new ArrayList<>();
+        int lineas = 1 + random.nextInt(5);
+        for (int i = 0; i < lineas; i++) {
+            ProductoCarga producto = elegir(deSede, random);
+            detalles.add(Map.of("productoId", producto.id(), "cantidad", 5 + random.nextInt(26),
+                    "precioUnitario", producto.precioCosto()));
+        }
+
+        HttpResponse<String> creada = enviar("POST", "/api/compras", Map.of(
+                "proveedorId", elegir(proveedores, random),
+                "sedeId", deSede.get(0).sedeId(),
+                "observaciones", "Prueba de carga",
+                "detalles", detalles
+        ));
+        if (creada.statusCode() >= 300) {
+            return creada.statusCode();
+        }
+
+        long compraId = objectMapper.readTree(creada.body()).get("id").asLong();
+        return enviar("PATCH", "/api/compras/" + compraId + "/estado", Map.of("estado", "PAGADO")).statusCode();
+    }
+
+    private int catalogo(Random random) throws IOException, InterruptedException {
+        return random.nextBoolean()
+                ? get("/api/catalogo-publico/productos")
+                : get("/api/catalogo-publico/productos?categoriaId=" + elegir(categorias, random));
+    }
+
+    private int exportacion(Random random) throws IOException, InterruptedException {
+        return get("/api/exportar/productos/excel?sedeId=" + elegir(calientes, random).sedeId());
+    }
+
+    // ========================================
+    // AUXILIARES
+    // ========================================
+
+    private void cargarDatos() {
+        todos = jdbcTemplate.query(
+                "SELECT id, codigo_interno, sede_id, precio_costo FROM productos WHERE codigo_interno LIKE 'SYN-%'",
+                (rs, i) -> new ProductoCarga(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+
+        // SKUs calientes: los de más movimientos en el kardex
+        calientes = jdbcTemplate.query(
+                "SELECT p.id, p.codigo_interno, p.sede_id, p.precio_costo FROM productos p " +
+                        "JOIN (SELECT producto_id, COUNT(*) c FROM kardex GROUP BY producto_id ORDER BY c DESC LIMIT 100) k " +
+                        "ON k.producto_id = p.id",
+                (rs, i) -> new ProductoCarga(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+
+        calientesPorSede = new LinkedHashMap<>();
+        calientes.forEach(p -> calientesPorSede.computeIfAbsent(p.sedeId(), k -> new ArrayList<>()).add(p));
+
+        proveedores = jdbcTemplate.queryForList("SELECT id FROM proveedores WHERE nombre_empresa LIKE 'SYN%'", Long.class);
+        categorias = jdbcTemplate.queryForList("SELECT id FROM categorias WHERE nombre LIKE 'SYN%'", Long.class);
+
+        assertThat(todos).as("datos sintéticos").isNotEmpty();
+        assertThat(calientes).isNotEmpty();
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .build();
+
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("login").isEqualTo(200);
+
+        JsonNode json = objectMapper.readTree(response.body());
+        return json.get("token").asText();
+    }
+
+    private int get(String ruta) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(ruta))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpResponse<String> enviar(String metodo, String ruta, Object body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(ruta))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private static String reportePresupuestoSql(List<PresupuestoSqlInterceptor.Violacion> violaciones) {
+        if (violaciones.isEmpty()) {
+            return "";
+        }
+
+        // endpoint -> [requests, máximo de sentencias, presupuesto]
+        Map<String, int[]> porEndpoint = new TreeMap<>();
+        violaciones.forEach(v -> {
+            int[] datos = porEndpoint.computeIfAbsent(v.endpoint(), k -> new int[]{0, 0, v.presupuesto()});
+            datos[0]++;
+            datos[1] = Math.max(datos[1], v.sentencias());
+        });
+
+        StringBuilder sb = new StringBuilder("Presupuesto SQL excedido (últimos requests):%n".formatted());
+        porEndpoint.forEach((endpoint, datos) -> sb.append("  %-45s %5d requests, hasta %d sentencias (máximo %d)%n"
+                .formatted(endpoint, datos[0], datos[1], datos[2])));
+        return sb.toString();
+    }
+
+    private Map<String, Integer> parsearMezcla() {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : mezcla.split(",")) {
+            String[] clave = parte.trim().split(":");
+            pesos.put(clave[0].trim(), Integer.parseInt(clave[1].trim()));
+        }
+        return pesos;
+    }
+
+    private static <T> T elegir(List<T> lista, Random random) {
+        return lista.get(random.nextInt(lista.size()));
+    }
+
+    @FunctionalInterface
+    private interface Escenario {
+        int ejecutar(Random random) throws IOException, InterruptedException;
+    }
+
+    private record ProductoCarga(Long id, String codigo, Long sedeId, BigDecimal precioCosto) {}
+}
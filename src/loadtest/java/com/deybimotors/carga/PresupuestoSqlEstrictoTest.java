@@ -0,0 +1,140 @@
+package com.deybimotors.carga;
+
+import com.deybimotors.config.PresupuestoSqlInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Presupuesto SQL en modo ESTRICTO sobre la aplicación completa (mvn -Pcarga test)
+ * Los endpoints con presupuesto responden dentro de él; uno con el presupuesto
+ * rebajado por configuración falla con 500 y queda registrado como violación.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                // Base propia: no comparte datos con EscenariosLoadTest
+                "spring.datasource.url=jdbc:h2:mem:presupuesto;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "datasource.lectura.urls=jdbc:h2:mem:presupuesto;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sinteticos.productos=300",
+                "sinteticos.movimientos=2000",
+                "sinteticos.compras=20",
+                "sql.presupuesto.modo=ESTRICTO",
+                "sql.presupuesto.endpoints=GET /api/productos/codigo/{codigo}=1"
+        }
+)
+@ActiveProfiles({"datos-sinteticos", "carga"})
+class PresupuestoSqlEstrictoTest {
+
+    private static final String SOBRE_PRESUPUESTO = "GET /api/productos/codigo/{codigo}";
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PresupuestoSqlInterceptor presupuestoSql;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String token;
+    private String codigoInterno;
+    private String codigoOem;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        codigoInterno = jdbcTemplate.queryForObject(
+                "SELECT MIN(codigo_interno) FROM productos WHERE estado = TRUE", String.class);
+        codigoOem = jdbcTemplate.queryForObject(
+                "SELECT MIN(o.codigo_oem) FROM codigos_oem o JOIN producto_oem po ON po.oem_id = o.id " +
+                        "JOIN productos p ON p.id = po.producto_id WHERE p.estado = TRUE", String.class);
+        token = login("admin", "admin123");
+        presupuestoSql.limpiarViolaciones();
+    }
+
+    @Test
+    void escaneoDentroDelPresupuesto() throws Exception {
+        HttpResponse<String> response = enviar("GET", "/api/productos/escaneo/" + codigoInterno, null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(presupuestoSql.violaciones()).isEmpty();
+    }
+
+    @Test
+    void resolverCodigosDentroDelPresupuesto() throws Exception {
+        // Interno desde el índice, OEM en una consulta y uno inexistente
+        HttpResponse<String> response = enviar("POST", "/api/productos/resolver-codigos",
+                Map.of("codigos", List.of(codigoInterno, codigoOem, "NO-EXISTE-123")));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode json = objectMapper.readTree(response.body());
+        assertThat(json.get("encontrados")).hasSize(2);
+        assertThat(json.get("noEncontrados")).hasSize(1);
+        assertThat(presupuestoSql.violaciones()).isEmpty();
+    }
+
+    @Test
+    void endpointSobreSuPresupuestoFalla() throws Exception {
+        HttpResponse<String> response = enviar("GET", "/api/productos/codigo/" + codigoInterno, null);
+
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(presupuestoSql.violaciones())
+                .singleElement()
+                .satisfies(violacion -> {
+                    assertThat(violacion.endpoint()).isEqualTo(SOBRE_PRESUPUESTO);
+                    assertThat(violacion.presupuesto()).isEqualTo(1);
+                    assertThat(violacion.sentencias()).isGreaterThan(violacion.presupuesto());
+                    assertThat(violacion.huellas()).isNotEmpty();
+                });
+
+        // El request fallido no deja contadores colgados en el hilo
+        assertThat(enviar("GET", "/api/productos/escaneo/" + codigoInterno, null).statusCode()).isEqualTo(200);
+        assertThat(presupuestoSql.violaciones()).hasSize(1);
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = enviar("POST", "/api/auth/login",
+                Map.of("username", username, "password", password));
+        assertThat(response.statusCode()).as("login").isEqualTo(200);
+
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpResponse<String> enviar(String metodo, String ruta, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest.BodyPublisher publicador = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        return http.send(request.method(metodo, publicador).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
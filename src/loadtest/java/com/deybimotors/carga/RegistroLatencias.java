@@ -0,0 +1,89 @@
+package com.deybimotors.carga;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latencias y códigos HTTP por escenario
+ * Cada hilo usa su propio registro; al final se combinan con {@link #combinar}.
+ */
+class RegistroLatencias {
+
+    private final Map<String, Muestras> porEscenario = new LinkedHashMap<>();
+
+    void registrar(String escenario, long nanos, int status) {
+        Muestras muestras = porEscenario.computeIfAbsent(escenario, k -> new Muestras());
+        muestras.latencias.add(nanos);
+        if (status >= 500) {
+            muestras.errores5xx++;
+        } else if (status >= 400) {
+            muestras.errores4xx++;
+        }
+    }
+
+    void combinar(RegistroLatencias otro) {
+        otro.porEscenario.forEach((escenario, muestras) -> {
+            Muestras destino = porEscenario.computeIfAbsent(escenario, k -> new Muestras());
+            destino.latencias.addAll(muestras.latencias);
+            destino.errores4xx += muestras.errores4xx;
+            destino.errores5xx += muestras.errores5xx;
+        });
+    }
+
+    int operaciones(String escenario) {
+        Muestras muestras = porEscenario.get(escenario);
+        return muestras == null ? 0 : muestras.latencias.size();
+    }
+
+    int errores5xx(String escenario) {
+        Muestras muestras = porEscenario.get(escenario);
+        return muestras == null ? 0 : muestras.errores5xx;
+    }
+
+    /**
+     * Tabla de throughput y percentiles (ms) para la ventana medida
+     */
+    String reporte(double segundos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-12s %8s %9s %9s %9s %9s %9s %6s %6s%n",
+                "escenario", "ops", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "4xx", "5xx"));
+
+        long total = 0;
+        for (Map.Entry<String, Muestras> entrada : porEscenario.entrySet()) {
+            List<Long> latencias = new ArrayList<>(entrada.getValue().latencias);
+            latencias.sort(null);
+            total += latencias.size();
+
+            sb.append(String.format(Locale.ROOT, "%-12s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %6d %6d%n",
+                    entrada.getKey(),
+                    latencias.size(),
+                    latencias.size() / segundos,
+                    percentil(latencias, 0.50),
+                    percentil(latencias, 0.95),
+                    percentil(latencias, 0.99),
+                    percentil(latencias, 1.0),
+                    entrada.getValue().errores4xx,
+                    entrada.getValue().errores5xx));
+        }
+
+        sb.append(String.format(Locale.ROOT, "%-12s %8d %9.1f%n", "TOTAL", total, total / segundos));
+        return sb.toString();
+    }
+
+    private static double percentil(List<Long> ordenadas, double q) {
+        if (ordenadas.isEmpty()) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(q * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, Math.min(indice, ordenadas.size() - 1))) / 1_000_000.0;
+    }
+
+    private static class Muestras {
+        private final List<Long> latencias = new ArrayList<>();
+        private int errores4xx;
+        private int errores5xx;
+    }
+}
@@ -0,0 +1,151 @@
+package com.deybimotors.almacenamiento;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Backend remoto: Cloudinary
+ * La referencia es la URL pública (secure_url) que retorna la subida.
+ */
+@Slf4j
+public class AlmacenamientoCloudinary implements AlmacenamientoObjetos {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Cloudinary cloudinary;
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    public AlmacenamientoCloudinary(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    @Override
+    public String guardar(String carpeta, String nombre, Path archivo, String contentType) throws IOException {
+
+        // Imágenes como "image"; PDF, Excel, Word, etc. como "raw"
+        String resourceType = contentType != null && contentType.startsWith("image/") ? "image" : "raw";
+
+        Map uploadResult = cloudinary.uploader().upload(
+                archivo.toFile(),
+                ObjectUtils.asMap(
+                        "folder", "deybimotors/" + carpeta,
+                        "resource_type", resourceType,
+                        "format", extension(nombre) // Mantener extensión original
+                )
+        );
+
+        String url = (String) uploadResult.get("secure_url");
+        log.info("✅ {} subido a Cloudinary: {}", resourceType.toUpperCase(), url);
+        return url;
+    }
+
+    @Override
+    public InputStream abrir(String referencia) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(referencia)).timeout(TIMEOUT).GET().build();
+        HttpResponse<InputStream> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Descarga interrumpida: " + referencia);
+        }
+
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(referencia);
+        }
+        throw new IOException("Cloudinary respondió " + response.statusCode() + " para " + referencia);
+    }
+
+    /**
+     * ✅ Funciona para imágenes y documentos (PDF, Excel, etc.)
+     */
+    @Override
+    public boolean eliminar(String referencia) {
+        try {
+            // Extraer public_id de la URL
+            String publicId = extraerPublicId(referencia);
+
+            if (publicId == null || publicId.isEmpty()) {
+                log.warn("⚠️ No se pudo extraer public_id de: {}", referencia);
+                return true;
+            }
+
+            // Determinar el tipo de recurso desde la URL
+            String resourceType = referencia.contains("/image/upload/") ? "image" : "raw";
+
+            // Eliminar con el tipo correcto
+            Map result = cloudinary.uploader().destroy(
+                    publicId,
+                    ObjectUtils.asMap("resource_type", resourceType)
+            );
+
+            log.info("🗑️ Archivo eliminado de Cloudinary: {} (tipo: {}) - Resultado: {}",
+                    publicId, resourceType, result.get("result"));
+            return true;
+
+        } catch (Exception e) {
+            log.error("❌ Error al eliminar de Cloudinary: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean admite(String referencia) {
+        return referencia != null && referencia.startsWith("http") && referencia.contains("/upload/");
+    }
+
+    /**
+     * Extraer public_id de una URL de Cloudinary
+     *
+     * Ejemplos:
+     * - https://res.cloudinary.com/drdet81ws/image/upload/v123/deybimotors/facturas/archivo.jpg
+     *   -> deybimotors/facturas/archivo
+     *
+     * - https://res.cloudinary.com/drdet81ws/raw/upload/v123/deybimotors/facturas/documento.pdf
+     *   -> deybimotors/facturas/documento
+     */
+    private String extraerPublicId(String url) {
+        if (url == null || !url.contains("/upload/")) {
+            return null;
+        }
+
+        String[] partes = url.split("/upload/");
+        if (partes.length < 2) return null;
+
+        // Remover version (v1234567890/)
+        String sinVersion = partes[1].replaceFirst("v\\d+/", "");
+
+        // Remover extensión del archivo
+        int ultimoPunto = sinVersion.lastIndexOf('.');
+        if (ultimoPunto > 0) {
+            sinVersion = sinVersion.substring(0, ultimoPunto);
+        }
+
+        return sinVersion;
+    }
+
+    private static String extension(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto >= 0 ? nombre.substring(punto + 1).toLowerCase() : "";
+    }
+}
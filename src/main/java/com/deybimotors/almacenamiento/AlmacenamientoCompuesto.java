@@ -0,0 +1,58 @@
+package com.deybimotors.almacenamiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Escribe en el backend principal y lee/elimina en el que corresponda a cada referencia
+ * Al cambiar de backend por configuración, las referencias ya guardadas en BD siguen funcionando.
+ */
+public class AlmacenamientoCompuesto implements AlmacenamientoObjetos {
+
+    private final AlmacenamientoObjetos principal;
+    private final List<AlmacenamientoObjetos> backends;
+
+    public AlmacenamientoCompuesto(AlmacenamientoObjetos principal, List<AlmacenamientoObjetos> otros) {
+        this.principal = principal;
+        this.backends = Stream.concat(Stream.of(principal), otros.stream()).toList();
+    }
+
+    @Override
+    public String guardar(String carpeta, String nombre, Path archivo, String contentType) throws IOException {
+        return principal.guardar(carpeta, nombre, archivo, contentType);
+    }
+
+    @Override
+    public InputStream abrir(String referencia) throws IOException {
+        for (AlmacenamientoObjetos backend : backends) {
+            if (backend.admite(referencia)) {
+                return backend.abrir(referencia);
+            }
+        }
+        throw new NoSuchFileException(referencia);
+    }
+
+    @Override
+    public boolean eliminar(String referencia) {
+        for (AlmacenamientoObjetos backend : backends) {
+            if (backend.admite(referencia)) {
+                return backend.eliminar(referencia);
+            }
+        }
+        // Nadie la reconoce: no hay nada que reintentar
+        return true;
+    }
+
+    @Override
+    public boolean admite(String referencia) {
+        return backends.stream().anyMatch(backend -> backend.admite(referencia));
+    }
+
+    public AlmacenamientoObjetos getPrincipal() {
+        return principal;
+    }
+}
@@ -0,0 +1,209 @@
+package com.deybimotors.almacenamiento;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Backend remoto con caché local en disco (LRU acotada por tamaño)
+ * - Escrituras: se suben al remoto y la copia local queda en caché
+ * - Lecturas: desde disco si está en caché; si no, se descarga una vez y se guarda
+ * - La caché se reconstruye al iniciar con los archivos que ya estaban en disco
+ */
+@Slf4j
+public class AlmacenamientoEscalonado implements AlmacenamientoObjetos {
+
+    private final AlmacenamientoObjetos remoto;
+    private final Path directorio;
+    private final long maxBytes;
+
+    // Nombre en caché -> tamaño; en orden de acceso (el primero es el menos usado)
+    private final LinkedHashMap<String, Long> entradas = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytesEnCache;
+
+    public AlmacenamientoEscalonado(AlmacenamientoObjetos remoto, Path directorio, long maxBytes) throws IOException {
+        this.remoto = remoto;
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directorio);
+        cargarExistentes();
+    }
+
+    @Override
+    public String guardar(String carpeta, String nombre, Path archivo, String contentType) throws IOException {
+        String referencia = remoto.guardar(carpeta, nombre, archivo, contentType);
+        try {
+            Path temporal = temporal();
+            Files.copy(archivo, temporal);
+            registrar(nombreEnCache(referencia), temporal);
+        } catch (IOException e) {
+            // Ya está en el remoto; solo se pierde la copia en caché
+            log.warn("⚠️ No se pudo guardar en caché local {}: {}", referencia, e.getMessage());
+        }
+        return referencia;
+    }
+
+    @Override
+    public InputStream abrir(String referencia) throws IOException {
+        String nombre = nombreEnCache(referencia);
+
+        InputStream enCache = abrirEnCache(nombre);
+        if (enCache != null) {
+            return enCache;
+        }
+
+        Path temporal = temporal();
+        try (InputStream descarga = remoto.abrir(referencia)) {
+            Files.copy(descarga, temporal);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        log.debug("Caché local: descargado {}", referencia);
+
+        return registrarYAbrir(nombre, temporal);
+    }
+
+    @Override
+    public boolean eliminar(String referencia) {
+        quitar(nombreEnCache(referencia));
+        return remoto.eliminar(referencia);
+    }
+
+    @Override
+    public boolean admite(String referencia) {
+        return remoto.admite(referencia);
+    }
+
+    public synchronized long getBytesEnCache() {
+        return bytesEnCache;
+    }
+
+    public synchronized int getArchivosEnCache() {
+        return entradas.size();
+    }
+
+    // Se abre bajo el mismo candado que el desalojo: un archivo abierto sigue legible aunque luego se desaloje
+    private synchronized InputStream abrirEnCache(String nombre) throws IOException {
+        if (entradas.get(nombre) == null) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(directorio.resolve(nombre));
+        } catch (NoSuchFileException e) {
+            // Borrado desde fuera de la aplicación
+            quitar(nombre);
+            return null;
+        }
+    }
+
+    private synchronized InputStream registrarYAbrir(String nombre, Path temporal) throws IOException {
+        registrar(nombre, temporal);
+        return Files.newInputStream(directorio.resolve(nombre));
+    }
+
+    private synchronized void registrar(String nombre, Path temporal) throws IOException {
+        Path destino = directorio.resolve(nombre);
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Long anterior = entradas.put(nombre, Files.size(destino));
+        bytesEnCache += entradas.get(nombre) - (anterior != null ? anterior : 0);
+        desalojar(nombre);
+    }
+
+    private synchronized void quitar(String nombre) {
+        Long tamanio = entradas.remove(nombre);
+        if (tamanio != null) {
+            bytesEnCache -= tamanio;
+        }
+        borrar(directorio.resolve(nombre));
+    }
+
+    /**
+     * Elimina los menos usados hasta quedar bajo el límite (nunca el recién agregado)
+     */
+    private void desalojar(String conservar) {
+        Iterator<Map.Entry<String, Long>> iterador = entradas.entrySet().iterator();
+        while (bytesEnCache > maxBytes && iterador.hasNext()) {
+            Map.Entry<String, Long> entrada = iterador.next();
+            if (entrada.getKey().equals(conservar)) {
+                continue;
+            }
+            iterador.remove();
+            bytesEnCache -= entrada.getValue();
+            borrar(directorio.resolve(entrada.getKey()));
+        }
+    }
+
+    private synchronized void cargarExistentes() throws IOException {
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.filter(Files::isRegularFile).toList();
+        }
+
+        // Temporales de una descarga interrumpida
+        archivos.stream().filter(a -> a.getFileName().toString().endsWith(".tmp")).forEach(AlmacenamientoEscalonado::borrar);
+
+        archivos.stream()
+                .filter(a -> !a.getFileName().toString().endsWith(".tmp"))
+                .sorted(Comparator.comparingLong(AlmacenamientoEscalonado::modificado))
+                .forEach(a -> {
+                    long tamanio = a.toFile().length();
+                    entradas.put(a.getFileName().toString(), tamanio);
+                    bytesEnCache += tamanio;
+                });
+        desalojar(null);
+
+        log.info("✅ Caché local de almacenamiento: {} archivos ({} KB) en {}",
+                entradas.size(), bytesEnCache / 1024, directorio);
+    }
+
+    private Path temporal() {
+        return directorio.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    // SHA-256 de la referencia + extensión original
+    private static String nombreEnCache(String referencia) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(referencia.getBytes(StandardCharsets.UTF_8));
+            int punto = referencia.lastIndexOf('.');
+            String extension = punto > referencia.lastIndexOf('/') ? referencia.substring(punto).toLowerCase() : "";
+            return HexFormat.of().formatHex(hash) + extension;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static long modificado(Path archivo) {
+        return archivo.toFile().lastModified();
+    }
+
+    private static void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo borrar de la caché local {}: {}", archivo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.deybimotors.almacenamiento;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Archivos en un directorio local
+ * Referencias con prefijo (p. ej. "uploads/documents/facturas/x.pdf"), servidas por ArchivosEstaticosConfig.
+ * También sirve como sustituto local de un backend remoto (pruebas, desarrollo sin credenciales).
+ */
+@Slf4j
+public class AlmacenamientoLocal implements AlmacenamientoObjetos {
+
+    private final Path directorio;
+    private final String prefijo;
+
+    public AlmacenamientoLocal(Path directorio, String prefijo) {
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.prefijo = prefijo.endsWith("/") ? prefijo : prefijo + "/";
+    }
+
+    @Override
+    public String guardar(String carpeta, String nombre, Path archivo, String contentType) throws IOException {
+        String referencia = referencia(carpeta, nombre);
+        Path destino = ruta(referencia);
+        Files.createDirectories(destino.getParent());
+        Files.copy(archivo, destino, StandardCopyOption.REPLACE_EXISTING);
+        return referencia;
+    }
+
+    @Override
+    public InputStream abrir(String referencia) throws IOException {
+        return Files.newInputStream(ruta(referencia));
+    }
+
+    @Override
+    public boolean eliminar(String referencia) {
+        try {
+            if (Files.deleteIfExists(ruta(referencia))) {
+                log.info("🗑️ Archivo local eliminado: {}", referencia);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("❌ Error al eliminar {}: {}", referencia, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean admite(String referencia) {
+        return referencia != null && referencia.startsWith(prefijo);
+    }
+
+    /**
+     * Referencia de un archivo de este backend (no lo escribe)
+     */
+    public String referencia(String carpeta, String nombre) {
+        return prefijo + carpeta + "/" + nombre;
+    }
+
+    /**
+     * Ruta relativa al directorio ("facturas/x.pdf")
+     */
+    public String relativa(String referencia) throws NoSuchFileException {
+        if (!admite(referencia)) {
+            throw new NoSuchFileException(referencia);
+        }
+        return referencia.substring(prefijo.length());
+    }
+
+    /**
+     * Archivo en disco de una referencia de este backend
+     */
+    public Path ruta(String referencia) throws NoSuchFileException {
+        Path ruta = directorio.resolve(relativa(referencia)).normalize();
+        // Evita salir del directorio con "../"
+        if (!ruta.startsWith(directorio)) {
+            throw new NoSuchFileException(referencia);
+        }
+        return ruta;
+    }
+}
@@ -0,0 +1,34 @@
+package com.deybimotors.almacenamiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Almacenamiento de archivos (SPI)
+ * Cada archivo se identifica por su referencia, el valor que se guarda en BD:
+ * ruta "uploads/..." en disco local, URL pública en un backend remoto.
+ */
+public interface AlmacenamientoObjetos {
+
+    /**
+     * Guardar un archivo ya escrito en disco y retornar su referencia
+     */
+    String guardar(String carpeta, String nombre, Path archivo, String contentType) throws IOException;
+
+    /**
+     * Abrir para lectura; NoSuchFileException si no existe
+     */
+    InputStream abrir(String referencia) throws IOException;
+
+    /**
+     * Eliminar; retorna false solo si el backend falló y conviene reintentar
+     * (un archivo inexistente cuenta como eliminado)
+     */
+    boolean eliminar(String referencia);
+
+    /**
+     * Indica si la referencia pertenece a este backend
+     */
+    boolean admite(String referencia);
+}
@@ -0,0 +1,93 @@
+package com.deybimotors.config;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.deybimotors.almacenamiento.AlmacenamientoCloudinary;
+import com.deybimotors.almacenamiento.AlmacenamientoCompuesto;
+import com.deybimotors.almacenamiento.AlmacenamientoEscalonado;
+import com.deybimotors.almacenamiento.AlmacenamientoLocal;
+import com.deybimotors.almacenamiento.AlmacenamientoObjetos;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Backends de almacenamiento de documentos (facturas de compra)
+ * - almacenamiento.documentos.backend=cloudinary: Cloudinary, con caché LRU en disco delante
+ * - almacenamiento.documentos.backend=local: directorio de documentos (pruebas, desarrollo)
+ * Las referencias guardadas con el otro backend se siguen leyendo y eliminando.
+ */
+@Configuration
+@Slf4j
+public class AlmacenamientoConfig {
+
+    public static final String PREFIJO_DOCUMENTOS = "uploads/documents/";
+
+    @Bean
+    public Cloudinary cloudinary(
+            @Value("${cloudinary.cloud-name}") String cloudName,
+            @Value("${cloudinary.api-key}") String apiKey,
+            @Value("${cloudinary.api-secret}") String apiSecret
+    ) {
+        Cloudinary cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", cloudName,
+                "api_key", apiKey,
+                "api_secret", apiSecret
+        ));
+        log.info("✅ Cloudinary inicializado: {}", cloudName);
+        return cloudinary;
+    }
+
+    @Bean
+    public AlmacenamientoLocal almacenamientoLocalDocumentos(@Value("${file.documents-dir}") String documentsDir) {
+        return new AlmacenamientoLocal(Paths.get(documentsDir), PREFIJO_DOCUMENTOS);
+    }
+
+    @Bean
+    public AlmacenamientoCompuesto almacenamientoDocumentos(
+            Cloudinary cloudinary,
+            AlmacenamientoLocal almacenamientoLocalDocumentos,
+            MeterRegistry meterRegistry,
+            @Value("${almacenamiento.documentos.backend:cloudinary}") String backend,
+            @Value("${almacenamiento.cache.habilitado:true}") boolean cacheHabilitado,
+            @Value("${almacenamiento.cache.dir:./uploads/cache}") String cacheDir,
+            @Value("${almacenamiento.cache.max-mb:512}") long cacheMaxMb
+    ) throws IOException {
+
+        AlmacenamientoObjetos remoto = new AlmacenamientoCloudinary(cloudinary);
+
+        if (cacheHabilitado) {
+            AlmacenamientoEscalonado escalonado = new AlmacenamientoEscalonado(
+                    remoto, Paths.get(cacheDir), cacheMaxMb * 1024 * 1024);
+
+            Gauge.builder("deybimotors.almacenamiento.cache.bytes", escalonado, AlmacenamientoEscalonado::getBytesEnCache)
+                    .description("Bytes en la caché local de documentos remotos")
+                    .register(meterRegistry);
+            Gauge.builder("deybimotors.almacenamiento.cache.archivos", escalonado, AlmacenamientoEscalonado::getArchivosEnCache)
+                    .description("Archivos en la caché local de documentos remotos")
+                    .register(meterRegistry);
+
+            remoto = escalonado;
+        }
+
+        switch (backend.trim().toLowerCase()) {
+            case "cloudinary" -> {
+                log.info("✅ Documentos en Cloudinary (caché local: {})", cacheHabilitado ? cacheMaxMb + " MB" : "no");
+                return new AlmacenamientoCompuesto(remoto, List.of(almacenamientoLocalDocumentos));
+            }
+            case "local" -> {
+                log.info("✅ Documentos en disco local: {}", PREFIJO_DOCUMENTOS);
+                return new AlmacenamientoCompuesto(almacenamientoLocalDocumentos, List.of(remoto));
+            }
+            default -> throw new IllegalStateException(
+                    "almacenamiento.documentos.backend debe ser 'cloudinary' o 'local': " + backend);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.deybimotors.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+
+/**
+ * Archivos subidos (/uploads/**) servidos por el DefaultServlet de Tomcat en lugar de Spring MVC
+ * - sendfile (el kernel copia el archivo al socket, sin pasar por la JVM) para archivos grandes
+ * - Caché en memoria de Tomcat para los pequeños (miniaturas)
+ * - Range / If-Range (descargas reanudables), ETag y Last-Modified (respuestas 304)
+ * El Cache-Control lo define CacheArchivosFilter según la ruta.
+ */
+@Configuration
+@Slf4j
+public class ArchivosEstaticosConfig {
+
+    static final String RUTA_IMAGENES = "/uploads/images";
+    static final String RUTA_DOCUMENTOS = "/uploads/documents";
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.documents-dir}")
+    private String documentsDir;
+
+    @Value("${archivos.cache-memoria-kb:32768}")
+    private long cacheMemoriaKb;
+
+    /**
+     * Monta los directorios de subida en los recursos del contexto de Tomcat
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> montarDirectoriosSubidos() {
+        return factory -> factory.addContextCustomizers(context ->
+                context.addLifecycleListener(evento -> {
+                    if (Lifecycle.CONFIGURE_START_EVENT.equals(evento.getType())) {
+                        WebResourceRoot recursos = context.getResources();
+                        recursos.setCacheMaxSize(cacheMemoriaKb);
+                        montar(recursos, RUTA_IMAGENES, uploadDir);
+                        montar(recursos, RUTA_DOCUMENTOS, documentsDir);
+                    }
+                }));
+    }
+
+    @Bean
+    public ServletRegistrationBean<DefaultServlet> archivosServlet(
+            @Value("${archivos.sendfile-min-kb:48}") int sendfileMinKb
+    ) {
+        ServletRegistrationBean<DefaultServlet> registro = new ServletRegistrationBean<>(
+                new DefaultServlet(), RUTA_IMAGENES + "/*", RUTA_DOCUMENTOS + "/*");
+        registro.setName("archivos");
+        registro.setLoadOnStartup(1);
+        registro.addInitParameter("listings", "false");
+        registro.addInitParameter("readonly", "true");
+        registro.addInitParameter("useAcceptRanges", "true");
+        // Desde este tamaño se usa sendfile
+        registro.addInitParameter("sendfileSize", String.valueOf(sendfileMinKb));
+        return registro;
+    }
+
+    private static void montar(WebResourceRoot recursos, String ruta, String directorio) {
+        File base = new File(directorio).getAbsoluteFile();
+        if (!base.isDirectory() && !base.mkdirs()) {
+            throw new IllegalStateException("No se pudo crear el directorio " + base);
+        }
+        recursos.createWebResourceSet(WebResourceRoot.ResourceSetType.POST, ruta, base.getPath(), null, "/");
+        log.info("✅ {} servido desde {}", ruta, base);
+    }
+}
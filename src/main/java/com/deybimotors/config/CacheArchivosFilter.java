@@ -0,0 +1,88 @@
+package com.deybimotors.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Cache-Control de los archivos subidos
+ * - Imágenes guardadas por contenido (hash SHA-256 en el nombre) y sus variantes: inmutables por un año
+ * - Otras imágenes: caché corta y luego revalidación con ETag / Last-Modified
+ * - Documentos (facturas): privados y siempre revalidados
+ */
+@Component
+public class CacheArchivosFilter extends OncePerRequestFilter {
+
+    // .../ab/cd/<sha-256>.png, .../<sha-256>_miniatura.jpg
+    private static final Pattern RUTA_POR_CONTENIDO = Pattern.compile(".*/[0-9a-f]{64}(_[a-z]+)?\\.[a-z0-9]+$");
+
+    private static final String INMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private static final String DOCUMENTOS = CacheControl.noCache().cachePrivate().getHeaderValue();
+    private static final String SIN_CACHE = CacheControl.noStore().getHeaderValue();
+
+    private final String imagenes;
+
+    public CacheArchivosFilter(@Value("${archivos.cache.imagenes-seg:3600}") long imagenesSeg) {
+        this.imagenes = CacheControl.maxAge(Duration.ofSeconds(imagenesSeg)).cachePublic().mustRevalidate().getHeaderValue();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String servlet = request.getServletPath();
+        return !servlet.equals(ArchivosEstaticosConfig.RUTA_IMAGENES) && !servlet.equals(ArchivosEstaticosConfig.RUTA_DOCUMENTOS);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String valor;
+        if (request.getServletPath().equals(ArchivosEstaticosConfig.RUTA_DOCUMENTOS)) {
+            valor = DOCUMENTOS;
+        } else if (RUTA_POR_CONTENIDO.matcher(request.getRequestURI()).matches()) {
+            valor = INMUTABLE;
+        } else {
+            valor = imagenes;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, valor);
+        filterChain.doFilter(request, new SinCacheEnErrores(response));
+    }
+
+    /**
+     * Un 404 (archivo eliminado) no debe quedar en caché con la política del archivo
+     */
+    private static class SinCacheEnErrores extends HttpServletResponseWrapper {
+
+        SinCacheEnErrores(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setHeader(HttpHeaders.CACHE_CONTROL, SIN_CACHE);
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setHeader(HttpHeaders.CACHE_CONTROL, SIN_CACHE);
+            super.sendError(sc, msg);
+        }
+    }
+}
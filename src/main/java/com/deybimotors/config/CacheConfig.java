@@ -0,0 +1,79 @@
+package com.deybimotors.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de segundo nivel de Hibernate (JCache + Caffeine en memoria)
+ * Entidades de referencia (categorías, marcas, sedes, orígenes, códigos de precio,
+ * marcas/modelos de auto) y sus búsquedas por clave natural (@QueryHints cacheable
+ * en los repositorios).
+ * Hibernate invalida las entradas al escribir por JPA y por SQL nativo que declara sus
+ * entidades (addSynchronizedEntityClass, ver ImportService); las escrituras por JDBC
+ * directo deben desalojar la caché (ver GeneradorDatosSinteticos).
+ */
+@Configuration
+@Slf4j
+public class CacheConfig {
+
+    public static final String REGION_REFERENCIAS = "referencias";
+
+    @Value("${cache.referencias.max-size:20000}")
+    private long maxReferencias;
+
+    @Value("${cache.consultas.max-size:5000}")
+    private long maxConsultas;
+
+    @Value("${cache.consultas.expira-min:60}")
+    private long expiraConsultasMin;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+
+        cacheManager.createCache(REGION_REFERENCIAS, configuracion(maxReferencias, 0));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                configuracion(maxConsultas, expiraConsultasMin));
+        // Marcas de tiempo por tabla: no deben expirar ni desalojarse
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                configuracion(0, 0));
+
+        log.info("✅ Caché de segundo nivel lista ({} entidades, {} consultas)", maxReferencias, maxConsultas);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Toda región debe estar creada arriba
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuracion(long maximo, long expiraMinutos) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        if (maximo > 0) {
+            configuracion.setMaximumSize(OptionalLong.of(maximo));
+        }
+        if (expiraMinutos > 0) {
+            configuracion.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(expiraMinutos)));
+        }
+        configuracion.setStatisticsEnabled(true);
+        return configuracion;
+    }
+}
@@ -0,0 +1,145 @@
+package com.deybimotors.config;
+
+import com.deybimotors.exception.PresupuestoSqlExcedidoException;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Contadores de trabajo de Hibernate por request (hilo actual)
+ * Los incrementan el StatementInspector y los listeners de carga registrados
+ * en MetricsConfig; MetricasRequestFilter los abre y los publica al terminar.
+ * Fuera de un request (jobs en segundo plano) no se cuenta nada.
+ * PresupuestoSqlInterceptor fija el presupuesto de sentencias del endpoint.
+ */
+public final class ContadoresHibernate {
+
+    private static final ThreadLocal<Contadores> ACTUAL = new ThreadLocal<>();
+
+    // Listas IN (?, ?, ?) de largo variable cuentan como la misma huella
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private ContadoresHibernate() {
+    }
+
+    public static Contadores iniciar() {
+        Contadores contadores = new Contadores();
+        ACTUAL.set(contadores);
+        return contadores;
+    }
+
+    public static Contadores actual() {
+        return ACTUAL.get();
+    }
+
+    public static void terminar() {
+        ACTUAL.remove();
+    }
+
+    static void sentenciaPreparada(String sql) {
+        Contadores contadores = ACTUAL.get();
+        if (contadores == null) {
+            return;
+        }
+
+        contadores.sentencias++;
+        if (contadores.huellas != null) {
+            contadores.huellas.merge(huella(sql), 1, Integer::sum);
+        }
+
+        if (contadores.estricto && contadores.excedido()) {
+            // Falla antes de ejecutar la sentencia que rompe el presupuesto
+            contadores.estricto = false;
+            throw new PresupuestoSqlExcedidoException(contadores.sentencias, contadores.presupuesto);
+        }
+    }
+
+    /**
+     * SQL normalizado para agrupar sentencias repetidas (N+1)
+     */
+    static String huella(String sql) {
+        String normalizada = ESPACIOS.matcher(sql).replaceAll(" ").trim();
+        return LISTA_PARAMETROS.matcher(normalizada).replaceAll("(?..)");
+    }
+
+    static void entidadCargada() {
+        Contadores contadores = ACTUAL.get();
+        if (contadores != null) {
+            contadores.entidadesCargadas++;
+        }
+    }
+
+    static void coleccionInicializada() {
+        Contadores contadores = ACTUAL.get();
+        if (contadores != null) {
+            contadores.coleccionesInicializadas++;
+        }
+    }
+
+    /**
+     * Cuenta cada sentencia SQL que Hibernate prepara
+     */
+    public static class ContadorSentencias implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            sentenciaPreparada(sql);
+            return sql;
+        }
+    }
+
+    public static class Contadores {
+        private int sentencias;
+        private int entidadesCargadas;
+        private int coleccionesInicializadas;
+
+        // 0 = sin presupuesto
+        private int presupuesto;
+        private boolean estricto;
+        private Map<String, Integer> huellas;
+
+        /**
+         * Activa el presupuesto del endpoint; en modo estricto el request falla al excederlo
+         */
+        public void limitar(int presupuesto, boolean estricto) {
+            this.presupuesto = presupuesto;
+            this.estricto = estricto;
+        }
+
+        /**
+         * Guarda las huellas de cada sentencia (solo requests muestreados o estrictos)
+         */
+        public void registrarHuellas() {
+            if (huellas == null) {
+                huellas = new LinkedHashMap<>();
+            }
+        }
+
+        public boolean excedido() {
+            return presupuesto > 0 && sentencias > presupuesto;
+        }
+
+        public int getPresupuesto() {
+            return presupuesto;
+        }
+
+        public Map<String, Integer> getHuellas() {
+            return huellas;
+        }
+
+        public int getSentencias() {
+            return sentencias;
+        }
+
+        public int getEntidadesCargadas() {
+            return entidadesCargadas;
+        }
+
+        public int getColeccionesInicializadas() {
+            return coleccionesInicializadas;
+        }
+    }
+}
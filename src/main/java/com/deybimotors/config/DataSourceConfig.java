@@ -0,0 +1,145 @@
+package com.deybimotors.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primario + réplicas de lectura (datasource.lectura.habilitado=true)
+ * Sin esta configuración Spring Boot crea el DataSource único de spring.datasource.
+ * Cada pool toma la configuración común de spring.datasource.hikari.*
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datasource.lectura.habilitado", havingValue = "true")
+@Slf4j
+public class DataSourceConfig {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${datasource.lectura.urls}")
+    private String urls;
+
+    @Value("${datasource.lectura.username:}")
+    private String username;
+
+    @Value("${datasource.lectura.password:}")
+    private String password;
+
+    @Value("${datasource.lectura.pool-size:10}")
+    private int poolSize;
+
+    @Value("${datasource.lectura.max-retraso-seg:5}")
+    private long maxRetrasoSeg;
+
+    @Value("${datasource.lectura.consulta-retraso:}")
+    private String consultaRetraso;
+
+    @Value("${datasource.lectura.chequeo-ms:5000}")
+    private long chequeoMs;
+
+    @Value("${datasource.lectura.ventana-escritura-ms:10000}")
+    private long ventanaEscrituraMs;
+
+    @Value("${datasource.lectura.max-usuarios-fijados:10000}")
+    private int maxUsuariosFijados;
+
+    private EnrutadorDataSource enrutador;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties) {
+
+        HikariDataSource primario = crearPool(EnrutadorDataSource.PRIMARIO, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), properties.determineDriverClassName(), 0);
+
+        List<EnrutadorDataSource.Replica> replicas = new ArrayList<>();
+        String[] listaUrls = StringUtils.commaDelimitedListToStringArray(urls);
+        for (int i = 0; i < listaUrls.length; i++) {
+            String nombre = "lectura-" + (i + 1);
+            HikariDataSource pool = crearPool(nombre, listaUrls[i].trim(),
+                    StringUtils.hasText(username) ? username : properties.determineUsername(),
+                    // Usuario propio de las réplicas = contraseña propia
+                    StringUtils.hasText(username) ? password : properties.determinePassword(),
+                    properties.determineDriverClassName(), poolSize);
+
+            EnrutadorDataSource.Replica replica = new EnrutadorDataSource.Replica(nombre, pool);
+            Gauge.builder("deybimotors.datasource.replica.retraso", replica, EnrutadorDataSource.Replica::getRetrasoSeg)
+                    .description("Retraso de replicación en segundos (-1 = fuera de rotación)")
+                    .baseUnit("seconds")
+                    .tag("replica", nombre)
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+
+        long ventanaMs = EnrutadorDataSource.ventanaEfectivaMs(ventanaEscrituraMs, maxRetrasoSeg, chequeoMs);
+        if (ventanaMs > ventanaEscrituraMs) {
+            log.warn("⚠️ datasource.lectura.ventana-escritura-ms={} no cubre el retraso tolerado " +
+                    "(max-retraso-seg + chequeo-ms); se usa {} ms", ventanaEscrituraMs, ventanaMs);
+        }
+
+        enrutador = new EnrutadorDataSource(primario, replicas, ventanaMs, maxUsuariosFijados);
+        enrutador.afterPropertiesSet();
+        verificarReplicas();
+
+        log.info("✅ DataSource con {} réplica(s) de lectura, retraso máximo {} s", replicas.size(), maxRetrasoSeg);
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+
+    /**
+     * Chequeo periódico del retraso de las réplicas
+     */
+    @Scheduled(fixedDelayString = "${datasource.lectura.chequeo-ms:5000}")
+    public void verificarReplicas() {
+        if (enrutador != null) {
+            enrutador.verificarReplicas(consultaRetraso, maxRetrasoSeg);
+        }
+    }
+
+    @PreDestroy
+    public void cerrarPools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource crearPool(String nombre, String url, String user, String pass,
+                                       String driver, int maximo) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+
+        pool.setPoolName(nombre);
+        pool.setJdbcUrl(url);
+        pool.setUsername(user);
+        pool.setPassword(pass);
+        if (driver != null) {
+            pool.setDriverClassName(driver);
+        }
+        if (maximo > 0) {
+            pool.setMaximumPoolSize(maximo);
+        }
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,235 @@
+package com.deybimotors.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enruta las transacciones @Transactional(readOnly = true) a las réplicas de lectura
+ * - Todo lo demás (escrituras, JDBC sin transacción) va al primario
+ * - Réplica con retraso mayor al permitido o sin respuesta: se omite hasta el próximo chequeo
+ * - Tras confirmar una escritura, las lecturas del mismo usuario van al primario
+ *   durante una ventana (leer lo que uno acaba de escribir); debe cubrir el peor retraso
+ *   de una réplica en rotación, ver {@link #ventanaEfectivaMs}
+ * Debe usarse detrás de LazyConnectionDataSourceProxy: la conexión se pide cuando
+ * la transacción ya marcó si es de solo lectura.
+ */
+@Slf4j
+public class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARIO = "primario";
+
+    private static final Object MARCA_ESCRITURA = new Object();
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final long ventanaEscrituraNanos;
+    private final int maxUsuariosFijados;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    // usuario -> fin de la ventana en el primario (System.nanoTime)
+    private final Map<String, Long> fijadosAlPrimario = new ConcurrentHashMap<>();
+
+    public EnrutadorDataSource(DataSource primario, List<Replica> replicas,
+                               long ventanaEscrituraMs, int maxUsuariosFijados) {
+        this.primario = primario;
+        this.replicas = replicas;
+        this.ventanaEscrituraNanos = ventanaEscrituraMs * 1_000_000L;
+        this.maxUsuariosFijados = maxUsuariosFijados;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        replicas.forEach(r -> destinos.put(r.nombre(), r.dataSource()));
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscrituraAlConfirmar();
+            return PRIMARIO;
+        }
+
+        String usuario = usuarioActual();
+        if (usuario != null && fijadoAlPrimario(usuario)) {
+            return PRIMARIO;
+        }
+
+        Replica replica = siguienteReplicaDisponible();
+        return replica != null ? replica.nombre() : PRIMARIO;
+    }
+
+    /**
+     * Mide el retraso de cada réplica; las que no responden o van atrasadas quedan fuera
+     */
+    public void verificarReplicas(String consultaRetraso, long maxRetrasoSeg) {
+        for (Replica replica : replicas) {
+            boolean estabaDisponible = replica.disponible;
+            try {
+                replica.retrasoSeg = medirRetraso(replica.dataSource(), consultaRetraso);
+                replica.disponible = replica.retrasoSeg >= 0 && replica.retrasoSeg <= maxRetrasoSeg;
+            } catch (Exception e) {
+                replica.retrasoSeg = -1;
+                replica.disponible = false;
+                log.debug("Chequeo de réplica {} falló: {}", replica.nombre(), e.getMessage());
+            }
+
+            if (estabaDisponible && !replica.disponible) {
+                log.warn("⚠️ Réplica {} fuera de rotación (retraso {} s)", replica.nombre(), replica.retrasoSeg);
+            } else if (!estabaDisponible && replica.disponible) {
+                log.info("✅ Réplica {} en rotación (retraso {} s)", replica.nombre(), replica.retrasoSeg);
+            }
+        }
+
+        long ahora = System.nanoTime();
+        fijadosAlPrimario.values().removeIf(fin -> fin - ahora <= 0);
+    }
+
+    /**
+     * Ventana de lectura en el primario tras una escritura
+     * Una réplica en rotación puede ir hasta maxRetrasoSeg atrasada y seguir así hasta el
+     * próximo chequeo, así que una ventana menor a esa suma puede leer datos sin la escritura.
+     */
+    public static long ventanaEfectivaMs(long configuradaMs, long maxRetrasoSeg, long chequeoMs) {
+        return Math.max(configuradaMs, maxRetrasoSeg * 1000 + chequeoMs);
+    }
+
+    public DataSource getPrimario() {
+        return primario;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    private Replica siguienteReplicaDisponible() {
+        int total = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (replica.disponible) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Una vez por transacción de escritura: al confirmar, fija al usuario en el primario
+     */
+    private void registrarEscrituraAlConfirmar() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(MARCA_ESCRITURA)) {
+            return;
+        }
+
+        String usuario = usuarioActual();
+        if (usuario == null) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(MARCA_ESCRITURA, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fijarAlPrimario(usuario);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MARCA_ESCRITURA);
+            }
+        });
+    }
+
+    private void fijarAlPrimario(String usuario) {
+        long ahora = System.nanoTime();
+        if (fijadosAlPrimario.size() >= maxUsuariosFijados && !fijadosAlPrimario.containsKey(usuario)) {
+            fijadosAlPrimario.values().removeIf(fin -> fin - ahora <= 0);
+        }
+        if (fijadosAlPrimario.size() < maxUsuariosFijados || fijadosAlPrimario.containsKey(usuario)) {
+            fijadosAlPrimario.put(usuario, ahora + ventanaEscrituraNanos);
+        }
+    }
+
+    private boolean fijadoAlPrimario(String usuario) {
+        Long fin = fijadosAlPrimario.get(usuario);
+        return fin != null && fin - System.nanoTime() > 0;
+    }
+
+    private static String usuarioActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+
+    /**
+     * Segundos de retraso de la réplica
+     * Sin consulta configurada se usa SHOW REPLICA STATUS de MySQL.
+     */
+    private static long medirRetraso(DataSource dataSource, String consultaRetraso) throws Exception {
+        boolean mysql = consultaRetraso == null || consultaRetraso.isBlank();
+        try (Connection conexion = dataSource.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet rs = sentencia.executeQuery(mysql ? "SHOW REPLICA STATUS" : consultaRetraso)) {
+
+            if (!rs.next()) {
+                // No es réplica (o replicación detenida): no se puede confiar en ella
+                return -1;
+            }
+            // NULL = hilo SQL de replicación detenido
+            long retraso = mysql ? rs.getLong("Seconds_Behind_Source") : rs.getLong(1);
+            return rs.wasNull() ? -1 : retraso;
+        }
+    }
+
+    /**
+     * Pool de una réplica y su último estado medido
+     */
+    public static final class Replica {
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible;
+        private volatile long retrasoSeg = -1;
+
+        public Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+
+        public String nombre() {
+            return nombre;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean isDisponible() {
+            return disponible;
+        }
+
+        public long getRetrasoSeg() {
+            return retrasoSeg;
+        }
+    }
+}
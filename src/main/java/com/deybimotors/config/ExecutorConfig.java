@@ -0,0 +1,123 @@
+package com.deybimotors.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuración de pools de hilos para trabajo en segundo plano
+ * Todos los pools son acotados (hilos y cola) y rechazan al llenarse
+ * También habilita las tareas @Scheduled (limpiezas periódicas)
+ */
+@Configuration
+@EnableScheduling
+@Slf4j
+public class ExecutorConfig {
+
+    /**
+     * Pool para jobs de importación de Excel - RF-028
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor importExecutor(
+            @Value("${import.workers:2}") int workers,
+            @Value("${import.queue-capacity:20}") int queueCapacity
+    ) {
+        log.info("✅ Pool de importaciones: {} workers, cola de {}", workers, queueCapacity);
+        return crearPool("import-", workers, queueCapacity);
+    }
+
+    /**
+     * Pool para verificación y cifrado de contraseñas (BCrypt)
+     * Limita cuántos hashes corren a la vez para que un pico de logins
+     * no acapare los hilos de Tomcat ni la CPU del resto de la API.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordExecutor(
+            @Value("${security.bcrypt.workers:2}") int workers,
+            @Value("${security.bcrypt.queue-capacity:50}") int queueCapacity
+    ) {
+        log.info("✅ Pool de contraseñas: {} workers, cola de {}", workers, queueCapacity);
+        return crearPool("bcrypt-", workers, queueCapacity);
+    }
+
+    /**
+     * Pool para operaciones de archivos diferidas (eliminaciones y compensaciones)
+     * Si se llena, las operaciones quedan en BD para el barrido periódico
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor almacenamientoExecutor(
+            @Value("${almacenamiento.workers:2}") int workers,
+            @Value("${almacenamiento.queue-capacity:200}") int queueCapacity
+    ) {
+        log.info("✅ Pool de almacenamiento: {} workers, cola de {}", workers, queueCapacity);
+        return crearPool("almacenamiento-", workers, queueCapacity);
+    }
+
+    /**
+     * Pool para guardar los originales de un lote de imágenes en paralelo
+     * El request espera el lote; si está lleno responde 503
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor ingestaImagenesExecutor(
+            @Value("${imagenes.ingesta.workers:4}") int workers,
+            @Value("${imagenes.ingesta.queue-capacity:40}") int queueCapacity
+    ) {
+        log.info("✅ Pool de ingesta de imágenes: {} workers, cola de {}", workers, queueCapacity);
+        return crearPool("imagenes-", workers, queueCapacity);
+    }
+
+    /**
+     * Pool para generar miniaturas y variantes (CPU y memoria intensivo)
+     * Si se llena, la imagen se sirve sin variantes
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor variantesImagenesExecutor(
+            @Value("${imagenes.variantes.workers:2}") int workers,
+            @Value("${imagenes.variantes.queue-capacity:500}") int queueCapacity
+    ) {
+        log.info("✅ Pool de variantes de imágenes: {} workers, cola de {}", workers, queueCapacity);
+        return crearPool("variantes-", workers, queueCapacity);
+    }
+
+    /**
+     * Hilo único para refrescar el índice de escaneo tras actualizaciones masivas
+     * Un solo worker aplica los refrescos en el orden de los commits; si se llena,
+     * los cambios se recogen en la próxima recarga completa
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor indiceEscaneoExecutor(
+            @Value("${pos.indice.queue-capacity:100}") int queueCapacity
+    ) {
+        log.info("✅ Pool del índice de escaneo: 1 worker, cola de {}", queueCapacity);
+        return crearPool("indice-escaneo-", 1, queueCapacity);
+    }
+
+    static ThreadPoolExecutor crearPool(String prefijo, int hilos, int capacidadCola) {
+        return new ThreadPoolExecutor(
+                hilos,
+                hilos,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                nombrarHilos(prefijo),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    private static ThreadFactory nombrarHilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return runnable -> {
+            Thread hilo = new Thread(runnable, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
@@ -0,0 +1,649 @@
+package com.deybimotors.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de catálogo sintético para pruebas de rendimiento
+ * Se activa con el perfil "datos-sinteticos":
+ *   java -jar app.jar --spring.profiles.active=datos-sinteticos --sinteticos.productos=300000
+ *
+ * - Determinista: la misma semilla y tamaños producen exactamente los mismos datos
+ * - Inserciones masivas por JDBC en lotes (en MySQL conviene rewriteBatchedStatements=true)
+ * - SKUs "calientes" con distribución Zipf, varias sedes y kardex de varios años
+ * - Todo lo generado usa el prefijo SYN; si ya existe, no se vuelve a generar
+ */
+@Component
+@Profile("datos-sinteticos")
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class GeneradorDatosSinteticos implements CommandLineRunner {
+
+    private static final String PREFIJO = "SYN";
+
+    private static final String[] CATEGORIAS = {
+            "FRENOS", "MOTOR", "SUSPENSION", "ELECTRICO", "TRANSMISION", "FILTROS",
+            "EMBRAGUE", "REFRIGERACION", "DIRECCION", "ESCAPE", "CARROCERIA", "LUBRICANTES"
+    };
+    private static final String[] SUBCATEGORIAS = {"PASTILLAS", "DISCOS", "KITS", "SENSORES"};
+    private static final String[] PIEZAS = {
+            "PASTILLA DE FRENO", "DISCO DE FRENO", "AMORTIGUADOR", "FILTRO DE ACEITE", "BUJIA",
+            "FAJA DE DISTRIBUCION", "BOMBA DE AGUA", "KIT DE EMBRAGUE", "TERMINAL DE DIRECCION", "RADIADOR"
+    };
+    private static final String[] POSICIONES = {"DELANTERO", "POSTERIOR", "IZQUIERDO", "DERECHO", ""};
+    private static final String[] PAISES = {"JAPON", "COREA", "CHINA", "ALEMANIA", "BRASIL", "TAILANDIA", "INDIA", "USA"};
+    private static final String[] MARCAS_AUTO = {
+            "TOYOTA", "NISSAN", "HYUNDAI", "KIA", "SUZUKI", "MITSUBISHI", "CHEVROLET", "MAZDA",
+            "HONDA", "VOLKSWAGEN", "FORD", "RENAULT", "PEUGEOT", "ISUZU", "JAC"
+    };
+    private static final String[] CIUDADES = {"Lima", "Arequipa", "Trujillo", "Chiclayo", "Piura", "Cusco"};
+    private static final String[] CODIGOS_PRECIO = {"A", "B", "C", "D", "E"};
+
+    private static final int MARCAS_PRODUCTO = 30;
+    private static final int MODELOS_POR_MARCA = 6;
+    private static final int PROVEEDORES = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext context;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${sinteticos.semilla:42}")
+    private long semilla;
+
+    @Value("${sinteticos.sedes:3}")
+    private int sedes;
+
+    @Value("${sinteticos.productos:200000}")
+    private int productos;
+
+    @Value("${sinteticos.movimientos:2000000}")
+    private int movimientos;
+
+    @Value("${sinteticos.compras:5000}")
+    private int compras;
+
+    @Value("${sinteticos.anios-historia:3}")
+    private int aniosHistoria;
+
+    // Fecha fija de fin de la historia: el resultado no depende de cuándo se ejecuta
+    @Value("${sinteticos.fecha-fin:2025-12-31T20:00:00}")
+    private LocalDateTime fechaFin;
+
+    @Value("${sinteticos.sesgo-zipf:1.1}")
+    private double sesgoZipf;
+
+    @Value("${sinteticos.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${sinteticos.salir-al-terminar:false}")
+    private boolean salirAlTerminar;
+
+    @Override
+    public void run(String... args) {
+        try {
+            Integer existentes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM productos WHERE codigo_interno LIKE ?", Integer.class, PREFIJO + "-%");
+
+            if (existentes != null && existentes > 0) {
+                log.info("ℹ️  Datos sintéticos ya existen: {} productos {}-*", existentes, PREFIJO);
+            } else {
+                generar();
+            }
+        } catch (Exception e) {
+            log.error("❌ Error generando datos sintéticos: {}", e.getMessage());
+            log.error("Stack trace:", e);
+        }
+
+        if (salirAlTerminar) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * Generar el dataset completo con la configuración actual
+     */
+    public Resumen generar() {
+
+        long inicio = System.currentTimeMillis();
+
+        log.info("========================================");
+        log.info("🧪 Generando datos sintéticos (semilla {})", semilla);
+        log.info("   Sedes: {} | Productos: {} | Movimientos: {} | Compras: {} | Historia: {} años",
+                sedes, productos, movimientos, compras, aniosHistoria);
+        log.info("========================================");
+
+        Referencias ref = insertarReferencias();
+
+        // Popularidad: la posición k de la permutación recibe el k-ésimo peso Zipf
+        Zipf zipf = new Zipf(productos, sesgoZipf);
+        int[] popularidad = permutacion(productos, new Random(semilla + 4));
+        LocalDateTime inicioHistoria = fechaFin.minusYears(aniosHistoria);
+
+        // Primera pasada: stock final de cada producto según el kardex simulado
+        int[] stockFinal = simularKardex(zipf, popularidad, inicioHistoria, null, null);
+
+        Catalogo catalogo = insertarCatalogo(ref, stockFinal, inicioHistoria);
+        log.info("✅ Catálogo: {} productos", productos);
+
+        // Segunda pasada: misma semilla, ahora escribiendo los movimientos
+        simularKardex(zipf, popularidad, inicioHistoria, catalogo, ref);
+        log.info("✅ Kardex: {} movimientos", movimientos);
+
+        insertarCompras(ref, catalogo, zipf, popularidad, inicioHistoria);
+        log.info("✅ Compras: {}", compras);
+
+        reiniciarIdentidades();
+
+        // Los INSERT por JDBC no pasan por Hibernate: la caché de segundo nivel no se entera
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        Resumen resumen = new Resumen(sedes, productos, movimientos, compras,
+                catalogo.productoIdBase, System.currentTimeMillis() - inicio);
+
+        log.info("========================================");
+        log.info("✅ Datos sintéticos generados en {} ms", resumen.milisegundos());
+        log.info("========================================");
+
+        return resumen;
+    }
+
+    // ========================================
+    // DATOS DE REFERENCIA
+    // ========================================
+
+    private Referencias insertarReferencias() {
+
+        Timestamp fechaAlta = Timestamp.valueOf(fechaFin.minusYears(aniosHistoria + 1L));
+        Referencias ref = new Referencias();
+
+        ref.sedeIds = new long[sedes];
+        long id = siguienteId("sedes");
+        Lote lote = new Lote("INSERT INTO sedes (id, nombre, codigo, direccion, ciudad, telefono, activo, fecha_creacion, observaciones) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < sedes; i++) {
+            ref.sedeIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + " Sede " + (i + 1), PREFIJO + (i + 1), "Av. Sintética " + (100 + i),
+                    CIUDADES[i % CIUDADES.length], "9" + (10_000_000 + i), true, fechaAlta, "Generada para pruebas");
+        }
+        lote.cerrar();
+
+        // Un vendedor por sede; todos comparten la misma contraseña
+        String password = passwordEncoder.encode("sintetico123");
+        ref.usuarioIds = new long[sedes];
+        id = siguienteId("usuarios");
+        lote = new Lote("INSERT INTO usuarios (id, username, password, nombre_completo, email, telefono, rol, sede_id, activo, " +
+                "fecha_creacion, fecha_actualizacion, observaciones) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < sedes; i++) {
+            ref.usuarioIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO.toLowerCase() + "_vendedor_" + (i + 1), password, "Vendedor Sintético " + (i + 1),
+                    null, null, "VENDEDOR", ref.sedeIds[i], true, fechaAlta, fechaAlta, "Generado para pruebas");
+        }
+        lote.cerrar();
+
+        ref.categoriaIds = new long[CATEGORIAS.length];
+        id = siguienteId("categorias");
+        lote = new Lote("INSERT INTO categorias (id, nombre, descripcion, activo) VALUES (?, ?, ?, ?)");
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            ref.categoriaIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + " " + CATEGORIAS[i], null, true);
+        }
+        lote.cerrar();
+
+        ref.subcategoriaIds = new long[CATEGORIAS.length * SUBCATEGORIAS.length];
+        id = siguienteId("subcategorias");
+        lote = new Lote("INSERT INTO subcategorias (id, nombre, categoria_id, descripcion, activo) VALUES (?, ?, ?, ?, ?)");
+        for (int c = 0; c < CATEGORIAS.length; c++) {
+            for (int s = 0; s < SUBCATEGORIAS.length; s++) {
+                int i = c * SUBCATEGORIAS.length + s;
+                ref.subcategoriaIds[i] = id + i;
+                lote.agregar(id + i, SUBCATEGORIAS[s], ref.categoriaIds[c], null, true);
+            }
+        }
+        lote.cerrar();
+
+        ref.marcaIds = new long[MARCAS_PRODUCTO];
+        id = siguienteId("marcas_producto");
+        lote = new Lote("INSERT INTO marcas_producto (id, nombre, descripcion, activo) VALUES (?, ?, ?, ?)");
+        for (int i = 0; i < MARCAS_PRODUCTO; i++) {
+            ref.marcaIds[i] = id + i;
+            lote.agregar(id + i, String.format("%s MARCA %02d", PREFIJO, i + 1), null, true);
+        }
+        lote.cerrar();
+
+        ref.origenIds = new long[PAISES.length];
+        id = siguienteId("origenes");
+        lote = new Lote("INSERT INTO origenes (id, pais) VALUES (?, ?)");
+        for (int i = 0; i < PAISES.length; i++) {
+            ref.origenIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + " " + PAISES[i]);
+        }
+        lote.cerrar();
+
+        ref.codigoPrecioIds = new long[CODIGOS_PRECIO.length];
+        id = siguienteId("codigos_precio");
+        lote = new Lote("INSERT INTO codigos_precio (id, codigo, descripcion, factor) VALUES (?, ?, ?, ?)");
+        for (int i = 0; i < CODIGOS_PRECIO.length; i++) {
+            ref.codigoPrecioIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + "-" + CODIGOS_PRECIO[i], "Código sintético", BigDecimal.valueOf(130 + i * 10L, 2));
+        }
+        lote.cerrar();
+
+        ref.marcaAutoIds = new long[MARCAS_AUTO.length];
+        id = siguienteId("marcas_automovil");
+        lote = new Lote("INSERT INTO marcas_automovil (id, nombre) VALUES (?, ?)");
+        for (int i = 0; i < MARCAS_AUTO.length; i++) {
+            ref.marcaAutoIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + " " + MARCAS_AUTO[i]);
+        }
+        lote.cerrar();
+
+        ref.modeloIds = new long[MARCAS_AUTO.length * MODELOS_POR_MARCA];
+        id = siguienteId("modelos_automovil");
+        lote = new Lote("INSERT INTO modelos_automovil (id, nombre, marca_automovil_id) VALUES (?, ?, ?)");
+        for (int m = 0; m < MARCAS_AUTO.length; m++) {
+            for (int k = 0; k < MODELOS_POR_MARCA; k++) {
+                int i = m * MODELOS_POR_MARCA + k;
+                ref.modeloIds[i] = id + i;
+                lote.agregar(id + i, "MODELO " + (char) ('A' + k), ref.marcaAutoIds[m]);
+            }
+        }
+        lote.cerrar();
+
+        ref.proveedorIds = new long[PROVEEDORES];
+        id = siguienteId("proveedores");
+        lote = new Lote("INSERT INTO proveedores (id, nombre_empresa, ruc, contacto, telefono, email, direccion, activo, " +
+                "fecha_creacion, observaciones) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < PROVEEDORES; i++) {
+            ref.proveedorIds[i] = id + i;
+            lote.agregar(id + i, PREFIJO + " Importaciones " + (i + 1) + " S.A.C.",
+                    PREFIJO + (20_100_000_000L + i * 7919L), "Contacto " + (i + 1),
+                    null, null, null, true, fechaAlta, null);
+        }
+        lote.cerrar();
+
+        log.info("✅ Datos de referencia: {} sedes, {} categorías, {} marcas, {} proveedores",
+                sedes, CATEGORIAS.length, MARCAS_PRODUCTO, PROVEEDORES);
+        return ref;
+    }
+
+    // ========================================
+    // CATÁLOGO
+    // ========================================
+
+    private Catalogo insertarCatalogo(Referencias ref, int[] stockFinal, LocalDateTime inicioHistoria) {
+
+        Random random = new Random(semilla + 1);
+        Catalogo catalogo = new Catalogo();
+        catalogo.productoIdBase = siguienteId("productos");
+        catalogo.sede = new int[productos];
+        catalogo.precioCostoCentimos = new int[productos];
+
+        long oemId = siguienteId("codigos_oem");
+        long segundosAlta = Duration.between(inicioHistoria, fechaFin).getSeconds() / 3;
+
+        Lote productosLote = new Lote("INSERT INTO productos (id, sede_id, codigo_marca, codigo_interno, descripcion, categoria_id, " +
+                "subcategoria_id, marca_producto_id, origen_id, medida, diametro, tipo, medida_2, stock, foto_url, codigo_precio_id, " +
+                "precio_costo, precio_venta, publico_catalogo, estado, fecha_creacion) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        Lote oemLote = new Lote("INSERT INTO codigos_oem (id, codigo_oem) VALUES (?, ?)");
+        Lote productoOemLote = new Lote("INSERT INTO producto_oem (producto_id, oem_id) VALUES (?, ?)");
+        Lote compatibilidadLote = new Lote("INSERT INTO compatibilidades (producto_id, marca_automovil_id, modelo_automovil_id, anio, motor) " +
+                "VALUES (?, ?, ?, ?, ?)");
+        Lote imagenLote = new Lote("INSERT INTO producto_imagenes (producto_id, url, orden, es_principal, fecha_creacion) " +
+                "VALUES (?, ?, ?, ?, ?)");
+
+        for (int i = 0; i < productos; i++) {
+
+            long productoId = catalogo.productoIdBase + i;
+            int sede = elegirSede(random);
+            int categoria = random.nextInt(CATEGORIAS.length);
+            int marcaAuto = random.nextInt(MARCAS_AUTO.length);
+            int costo = 500 + (int) Math.min(200_000, Math.exp(random.nextGaussian() * 0.9 + 8.5));
+            int imagenes = random.nextInt(5);
+            Timestamp fechaCreacion = Timestamp.valueOf(inicioHistoria.plusSeconds((long) (random.nextDouble() * segundosAlta)));
+
+            catalogo.sede[i] = sede;
+            catalogo.precioCostoCentimos[i] = costo;
+
+            String url = "https://res.cloudinary.com/demo/image/upload/" + PREFIJO.toLowerCase() + "/" + productoId;
+
+            productosLote.agregar(
+                    productoId,
+                    ref.sedeIds[sede],
+                    "MK" + (100_000 + random.nextInt(900_000)),
+                    String.format("%s-%07d", PREFIJO, i + 1),
+                    PIEZAS[random.nextInt(PIEZAS.length)] + " " + POSICIONES[random.nextInt(POSICIONES.length)] + " "
+                            + MARCAS_AUTO[marcaAuto],
+                    ref.categoriaIds[categoria],
+                    ref.subcategoriaIds[categoria * SUBCATEGORIAS.length + random.nextInt(SUBCATEGORIAS.length)],
+                    ref.marcaIds[random.nextInt(MARCAS_PRODUCTO)],
+                    ref.origenIds[random.nextInt(PAISES.length)],
+                    (20 + random.nextInt(200)) + "x" + (10 + random.nextInt(90)),
+                    random.nextInt(4) == 0 ? String.valueOf(10 + random.nextInt(40)) : null,
+                    random.nextBoolean() ? "ORIGINAL" : "ALTERNATIVO",
+                    null,
+                    stockFinal[i],
+                    imagenes > 0 ? url + "_0.jpg" : null,
+                    ref.codigoPrecioIds[random.nextInt(CODIGOS_PRECIO.length)],
+                    BigDecimal.valueOf(costo, 2),
+                    BigDecimal.valueOf(Math.round(costo * (1.3 + random.nextDouble() * 0.5)), 2),
+                    random.nextInt(10) < 6,
+                    random.nextInt(100) < 97,
+                    fechaCreacion
+            );
+
+            int oems = 1 + random.nextInt(3);
+            for (int k = 0; k < oems; k++) {
+                oemLote.agregar(oemId, String.format("%s-OEM-%07d-%d", PREFIJO, i + 1, k));
+                productoOemLote.agregar(productoId, oemId);
+                oemId++;
+            }
+
+            int compatibles = random.nextInt(5);
+            for (int k = 0; k < compatibles; k++) {
+                int marca = k == 0 ? marcaAuto : random.nextInt(MARCAS_AUTO.length);
+                int anio = 2005 + random.nextInt(20);
+                compatibilidadLote.agregar(productoId, ref.marcaAutoIds[marca],
+                        ref.modeloIds[marca * MODELOS_POR_MARCA + random.nextInt(MODELOS_POR_MARCA)],
+                        anio + "-" + (anio + random.nextInt(6)), (1 + random.nextInt(3)) + "." + random.nextInt(10));
+            }
+
+            for (int k = 0; k < imagenes; k++) {
+                imagenLote.agregar(productoId, url + "_" + k + ".jpg", k, k == 0, fechaCreacion);
+            }
+
+            // Volcar en orden de claves foráneas
+            if (productosLote.pendientes() >= batchSize) {
+                volcar(productosLote, oemLote, productoOemLote, compatibilidadLote, imagenLote);
+                if ((i + 1) % (batchSize * 10) == 0) {
+                    log.info("   ... {} / {} productos", i + 1, productos);
+                }
+            }
+        }
+        volcar(productosLote, oemLote, productoOemLote, compatibilidadLote, imagenLote);
+
+        return catalogo;
+    }
+
+    // 45% de los productos en la primera sede, el resto repartido
+    private int elegirSede(Random random) {
+        if (sedes == 1 || random.nextInt(100) < 45) {
+            return 0;
+        }
+        return 1 + random.nextInt(sedes - 1);
+    }
+
+    // ========================================
+    // KARDEX
+    // ========================================
+
+    /**
+     * Simula la historia de movimientos. Sin catálogo solo calcula el stock
+     * final; con catálogo repite la misma secuencia e inserta los movimientos.
+     */
+    private int[] simularKardex(Zipf zipf, int[] popularidad, LocalDateTime inicioHistoria,
+                                Catalogo catalogo, Referencias ref) {
+
+        Random random = new Random(semilla + 2);
+        int[] stock = new int[productos];
+        for (int i = 0; i < productos; i++) {
+            stock[i] = random.nextInt(15);
+        }
+
+        double segundosPorMovimiento = (double) Duration.between(inicioHistoria, fechaFin).getSeconds() / Math.max(1, movimientos);
+
+        Lote lote = catalogo == null ? null : new Lote("INSERT INTO kardex (producto_id, sede_id, tipo_movimiento, referencia_tabla, " +
+                "referencia_id, cantidad, stock_anterior, stock_actual, usuario_id, fecha_movimiento) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+        for (int m = 0; m < movimientos; m++) {
+
+            int producto = popularidad[zipf.muestra(random)];
+            double r = random.nextDouble();
+            double desfase = random.nextDouble();
+
+            String tipo;
+            int cantidad;
+            if (r < 0.62) {
+                tipo = "SALIDA_VENTA";
+                cantidad = 1 + random.nextInt(4);
+            } else if (r < 0.82) {
+                tipo = "ENTRADA_COMPRA";
+                cantidad = 5 + random.nextInt(46);
+            } else if (r < 0.88) {
+                tipo = "TRASLADO_SALIDA";
+                cantidad = 1 + random.nextInt(5);
+            } else if (r < 0.94) {
+                tipo = "AJUSTE_POSITIVO";
+                cantidad = 1 + random.nextInt(3);
+            } else {
+                tipo = "AJUSTE_NEGATIVO";
+                cantidad = 1 + random.nextInt(3);
+            }
+
+            boolean entrada = tipo.equals("ENTRADA_COMPRA") || tipo.equals("AJUSTE_POSITIVO");
+            if (!entrada && cantidad > stock[producto]) {
+                // Sin stock suficiente: se repone en lugar de vender
+                tipo = "ENTRADA_COMPRA";
+                cantidad = 10 + random.nextInt(31);
+                entrada = true;
+            }
+
+            int anterior = stock[producto];
+            stock[producto] = entrada ? anterior + cantidad : anterior - cantidad;
+
+            if (lote != null) {
+                int sede = catalogo.sede[producto];
+                LocalDateTime fecha = inicioHistoria.plusSeconds((long) ((m + desfase) * segundosPorMovimiento));
+
+                lote.agregar(catalogo.productoIdBase + producto, ref.sedeIds[sede], tipo,
+                        entrada ? "compras" : "salidas", null, cantidad, anterior, stock[producto],
+                        ref.usuarioIds[sede], Timestamp.valueOf(fecha));
+
+                if (lote.pendientes() >= batchSize) {
+                    lote.volcar();
+                    if ((m + 1) % (batchSize * 50) == 0) {
+                        log.info("   ... {} / {} movimientos", m + 1, movimientos);
+                    }
+                }
+            }
+        }
+
+        if (lote != null) {
+            lote.cerrar();
+        }
+        return stock;
+    }
+
+    // ========================================
+    // COMPRAS
+    // ========================================
+
+    private void insertarCompras(Referencias ref, Catalogo catalogo, Zipf zipf, int[] popularidad,
+                                 LocalDateTime inicioHistoria) {
+
+        Random random = new Random(semilla + 3);
+        long compraId = siguienteId("compras");
+        double segundosPorCompra = (double) Duration.between(inicioHistoria, fechaFin).getSeconds() / Math.max(1, compras);
+
+        Lote compraLote = new Lote("INSERT INTO compras (id, numero_compra, proveedor_id, sede_id, ruta_factura, estado, monto_total, " +
+                "usuario_id, fecha_creacion, fecha_actualizacion, observaciones) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        Lote detalleLote = new Lote("INSERT INTO detalle_compras (compra_id, producto_id, cantidad, precio_unitario, observaciones) " +
+                "VALUES (?, ?, ?, ?, ?)");
+
+        for (int c = 0; c < compras; c++) {
+
+            int sede = elegirSede(random);
+            int lineas = 1 + random.nextInt(12);
+            long monto = 0;
+
+            for (int l = 0; l < lineas; l++) {
+                int producto = popularidad[zipf.muestra(random)];
+                int cantidad = 2 + random.nextInt(29);
+                int precio = catalogo.precioCostoCentimos[producto];
+                monto += (long) precio * cantidad;
+                detalleLote.agregar(compraId, catalogo.productoIdBase + producto, cantidad, BigDecimal.valueOf(precio, 2), null);
+            }
+
+            Timestamp fecha = Timestamp.valueOf(inicioHistoria.plusSeconds((long) ((c + random.nextDouble()) * segundosPorCompra)));
+            compraLote.agregar(compraId, String.format("%s-C-%07d", PREFIJO, c + 1),
+                    ref.proveedorIds[random.nextInt(PROVEEDORES)], ref.sedeIds[sede], null,
+                    random.nextInt(10) < 9 ? "PAGADO" : "PENDIENTE", BigDecimal.valueOf(monto, 2),
+                    ref.usuarioIds[sede], fecha, fecha, null);
+            compraId++;
+
+            if (compraLote.pendientes() >= batchSize / 10) {
+                volcar(compraLote, detalleLote);
+            }
+        }
+        volcar(compraLote, detalleLote);
+    }
+
+    // ========================================
+    // AUXILIARES
+    // ========================================
+
+    private long siguienteId(String tabla) {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        return (maximo != null ? maximo : 0) + 1;
+    }
+
+    /**
+     * MySQL ajusta AUTO_INCREMENT al insertar ids explícitos; H2 no,
+     * así que se reinician las identidades para que la app pueda seguir insertando.
+     */
+    private void reiniciarIdentidades() {
+        String motor = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (motor == null || !motor.toUpperCase().contains("H2")) {
+            return;
+        }
+
+        for (String tabla : List.of("sedes", "usuarios", "categorias", "subcategorias", "marcas_producto", "origenes",
+                "codigos_precio", "marcas_automovil", "modelos_automovil", "proveedores", "productos", "codigos_oem", "compras")) {
+            jdbcTemplate.execute("ALTER TABLE " + tabla + " ALTER COLUMN id RESTART WITH " + siguienteId(tabla));
+        }
+    }
+
+    private static int[] permutacion(int n, Random random) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = tmp;
+        }
+        return indices;
+    }
+
+    private static void volcar(Lote... lotes) {
+        for (Lote lote : lotes) {
+            lote.volcar();
+        }
+    }
+
+    /**
+     * Resultado de la generación (ids de productos desde productoIdBase)
+     */
+    public record Resumen(int sedes, int productos, int movimientos, int compras, long productoIdBase, long milisegundos) {}
+
+    private static class Referencias {
+        long[] sedeIds;
+        long[] usuarioIds;
+        long[] categoriaIds;
+        long[] subcategoriaIds;
+        long[] marcaIds;
+        long[] origenIds;
+        long[] codigoPrecioIds;
+        long[] marcaAutoIds;
+        long[] modeloIds;
+        long[] proveedorIds;
+    }
+
+    private static class Catalogo {
+        long productoIdBase;
+        int[] sede;
+        int[] precioCostoCentimos;
+    }
+
+    /**
+     * Distribución Zipf sobre [0, n): pocos índices concentran la mayoría de muestras
+     */
+    private static class Zipf {
+
+        private final double[] acumulada;
+
+        Zipf(int n, double sesgo) {
+            acumulada = new double[Math.max(1, n)];
+            double suma = 0;
+            for (int k = 0; k < acumulada.length; k++) {
+                suma += 1.0 / Math.pow(k + 1, sesgo);
+                acumulada[k] = suma;
+            }
+            for (int k = 0; k < acumulada.length; k++) {
+                acumulada[k] /= suma;
+            }
+        }
+
+        int muestra(Random random) {
+            int posicion = Arrays.binarySearch(acumulada, random.nextDouble());
+            return Math.min(posicion >= 0 ? posicion : -posicion - 1, acumulada.length - 1);
+        }
+    }
+
+    /**
+     * Buffer de filas para un INSERT ejecutado con batchUpdate
+     */
+    private class Lote {
+
+        private final String sql;
+        private final List<Object[]> filas = new ArrayList<>();
+
+        Lote(String sql) {
+            this.sql = sql;
+        }
+
+        void agregar(Object... valores) {
+            filas.add(valores);
+        }
+
+        int pendientes() {
+            return filas.size();
+        }
+
+        void volcar() {
+            if (!filas.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, filas);
+                filas.clear();
+            }
+        }
+
+        void cerrar() {
+            volcar();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.deybimotors.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Identificador de este nodo en las filas que reclama (jobs de importación, operaciones de almacenamiento)
+ * Estable entre reinicios: un nodo reiniciado reconoce como suyas las filas que tenía asignadas.
+ * nodo.id vacío = hostname; con varias instancias en un mismo host, configurar uno distinto por instancia.
+ */
+@Slf4j
+@Component
+public class IdentidadNodo {
+
+    private static final int LARGO_MAXIMO = 100;
+
+    @Value("${nodo.id:}")
+    private String configurado;
+
+    @Getter
+    private String id;
+
+    @PostConstruct
+    public void init() {
+        String valor = StringUtils.hasText(configurado) ? configurado.trim() : nombreHost();
+        id = valor.length() > LARGO_MAXIMO ? valor.substring(0, LARGO_MAXIMO) : valor;
+        log.info("🖥️ Identificador de nodo: {}", id);
+    }
+
+    private static String nombreHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "nodo";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.deybimotors.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Publica por endpoint cuántas sentencias SQL, entidades y colecciones
+ * cargó Hibernate en cada request (detecta N+1 en los hot paths)
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasRequestFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        ContadoresHibernate.Contadores contadores = ContadoresHibernate.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContadoresHibernate.terminar();
+            registrar(request, contadores);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadoresHibernate.Contadores contadores) {
+        // Patrón de la ruta (/api/productos/{id}) para no crear una serie por URL
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+
+        resumen("hibernate.request.statements", "Sentencias SQL por request", uri, request)
+                .record(contadores.getSentencias());
+        resumen("hibernate.request.entity.loads", "Entidades cargadas por request", uri, request)
+                .record(contadores.getEntidadesCargadas());
+        resumen("hibernate.request.collection.fetches", "Colecciones inicializadas por request", uri, request)
+                .record(contadores.getColeccionesInicializadas());
+    }
+
+    private DistributionSummary resumen(String nombre, String descripcion, String uri, HttpServletRequest request) {
+        return DistributionSummary.builder(nombre)
+                .description(descripcion)
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.deybimotors.config;
+
+import com.deybimotors.entity.MovimientoKardex;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de métricas (Micrometer + Prometheus)
+ * - @Timed en servicios (TimedAspect)
+ * - Contadores de Hibernate por request (sentencias, entidades, colecciones)
+ * - Movimientos de stock confirmados por tipo
+ * Las métricas HTTP, de HikariCP y las estadísticas globales de Hibernate
+ * las registra Spring Boot Actuator.
+ */
+@Configuration
+@Slf4j
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorSentenciasCustomizer() {
+        return properties -> properties.put(
+                AvailableSettings.STATEMENT_INSPECTOR,
+                new ContadoresHibernate.ContadorSentencias()
+        );
+    }
+
+    @Bean
+    public SmartInitializingSingleton registrarListenersMetricas(
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry
+    ) {
+        return () -> {
+            EventListenerRegistry registry = entityManagerFactory
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+
+            registry.appendListeners(EventType.POST_LOAD,
+                    (PostLoadEventListener) event -> ContadoresHibernate.entidadCargada());
+            registry.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> ContadoresHibernate.coleccionInicializada());
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, new ContadorMovimientosStock(meterRegistry));
+
+            log.info("✅ Listeners de métricas de Hibernate registrados");
+        };
+    }
+
+    /**
+     * Cuenta movimientos de kardex por tipo una vez confirmada la transacción
+     */
+    static class ContadorMovimientosStock implements PostCommitInsertEventListener {
+
+        private final MeterRegistry meterRegistry;
+
+        ContadorMovimientosStock(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof MovimientoKardex movimiento) {
+                String tipo = movimiento.getTipoMovimiento() != null ? movimiento.getTipoMovimiento() : "DESCONOCIDO";
+
+                Counter.builder("deybimotors.stock.movimientos")
+                        .description("Movimientos de stock registrados")
+                        .tag("tipo", tipo)
+                        .register(meterRegistry)
+                        .increment();
+
+                if (movimiento.getCantidad() != null) {
+                    Counter.builder("deybimotors.stock.unidades")
+                            .description("Unidades movidas en movimientos de stock")
+                            .tag("tipo", tipo)
+                            .register(meterRegistry)
+                            .increment(movimiento.getCantidad());
+                }
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            // Nada que contar: el movimiento no se confirmó
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return MovimientoKardex.class.isAssignableFrom(persister.getMappedClass());
+        }
+    }
+}
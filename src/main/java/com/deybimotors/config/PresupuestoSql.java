@@ -0,0 +1,18 @@
+package com.deybimotors.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL que puede ejecutar un endpoint por request
+ * En un controlador aplica a todos sus métodos salvo que el método declare el suyo.
+ * sql.presupuesto.endpoints tiene prioridad sobre la anotación.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PresupuestoSql {
+
+    int value();
+}
@@ -0,0 +1,189 @@
+package com.deybimotors.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint
+ * Modos (sql.presupuesto.modo):
+ * - OFF: no se controla
+ * - LOG: cuenta siempre y publica hibernate.request.budget.exceeded; en los
+ *   requests muestreados registra el endpoint infractor con sus huellas SQL
+ * - ESTRICTO: el request falla en la sentencia que excede el presupuesto (pruebas)
+ * Las últimas violaciones quedan en {@link #violaciones()} para las pruebas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PresupuestoSqlInterceptor implements HandlerInterceptor {
+
+    private static final int MAX_VIOLACIONES = 100;
+    private static final int HUELLAS_EN_LOG = 5;
+    private static final int LARGO_HUELLA_EN_LOG = 160;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.presupuesto.modo:LOG}")
+    private Modo modo;
+
+    @Value("${sql.presupuesto.muestreo:0.05}")
+    private double muestreo;
+
+    @Value("${sql.presupuesto.por-defecto:0}")
+    private int presupuestoPorDefecto;
+
+    @Value("${sql.presupuesto.endpoints:}")
+    private String endpointsConfigurados;
+
+    private final ConcurrentLinkedDeque<Violacion> violaciones = new ConcurrentLinkedDeque<>();
+
+    private final Map<String, Integer> presupuestosConfigurados = new HashMap<>();
+
+    public enum Modo { OFF, LOG, ESTRICTO }
+
+    public record Violacion(String endpoint, int sentencias, int presupuesto, Map<String, Integer> huellas) {}
+
+    /**
+     * sql.presupuesto.endpoints: "GET /api/productos/{id}=5,POST /api/stock/salida=30"
+     */
+    @PostConstruct
+    public void init() {
+        for (String entrada : endpointsConfigurados.split(",")) {
+            int separador = entrada.lastIndexOf('=');
+            if (separador > 0) {
+                presupuestosConfigurados.put(entrada.substring(0, separador).trim(),
+                        Integer.parseInt(entrada.substring(separador + 1).trim()));
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler
+    ) {
+        ContadoresHibernate.Contadores contadores = ContadoresHibernate.actual();
+        if (modo == Modo.OFF || contadores == null) {
+            return true;
+        }
+
+        int presupuesto = resolverPresupuesto(request, handler);
+        if (presupuesto <= 0) {
+            return true;
+        }
+
+        boolean estricto = modo == Modo.ESTRICTO;
+        contadores.limitar(presupuesto, estricto);
+        if (estricto || ThreadLocalRandom.current().nextDouble() < muestreo) {
+            contadores.registrarHuellas();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler,
+            Exception ex
+    ) {
+        ContadoresHibernate.Contadores contadores = ContadoresHibernate.actual();
+        if (contadores == null || !contadores.excedido()) {
+            return;
+        }
+
+        String endpoint = endpoint(request);
+        Counter.builder("hibernate.request.budget.exceeded")
+                .description("Requests que superaron su presupuesto de sentencias SQL")
+                .tag("uri", patron(request))
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .increment();
+
+        // Sin huellas = request no muestreado: solo métrica
+        if (contadores.getHuellas() == null) {
+            return;
+        }
+
+        Violacion violacion = new Violacion(endpoint, contadores.getSentencias(),
+                contadores.getPresupuesto(), Map.copyOf(contadores.getHuellas()));
+        violaciones.addFirst(violacion);
+        while (violaciones.size() > MAX_VIOLACIONES) {
+            violaciones.pollLast();
+        }
+
+        log.warn("⚠️ Presupuesto SQL excedido en {}: {} sentencias (máximo {}). Más repetidas: {}",
+                endpoint, violacion.sentencias(), violacion.presupuesto(), masRepetidas(violacion.huellas()));
+    }
+
+    /**
+     * Violaciones registradas, de la más reciente a la más antigua
+     */
+    public List<Violacion> violaciones() {
+        return new ArrayList<>(violaciones);
+    }
+
+    public void limpiarViolaciones() {
+        violaciones.clear();
+    }
+
+    private int resolverPresupuesto(HttpServletRequest request, Object handler) {
+        Integer configurado = presupuestosConfigurados.get(endpoint(request));
+        if (configurado != null) {
+            return configurado;
+        }
+
+        if (handler instanceof HandlerMethod handlerMethod) {
+            PresupuestoSql anotacion = handlerMethod.getMethodAnnotation(PresupuestoSql.class);
+            if (anotacion == null) {
+                anotacion = handlerMethod.getBeanType().getAnnotation(PresupuestoSql.class);
+            }
+            if (anotacion != null) {
+                return anotacion.value();
+            }
+        }
+        return presupuestoPorDefecto;
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        return request.getMethod() + " " + patron(request);
+    }
+
+    private static String patron(HttpServletRequest request) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return patron != null ? patron.toString() : "UNKNOWN";
+    }
+
+    private static String abreviar(String huella) {
+        return huella.length() <= LARGO_HUELLA_EN_LOG ? huella : huella.substring(0, LARGO_HUELLA_EN_LOG) + "...";
+    }
+
+    private static String masRepetidas(Map<String, Integer> huellas) {
+        return huellas.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(HUELLAS_EN_LOG)
+                .map(e -> e.getValue() + "x " + abreviar(e.getKey()))
+                .collect(Collectors.joining(" | ", "[", "]"));
+    }
+}
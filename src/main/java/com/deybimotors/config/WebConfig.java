@@ -1,38 +1,22 @@
 package com.deybimotors.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.io.File;
-
 /**
- * Configuración para servir archivos estáticos
- * Permite acceder a imágenes y documentos subidos
+ * Configuración MVC: interceptores
+ * Las imágenes y documentos subidos los sirve ArchivosEstaticosConfig (fuera de Spring MVC)
  */
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
-
-    @Value("${file.documents-dir}")
-    private String documentsDir;
+    private final PresupuestoSqlInterceptor presupuestoSqlInterceptor;
 
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-
-        // ✅ CORRECCIÓN: Convertir rutas a absolutas
-        File imageDir = new File(uploadDir);
-        File docDir = new File(documentsDir);
-
-        // Servir imágenes de productos
-        registry.addResourceHandler("/uploads/images/**")
-                .addResourceLocations("file:" + imageDir.getAbsolutePath() + File.separator);
-
-        // Servir documentos (facturas, etc.)
-        registry.addResourceHandler("/uploads/documents/**")
-                .addResourceLocations("file:" + docDir.getAbsolutePath() + File.separator);
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(presupuestoSqlInterceptor).addPathPatterns("/api/**");
     }
 }
\ No newline at end of file
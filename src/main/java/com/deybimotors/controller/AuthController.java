@@ -2,6 +2,7 @@ package com.deybimotors.controller;
 
 import com.deybimotors.dto.AuthDTO;
 import com.deybimotors.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -26,8 +27,12 @@ public class AuthController {
      * Iniciar sesión y obtener token JWT
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthDTO.LoginResponse> login(@Valid @RequestBody AuthDTO.LoginRequest request) {
-        AuthDTO.LoginResponse response = authService.login(request);
+    public ResponseEntity<AuthDTO.LoginResponse> login(
+            @Valid @RequestBody AuthDTO.LoginRequest request,
+            HttpServletRequest httpRequest
+    ) {
+        // IP del cliente (X-Forwarded-For del proxy de confianza, server.forward-headers-strategy)
+        AuthDTO.LoginResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
@@ -1,12 +1,18 @@
 package com.deybimotors.controller;
 
+import com.deybimotors.config.PresupuestoSql;
 import com.deybimotors.dto.CompraDTO;
 import com.deybimotors.security.SecurityUtils;
 import com.deybimotors.service.CompraService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -106,6 +112,7 @@ public class CompraController {
      * POST /api/compras
      * Crear nueva compra
      */
+    @PresupuestoSql(80)
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'ALMACENERO', 'VENDEDOR')")
     public ResponseEntity<CompraDTO.CompraResponse> crear(
@@ -143,6 +150,26 @@ public class CompraController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/compras/{id}/factura/archivo
+     * Descargar factura de compra (desde la caché local si ya se descargó antes)
+     */
+    @GetMapping("/{id}/factura/archivo")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ALMACENERO', 'VENDEDOR')")
+    public ResponseEntity<InputStreamResource> descargarFactura(@PathVariable Long id) throws IOException {
+        CompraDTO.FacturaArchivo factura = compraService.abrirFactura(id);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaTypeFactory.getMediaType(factura.nombre())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(ContentDisposition.inline().filename(factura.nombre()).build());
+        headers.setCacheControl("private, no-cache");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new InputStreamResource(factura.contenido()));
+    }
+
     /**
      * ✅ NUEVO: DELETE /api/compras/{id}/factura
      * Eliminar factura de compra
@@ -158,6 +185,7 @@ public class CompraController {
      * PATCH /api/compras/{id}/estado
      * Actualizar estado de compra
      */
+    @PresupuestoSql(80)
     @PatchMapping("/{id}/estado")
     @PreAuthorize("hasAnyRole('ADMIN', 'ALMACENERO')")
     public ResponseEntity<CompraDTO.CompraResponse> actualizarEstado(
@@ -1,7 +1,7 @@
 package com.deybimotors.controller;
 
+import com.deybimotors.dto.EtiquetaDTO;
 import com.deybimotors.service.EtiquetaService;
-import com.google.zxing.WriterException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -10,6 +10,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -28,24 +29,22 @@ public class EtiquetaController {
     /**
      * POST /api/etiquetas/generar
      * Generar etiquetas con códigos de barras para productos seleccionados - RF-020, RF-024
+     * formato: PDF (por defecto), ZPL o EPL para envío directo a impresora térmica
      */
     @PostMapping("/generar")
     public ResponseEntity<byte[]> generarEtiquetas(
             @RequestBody GenerarEtiquetasRequest request
-    ) throws IOException, WriterException {
+    ) throws IOException {
 
-        byte[] pdfBytes = etiquetaService.generarEtiquetas(
+        byte[] contenido = etiquetaService.generarEtiquetas(
                 request.getProductosIds(),
-                request.getCantidadPorProducto()
+                request.getCantidadPorProducto(),
+                request.getFormato()
         );
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "etiquetas.pdf");
-
         return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
+                .headers(construirHeaders(request.getFormato(), "etiquetas"))
+                .body(contenido);
     }
 
     /**
@@ -53,24 +52,39 @@ public class EtiquetaController {
      * Generar etiquetas después de una compra - RF-031
      */
     @PostMapping("/compra/{compraId}")
-    public ResponseEntity<byte[]> generarEtiquetasCompra(@PathVariable Long compraId)
-            throws IOException, WriterException {
+    public ResponseEntity<byte[]> generarEtiquetasCompra(
+            @PathVariable Long compraId,
+            @RequestParam(defaultValue = "PDF") EtiquetaDTO.FormatoEtiqueta formato
+    ) throws IOException {
+
+        byte[] contenido = etiquetaService.generarEtiquetasCompra(compraId, formato);
 
-        byte[] pdfBytes = etiquetaService.generarEtiquetasCompra(compraId);
+        return ResponseEntity.ok()
+                .headers(construirHeaders(formato, "etiquetas-compra-" + compraId))
+                .body(contenido);
+    }
 
+    private HttpHeaders construirHeaders(EtiquetaDTO.FormatoEtiqueta formato, String nombreBase) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "etiquetas-compra-" + compraId + ".pdf");
 
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
+        if (formato == EtiquetaDTO.FormatoEtiqueta.PDF) {
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("attachment", nombreBase + ".pdf");
+        } else {
+            // Texto plano listo para enviar tal cual a la impresora (raw)
+            headers.setContentType(new MediaType("text", "plain",
+                    formato == EtiquetaDTO.FormatoEtiqueta.ZPL ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1));
+            headers.setContentDispositionFormData("attachment", nombreBase + "." + formato.name().toLowerCase());
+        }
+
+        return headers;
     }
 
     // DTO para request
     public static class GenerarEtiquetasRequest {
         private List<Long> productosIds;
         private int cantidadPorProducto = 1;
+        private EtiquetaDTO.FormatoEtiqueta formato = EtiquetaDTO.FormatoEtiqueta.PDF;
 
         public List<Long> getProductosIds() {
             return productosIds;
@@ -87,5 +101,13 @@ public class EtiquetaController {
         public void setCantidadPorProducto(int cantidadPorProducto) {
             this.cantidadPorProducto = cantidadPorProducto;
         }
+
+        public EtiquetaDTO.FormatoEtiqueta getFormato() {
+            return formato;
+        }
+
+        public void setFormato(EtiquetaDTO.FormatoEtiqueta formato) {
+            this.formato = formato != null ? formato : EtiquetaDTO.FormatoEtiqueta.PDF;
+        }
     }
 }
\ No newline at end of file
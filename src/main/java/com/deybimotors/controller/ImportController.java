@@ -1,15 +1,19 @@
 package com.deybimotors.controller;
 
+import com.deybimotors.dto.ImportDTO;
+import com.deybimotors.service.ImportJobService;
 import com.deybimotors.service.ImportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +28,7 @@ import java.util.Map;
 public class ImportController {
 
     private final ImportService importService;
+    private final ImportJobService importJobService;
 
     /**
      * POST /api/importar/productos/excel
@@ -62,4 +67,84 @@ public class ImportController {
                         resultado.getProductosImportados()));
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * POST /api/importar/precios/excel
+     * Actualizar precios y atributos de catálogo desde lista de proveedor
+     * Formato: CODIGO | PRECIO_COSTO | PRECIO_VENTA | CODIGO_PRECIO | PUBLICO_CATALOGO
+     */
+    @PostMapping("/precios/excel")
+    public ResponseEntity<Map<String, Object>> importarListaPreciosExcel(
+            @RequestParam("archivo") MultipartFile archivo
+    ) throws IOException {
+
+        // Validar tipo de archivo
+        if (!archivo.getOriginalFilename().endsWith(".xlsx")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "El archivo debe ser un Excel (.xlsx)"));
+        }
+
+        ImportService.PriceListResult resultado = importService.importarListaPreciosDesdeExcel(archivo);
+
+        // Construir respuesta
+        Map<String, Object> response = new HashMap<>();
+        response.put("filasLeidas", resultado.getFilasLeidas());
+        response.put("productosActualizados", resultado.getProductosActualizados());
+        response.put("productosModificados", resultado.getFilasModificadas());
+        response.put("noEncontrados", resultado.getNoEncontrados());
+        response.put("totalErrores", resultado.getErrores().size());
+        response.put("errores", resultado.getErrores());
+
+        if (resultado.tieneErrores() || !resultado.getNoEncontrados().isEmpty()) {
+            response.put("mensaje",
+                    String.format("Lista de precios aplicada con observaciones. %d productos actualizados, %d códigos no encontrados, %d errores",
+                            resultado.getProductosActualizados(), resultado.getNoEncontrados().size(), resultado.getErrores().size()));
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(response);
+        }
+
+        response.put("mensaje",
+                String.format("Lista de precios aplicada. %d productos actualizados",
+                        resultado.getProductosActualizados()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/importar/productos/excel/job
+     * Encolar importación de productos en segundo plano - RF-028
+     * Responde 202 con el job; el progreso se consulta en /api/importar/jobs/{id}
+     */
+    @PostMapping("/productos/excel/job")
+    public ResponseEntity<?> encolarImportacionExcel(
+            @RequestParam("archivo") MultipartFile archivo,
+            Authentication authentication
+    ) throws IOException {
+
+        // Validar tipo de archivo
+        if (!archivo.getOriginalFilename().endsWith(".xlsx") &&
+                !archivo.getOriginalFilename().endsWith(".xls")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "El archivo debe ser un Excel (.xlsx o .xls)"));
+        }
+
+        ImportDTO.ImportJobResponse job = importJobService.enviar(archivo, authentication.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * GET /api/importar/jobs/{id}
+     * Estado de un job: filas/seg, procesadas, fallidas y filas con error
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportDTO.ImportJobResponse> obtenerJob(@PathVariable Long id) {
+        return ResponseEntity.ok(importJobService.obtenerEstado(id));
+    }
+
+    /**
+     * GET /api/importar/jobs
+     * Últimos 20 jobs de importación
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ImportDTO.ImportJobResponse>> listarJobs() {
+        return ResponseEntity.ok(importJobService.listarRecientes());
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.deybimotors.controller;
 
+import com.deybimotors.config.PresupuestoSql;
 import com.deybimotors.dto.ProductoDTO;
 import com.deybimotors.security.SecurityUtils;
+import com.deybimotors.service.ActualizacionMasivaService;
+import com.deybimotors.service.IndiceEscaneoService;
 import com.deybimotors.service.ProductoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +31,8 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final IndiceEscaneoService indiceEscaneoService;
+    private final ActualizacionMasivaService actualizacionMasivaService;
     private final SecurityUtils securityUtils;
 
     /**
@@ -70,11 +75,34 @@ public class ProductoController {
      * GET /api/productos/codigo/{codigo}
      * Obtener producto por código
      */
+    @PresupuestoSql(15)
     @GetMapping("/codigo/{codigo}")
     public ResponseEntity<ProductoDTO.ProductoResponse> obtenerPorCodigo(@PathVariable String codigo) {
         return ResponseEntity.ok(productoService.obtenerPorCodigo(codigo));
     }
 
+    /**
+     * GET /api/productos/escaneo/{codigo}
+     * Escaneo en caja: código interno o de marca desde el índice en memoria (sin consultar la BD)
+     */
+    @PresupuestoSql(2)
+    @GetMapping("/escaneo/{codigo}")
+    public ResponseEntity<List<ProductoDTO.EscaneoResponse>> escanear(@PathVariable String codigo) {
+        return ResponseEntity.ok(indiceEscaneoService.escanear(codigo));
+    }
+
+    /**
+     * POST /api/productos/resolver-codigos
+     * Resolver en una llamada varios códigos internos, de marca u OEM (cotizaciones, órdenes de taller)
+     */
+    @PresupuestoSql(3)
+    @PostMapping("/resolver-codigos")
+    public ResponseEntity<ProductoDTO.ResolverCodigosResponse> resolverCodigos(
+            @Valid @RequestBody ProductoDTO.ResolverCodigosRequest request
+    ) {
+        return ResponseEntity.ok(indiceEscaneoService.resolver(request.getCodigos()));
+    }
+
     /**
      * GET /api/productos/buscar
      * Buscar productos con filtros avanzados
@@ -156,6 +184,20 @@ public class ProductoController {
         return ResponseEntity.ok("Producto eliminado correctamente");
     }
 
+    /**
+     * PATCH /api/productos/masivo
+     * Actualización masiva (precios, visibilidad en catálogo, subcategoría) en un solo UPDATE
+     */
+    @PresupuestoSql(5)
+    @PatchMapping("/masivo")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductoDTO.ActualizacionMasivaResponse> actualizarMasivo(
+            @Valid @RequestBody ProductoDTO.ActualizacionMasivaRequest request
+    ) {
+        Long usuarioId = securityUtils.getAuthenticatedUserId();
+        return ResponseEntity.ok(actualizacionMasivaService.actualizar(request, usuarioId));
+    }
+
     /**
      * POST /api/productos/{id}/foto
      * Subir/actualizar foto de producto (mantener para compatibilidad)
@@ -1,5 +1,6 @@
 package com.deybimotors.controller;
 
+import com.deybimotors.config.PresupuestoSql;
 import com.deybimotors.dto.StockDTO;
 import com.deybimotors.security.SecurityUtils;
 import com.deybimotors.service.StockService;
@@ -79,6 +80,7 @@ public class StockController {
      * Registrar salida de productos (carrito)
      * ✅ ACTUALIZADO: Obtiene usuario autenticado del token
      */
+    @PresupuestoSql(60)
     @PostMapping("/salida")
     @PreAuthorize("hasAnyRole('ADMIN', 'VENDEDOR', 'ALMACENERO')") // ✅ VENDEDOR también puede hacer ventas
     public ResponseEntity<String> registrarSalida(
@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -109,4 +110,9 @@ public class CompraDTO {
         @NotNull(message = "El estado es obligatorio")
         private String estado;
     }
+
+    /**
+     * Factura lista para descargar (quien responde cierra el stream)
+     */
+    public record FacturaArchivo(String nombre, InputStream contenido) {}
 }
\ No newline at end of file
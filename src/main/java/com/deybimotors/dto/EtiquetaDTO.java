@@ -0,0 +1,35 @@
+package com.deybimotors.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO para Etiquetas - RF-020, RF-024, RF-031
+ */
+public class EtiquetaDTO {
+
+    /**
+     * Datos mínimos para imprimir una etiqueta
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EtiquetaItem {
+        private String codigo;
+        private String nombre;
+        private BigDecimal precioVenta;
+        private String marcaModelo; // Primera compatibilidad: "Toyota Corolla"
+    }
+
+    /**
+     * Formato de salida: PDF (A4) o lenguaje nativo de impresora térmica
+     */
+    public enum FormatoEtiqueta {
+        PDF,
+        ZPL,   // Zebra
+        EPL    // Eltron / Zebra modo EPL2
+    }
+}
\ No newline at end of file
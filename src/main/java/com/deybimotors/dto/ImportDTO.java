@@ -0,0 +1,48 @@
+package com.deybimotors.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para Importaciones - RF-028
+ */
+public class ImportDTO {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportJobResponse {
+        private Long id;
+        private String nombreArchivo;
+        private String estado; // PENDIENTE, EN_PROCESO, COMPLETADO, FALLIDO
+        private String username;
+
+        // Progreso
+        private Integer totalFilas;
+        private Integer ultimaFilaProcesada;
+        private Integer filasProcesadas;
+        private Integer filasExitosas;
+        private Integer filasFallidas;
+        private Double filasPorSegundo;
+
+        private String mensajeError;
+        private LocalDateTime fechaCreacion;
+        private LocalDateTime fechaInicio;
+        private LocalDateTime fechaFin;
+
+        // Filas rechazadas (máximo 500)
+        private List<ErrorFilaInfo> errores;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFilaInfo {
+        private Integer fila;
+        private String mensaje;
+    }
+}
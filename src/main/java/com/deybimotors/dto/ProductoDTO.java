@@ -2,7 +2,9 @@ package com.deybimotors.dto;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -57,6 +59,9 @@ public class ProductoDTO {
         // Foto (mantener para compatibilidad)
         private String fotoUrl;
 
+        // Miniatura para listados (la original mientras se procesa)
+        private String fotoMiniaturaUrl;
+
         // Stock
         private Integer stockTotal;
 
@@ -79,6 +84,8 @@ public class ProductoDTO {
     public static class ImagenInfo {
         private Long id;
         private String url;
+        private String urlMiniatura;
+        private String urlMediana;
         private Integer orden;
         private Boolean esPrincipal;
     }
@@ -101,6 +108,72 @@ public class ProductoDTO {
         private Integer stockSede;
     }
 
+    /**
+     * Resultado de escaneo en caja (POS): solo lo que se muestra al vender
+     * Inmutable: el índice en memoria lo retorna tal cual
+     */
+    public record EscaneoResponse(
+            Long id,
+            String codigo,
+            String codigoMarca,
+            String descripcion,
+            BigDecimal precioVenta,
+            Integer stock,
+            Long sedeId,
+            String sedeNombre
+    ) {}
+
+    /**
+     * Resolver varios códigos en una llamada (cotizaciones, órdenes de taller)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResolverCodigosRequest {
+        @NotEmpty(message = "Debe enviar al menos un código")
+        @Size(max = 500, message = "Máximo 500 códigos por consulta")
+        private List<String> codigos;
+    }
+
+    /**
+     * Código resuelto: tipo INTERNO, MARCA u OEM y los productos activos que le corresponden
+     */
+    public record CodigoResuelto(String codigo, String tipo, List<EscaneoResponse> productos) {}
+
+    public record ResolverCodigosResponse(List<CodigoResuelto> encontrados, List<String> noEncontrados) {}
+
+    /**
+     * Actualización masiva: filtro (al menos uno) + operación
+     * Operaciones: PRECIO_PORCENTAJE, PRECIO_MONTO (valor), PUBLICO_CATALOGO (publicoCatalogo),
+     * SUBCATEGORIA (nuevaSubcategoriaId)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ActualizacionMasivaRequest {
+        // Filtro
+        private Long categoriaId;
+        private Long subcategoriaId;
+        private Long marcaId;
+        private Long sedeId;
+
+        @Size(max = 5000, message = "Máximo 5000 códigos por actualización")
+        private List<String> codigos;
+
+        // Operación
+        @NotBlank(message = "La operación es obligatoria")
+        private String operacion;
+
+        // Porcentaje (10 = +10%) o monto a sumar al precio de venta
+        private BigDecimal valor;
+
+        private Boolean publicoCatalogo;
+
+        private Long nuevaSubcategoriaId;
+    }
+
+    public record ActualizacionMasivaResponse(String operacion, int productosActualizados) {}
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -186,6 +259,9 @@ public class ProductoDTO {
         // Foto (mantener para compatibilidad)
         private String fotoUrl;
 
+        // Miniatura para listados (la original mientras se procesa)
+        private String fotoMiniaturaUrl;
+
         // ✅ CÓDIGOS OEM
         private List<String> codigosOem;
 
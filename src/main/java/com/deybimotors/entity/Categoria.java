@@ -1,15 +1,20 @@
 package com.deybimotors.entity;
 
+import com.deybimotors.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entidad Categoría - ✅ ACTUALIZADA
  * Ahora incluye descripcion y activo
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_REFERENCIAS)
 @Table(name = "categorias")
 @Data
 @NoArgsConstructor
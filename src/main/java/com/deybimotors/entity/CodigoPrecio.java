@@ -1,9 +1,12 @@
 package com.deybimotors.entity;
 
+import com.deybimotors.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
@@ -12,6 +15,8 @@ import java.math.BigDecimal;
  * Códigos de precio para productos
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_REFERENCIAS)
 @Table(name = "codigos_precio")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,26 @@
+package com.deybimotors.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad Correlativo
+ * Último número emitido por serie de documento (p. ej. CMP-2024).
+ * Se lee con bloqueo de escritura: dos transacciones no pueden emitir el mismo número.
+ */
+@Entity
+@Table(name = "correlativos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Correlativo {
+
+    @Id
+    @Column(length = 30)
+    private String serie;
+
+    @Column(nullable = false, name = "ultimo_numero")
+    private Integer ultimoNumero;
+}
@@ -0,0 +1,33 @@
+package com.deybimotors.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad ImportacionError
+ * Fila rechazada durante una importación en segundo plano
+ */
+@Entity
+@Table(name = "importacion_errores", indexes = {
+        @Index(name = "idx_importacion_error_job", columnList = "job_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, name = "job_id")
+    private Long jobId;
+
+    @Column(nullable = false)
+    private Integer fila;
+
+    @Column(length = 1000)
+    private String mensaje;
+}
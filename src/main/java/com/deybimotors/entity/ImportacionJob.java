@@ -0,0 +1,86 @@
+package com.deybimotors.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad ImportacionJob
+ * Importación de Excel procesada en segundo plano.
+ * ultimaFilaProcesada es el checkpoint: se actualiza en la misma transacción
+ * que cada bloque de filas, por lo que un nodo reiniciado retoma desde ahí.
+ * nodo/asignadoHasta: el nodo que lo procesa y hasta cuándo; lo renueva en cada
+ * bloque, y vencida la asignación (nodo caído) otro nodo puede reclamarlo.
+ */
+@Entity
+@Table(name = "importacion_jobs", indexes = {
+        @Index(name = "idx_importacion_estado", columnList = "estado")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 255, name = "nombre_archivo")
+    private String nombreArchivo;
+
+    @Column(nullable = false, length = 500, name = "ruta_archivo")
+    private String rutaArchivo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoJob estado = EstadoJob.PENDIENTE;
+
+    @Column(length = 50)
+    private String username;
+
+    @Column(name = "total_filas")
+    private Integer totalFilas = 0;
+
+    @Column(nullable = false, name = "ultima_fila_procesada")
+    private Integer ultimaFilaProcesada = 0;
+
+    @Column(nullable = false, name = "filas_exitosas")
+    private Integer filasExitosas = 0;
+
+    @Column(nullable = false, name = "filas_fallidas")
+    private Integer filasFallidas = 0;
+
+    @Column(length = 100)
+    private String nodo;
+
+    @Column(name = "asignado_hasta")
+    private LocalDateTime asignadoHasta;
+
+    @Column(length = 1000, name = "mensaje_error")
+    private String mensajeError;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false, name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_inicio")
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_fin")
+    private LocalDateTime fechaFin;
+
+    public int getFilasProcesadas() {
+        return filasExitosas + filasFallidas;
+    }
+
+    public enum EstadoJob {
+        PENDIENTE,    // En cola, aún no iniciado
+        EN_PROCESO,   // Un worker lo está procesando
+        COMPLETADO,   // Todas las filas procesadas
+        FALLIDO       // Error no recuperable (archivo ilegible, etc.)
+    }
+}
@@ -1,15 +1,20 @@
 package com.deybimotors.entity;
 
+import com.deybimotors.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entidad Marca - ✅ CORREGIDO
  * Tabla: marcas_producto (nombre real en BD)
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_REFERENCIAS)
 @Table(name = "marcas_producto") // ✅ CORREGIDO: Nombre real de la tabla en BD
 @Data
 @NoArgsConstructor
@@ -1,15 +1,20 @@
 package com.deybimotors.entity;
 
+import com.deybimotors.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entidad Modelo - RF-050 a RF-053
  * Modelos asociados a marcas
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_REFERENCIAS)
 @Table(name = "modelos")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,79 @@
+package com.deybimotors.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad OperacionAlmacenamiento
+ * Operación pendiente sobre archivos (disco local o Cloudinary) que se ejecuta
+ * fuera de las transacciones de BD y se reintenta hasta completarse.
+ * - Compensación: archivo recién subido; si la transacción que lo referencia no
+ *   confirma, se elimina pasado el tiempo de gracia.
+ * - Eliminación: archivo que dejó de referenciarse; se registra en la misma
+ *   transacción que lo desvincula y se ejecuta después del commit.
+ * - Subida: archivo en disco local (ruta) referenciado en BD que se transfiere al
+ *   backend remoto; al completarse, la referencia se reemplaza por la URL remota.
+ * nodo/asignadoHasta: el nodo que la está ejecutando y hasta cuándo; con varios
+ * nodos, solo uno la reclama, y vencida la asignación (nodo caído) otro la retoma.
+ */
+@Entity
+@Table(name = "operaciones_almacenamiento", indexes = {
+        @Index(name = "idx_operacion_almacenamiento_ejecutar", columnList = "ejecutar_desde")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionAlmacenamiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Tipo tipo = Tipo.ELIMINAR;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Backend backend;
+
+    @Column(nullable = false, length = 1000)
+    private String ruta;
+
+    @Column(length = 100)
+    private String motivo;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    @Column(length = 500, name = "ultimo_error")
+    private String ultimoError;
+
+    @Column(nullable = false, name = "ejecutar_desde")
+    private LocalDateTime ejecutarDesde;
+
+    @Column(length = 100)
+    private String nodo;
+
+    @Column(name = "asignado_hasta")
+    private LocalDateTime asignadoHasta;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false, name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    public enum Tipo {
+        ELIMINAR,
+        SUBIR
+    }
+
+    public enum Backend {
+        LOCAL,       // FileStorageService (uploads/)
+        CLOUDINARY   // CloudinaryFileStorageService (backend de documentos configurable)
+    }
+}
@@ -19,7 +19,9 @@ import java.util.List;
  * - ✅ CON múltiples imágenes (producto_imagenes)
  */
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+        @Index(name = "idx_producto_foto_url", columnList = "foto_url")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -76,6 +78,10 @@ public class Producto {
     @Column(length = 500, name = "foto_url")
     private String fotoUrl;
 
+    // Miniatura de fotoUrl para listados (null mientras se procesa)
+    @Column(length = 500, name = "foto_miniatura_url")
+    private String fotoMiniaturaUrl;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "codigo_precio_id")
     private CodigoPrecio codigoPrecio;
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
  * Permite almacenar múltiples imágenes por producto
  */
 @Entity
-@Table(name = "producto_imagenes")
+@Table(name = "producto_imagenes", indexes = {
+        @Index(name = "idx_producto_imagen_url", columnList = "url")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,6 +34,13 @@ public class ProductoImagen {
     @Column(nullable = false, length = 500)
     private String url;
 
+    // Variantes JPEG reducidas (null mientras se procesan o si el formato no lo permite)
+    @Column(name = "url_miniatura", length = 500)
+    private String urlMiniatura;
+
+    @Column(name = "url_mediana", length = 500)
+    private String urlMediana;
+
     @Column(name = "orden")
     private Integer orden = 0;
 
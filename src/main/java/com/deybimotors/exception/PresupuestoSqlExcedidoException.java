@@ -0,0 +1,11 @@
+package com.deybimotors.exception;
+
+/**
+ * Un request superó su presupuesto de sentencias SQL (modo estricto)
+ */
+public class PresupuestoSqlExcedidoException extends RuntimeException {
+
+    public PresupuestoSqlExcedidoException(int sentencias, int presupuesto) {
+        super(String.format("Presupuesto SQL excedido: %d sentencias (máximo %d)", sentencias, presupuesto));
+    }
+}
@@ -0,0 +1,15 @@
+package com.deybimotors.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long segundosEspera;
+
+    public TooManyRequestsException(String message, long segundosEspera) {
+        super(message);
+        this.segundosEspera = segundosEspera;
+    }
+
+    public long getSegundosEspera() {
+        return segundosEspera;
+    }
+}
@@ -1,13 +1,22 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.CodigoPrecio;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CodigoPrecioRepository extends JpaRepository<CodigoPrecio, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<CodigoPrecio> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<CodigoPrecio> findByCodigo(String codigo);
     boolean existsByCodigo(String codigo);
 }
\ No newline at end of file
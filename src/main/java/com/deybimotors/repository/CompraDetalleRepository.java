@@ -2,9 +2,13 @@ package com.deybimotors.repository;
 
 import com.deybimotors.entity.CompraDetalle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repositorio CompraDetalle - RF-027, RF-028
@@ -20,4 +24,24 @@ public interface CompraDetalleRepository extends JpaRepository<CompraDetalle, Lo
 
     // Eliminar detalles de una compra
     void deleteByCompraId(Long compraId);
+
+    // Líneas de la compra con los datos de etiqueta en una sola consulta (RF-031)
+    // Sin cargar el grafo EAGER de Producto; toma la primera compatibilidad para marca/modelo
+    @Query("SELECT p.codigoInterno AS codigo, p.descripcion AS nombre, p.precioVenta AS precioVenta, " +
+            "ma.nombre AS marcaAutomovil, mo.nombre AS modeloAutomovil, d.cantidad AS cantidad " +
+            "FROM CompraDetalle d JOIN d.producto p " +
+            "LEFT JOIN Compatibilidad c ON c.producto = p AND c.id = " +
+            "(SELECT MIN(c2.id) FROM Compatibilidad c2 WHERE c2.producto = p) " +
+            "LEFT JOIN c.marcaAutomovil ma LEFT JOIN c.modeloAutomovil mo " +
+            "WHERE d.compra.id = :compraId ORDER BY d.id")
+    Stream<EtiquetaCompraView> streamEtiquetasByCompraId(@Param("compraId") Long compraId);
+
+    interface EtiquetaCompraView {
+        String getCodigo();
+        String getNombre();
+        BigDecimal getPrecioVenta();
+        String getMarcaAutomovil();
+        String getModeloAutomovil();
+        Integer getCantidad();
+    }
 }
\ No newline at end of file
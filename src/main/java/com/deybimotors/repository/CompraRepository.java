@@ -2,6 +2,7 @@ package com.deybimotors.repository;
 
 import com.deybimotors.entity.Compra;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,6 +34,11 @@ public interface CompraRepository extends JpaRepository<Compra, Long> {
 
     List<Compra> findTop10ByOrderByFechaRegistroDesc();
 
+    // Factura transferida al backend remoto: solo si la compra aún referencia la copia local
+    @Modifying
+    @Query("UPDATE Compra c SET c.rutaFactura = :nueva WHERE c.rutaFactura = :anterior")
+    int reemplazarRutaFactura(@Param("anterior") String anterior, @Param("nueva") String nueva);
+
     // ✅ CORRECCIÓN: Query corregida para formato CMP-2024-0001
     @Query("SELECT COALESCE(MAX(CAST(SUBSTRING(c.numeroCompra, 10) AS integer)), 0) " +
             "FROM Compra c WHERE c.numeroCompra LIKE CONCAT('CMP-', :year, '-%')")
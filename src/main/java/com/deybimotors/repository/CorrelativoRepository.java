@@ -0,0 +1,29 @@
+package com.deybimotors.repository;
+
+import com.deybimotors.entity.Correlativo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repositorio Correlativo
+ */
+@Repository
+public interface CorrelativoRepository extends JpaRepository<Correlativo, String> {
+
+    // SELECT ... FOR UPDATE: el bloqueo dura hasta que confirma la transacción que emite el número
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Correlativo c WHERE c.serie = :serie")
+    Optional<Correlativo> bloquear(@Param("serie") String serie);
+
+    // Primera emisión de la serie; si otra transacción la creó a la vez, no hace nada
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO correlativos (serie, ultimo_numero) VALUES (:serie, :ultimo)", nativeQuery = true)
+    int crearSiNoExiste(@Param("serie") String serie, @Param("ultimo") int ultimo);
+}
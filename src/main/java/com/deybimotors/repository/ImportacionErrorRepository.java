@@ -0,0 +1,16 @@
+package com.deybimotors.repository;
+
+import com.deybimotors.entity.ImportacionError;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio ImportacionError - RF-028
+ */
+@Repository
+public interface ImportacionErrorRepository extends JpaRepository<ImportacionError, Long> {
+
+    List<ImportacionError> findTop500ByJobIdOrderByFilaAsc(Long jobId);
+}
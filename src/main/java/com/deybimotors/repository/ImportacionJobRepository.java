@@ -0,0 +1,41 @@
+package com.deybimotors.repository;
+
+import com.deybimotors.entity.ImportacionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio ImportacionJob - RF-028
+ */
+@Repository
+public interface ImportacionJobRepository extends JpaRepository<ImportacionJob, Long> {
+
+    // Jobs pendientes o interrumpidos (para reanudar al iniciar)
+    List<ImportacionJob> findByEstadoInOrderByIdAsc(Collection<ImportacionJob.EstadoJob> estados);
+
+    List<ImportacionJob> findTop20ByOrderByFechaCreacionDesc();
+
+    // Reclamar un job sin dueño, propio o con la asignación vencida (solo un nodo lo logra)
+    @Modifying
+    @Query("UPDATE ImportacionJob j SET j.nodo = :nodo, j.asignadoHasta = :hasta " +
+            "WHERE j.id = :id AND j.estado IN :estados " +
+            "AND (j.nodo IS NULL OR j.nodo = :nodo OR j.asignadoHasta < :ahora)")
+    int reclamar(@Param("id") Long id, @Param("nodo") String nodo, @Param("hasta") LocalDateTime hasta,
+                 @Param("ahora") LocalDateTime ahora, @Param("estados") Collection<ImportacionJob.EstadoJob> estados);
+
+    // Extender la asignación; 0 si otro nodo lo reclamó
+    @Modifying
+    @Query("UPDATE ImportacionJob j SET j.asignadoHasta = :hasta WHERE j.id = :id AND j.nodo = :nodo")
+    int renovar(@Param("id") Long id, @Param("nodo") String nodo, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("UPDATE ImportacionJob j SET j.nodo = NULL, j.asignadoHasta = NULL WHERE j.id = :id AND j.nodo = :nodo")
+    int liberar(@Param("id") Long id, @Param("nodo") String nodo);
+}
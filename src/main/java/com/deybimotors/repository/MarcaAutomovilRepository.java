@@ -1,13 +1,22 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.MarcaAutomovil;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MarcaAutomovilRepository extends JpaRepository<MarcaAutomovil, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<MarcaAutomovil> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<MarcaAutomovil> findByNombre(String nombre);
     boolean existsByNombre(String nombre);
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.ModeloAutomovil;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +12,13 @@ import java.util.Optional;
 
 @Repository
 public interface ModeloAutomovilRepository extends JpaRepository<ModeloAutomovil, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ModeloAutomovil> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<ModeloAutomovil> findByMarcaAutomovilId(Long marcaId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<ModeloAutomovil> findByNombreAndMarcaAutomovilId(String nombre, Long marcaId);
     boolean existsByNombreAndMarcaAutomovilId(String nombre, Long marcaId);
 }
\ No newline at end of file
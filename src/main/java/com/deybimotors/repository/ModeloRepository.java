@@ -1,7 +1,10 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.Modelo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,13 +16,21 @@ import java.util.Optional;
 @Repository
 public interface ModeloRepository extends JpaRepository<Modelo, Long> {
 
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Modelo> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Modelo> findByMarcaId(Long marcaId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Modelo> findByNombreAndMarcaId(String nombre, Long marcaId);
 
     boolean existsByNombreAndMarcaId(String nombre, Long marcaId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Modelo> findByActivoTrue();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Modelo> findByMarcaIdAndActivoTrue(Long marcaId);
 }
\ No newline at end of file
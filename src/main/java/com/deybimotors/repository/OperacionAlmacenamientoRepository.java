@@ -0,0 +1,33 @@
+package com.deybimotors.repository;
+
+import com.deybimotors.entity.OperacionAlmacenamiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OperacionAlmacenamientoRepository extends JpaRepository<OperacionAlmacenamiento, Long> {
+
+    List<OperacionAlmacenamiento> findTop100ByEjecutarDesdeLessThanEqualOrderByIdAsc(LocalDateTime ahora);
+
+    boolean existsByRutaAndIdGreaterThan(String ruta, Long id);
+
+    // Reclamar una operación vencida sin dueño, propia o con la asignación vencida (solo un nodo lo logra)
+    @Modifying
+    @Query("UPDATE OperacionAlmacenamiento o SET o.nodo = :nodo, o.asignadoHasta = :hasta " +
+            "WHERE o.id = :id AND o.ejecutarDesde <= :ahora " +
+            "AND (o.nodo IS NULL OR o.nodo = :nodo OR o.asignadoHasta < :ahora)")
+    int reclamar(@Param("id") Long id, @Param("nodo") String nodo,
+                 @Param("hasta") LocalDateTime hasta, @Param("ahora") LocalDateTime ahora);
+
+    // Adelanta compensaciones cuya transacción ya falló
+    @Modifying
+    @Query("UPDATE OperacionAlmacenamiento o SET o.ejecutarDesde = :ahora WHERE o.id IN :ids")
+    int adelantar(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+}
@@ -2,6 +2,9 @@ package com.deybimotors.repository;
 
 import com.deybimotors.entity.ProductoImagen;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -26,4 +29,18 @@ public interface ProductoImagenRepository extends JpaRepository<ProductoImagen,
      * Contar imágenes de un producto
      */
     long countByProductoId(Long productoId);
+
+    /**
+     * Imagen referenciada (las imágenes se comparten por contenido)
+     */
+    boolean existsByUrl(String url);
+
+    /**
+     * Registrar las variantes generadas para una imagen original
+     */
+    @Modifying
+    @Query("UPDATE ProductoImagen i SET i.urlMiniatura = :miniatura, i.urlMediana = :mediana WHERE i.url = :url")
+    int registrarVariantes(@Param("url") String url,
+                           @Param("miniatura") String miniatura,
+                           @Param("mediana") String mediana);
 }
\ No newline at end of file
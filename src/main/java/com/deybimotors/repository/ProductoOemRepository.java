@@ -2,8 +2,11 @@ package com.deybimotors.repository;
 
 import com.deybimotors.entity.ProductoOem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +14,11 @@ public interface ProductoOemRepository extends JpaRepository<ProductoOem, Long>
     List<ProductoOem> findByProductoId(Long productoId);
     List<ProductoOem> findByCodigoOemId(Long oemId);
     void deleteByProductoId(Long productoId);
+
+    // Productos por código OEM (resolución de códigos en lote)
+    @Query("SELECT new com.deybimotors.repository.ProductoOemRepository$CodigoOemProducto(c.codigoOem, po.producto.id) " +
+            "FROM ProductoOem po JOIN po.codigoOem c WHERE c.codigoOem IN :codigos")
+    List<CodigoOemProducto> buscarProductosPorCodigosOem(@Param("codigos") Collection<String> codigos);
+
+    record CodigoOemProducto(String codigoOem, Long productoId) {}
 }
\ No newline at end of file
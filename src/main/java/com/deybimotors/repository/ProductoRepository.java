@@ -1,12 +1,15 @@
 package com.deybimotors.repository;
 
+import com.deybimotors.dto.ProductoDTO;
 import com.deybimotors.entity.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -73,6 +76,32 @@ public interface ProductoRepository extends JpaRepository<Producto, Long>,
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.sede.id = :sedeId AND p.stock > 0 AND p.stock <= 2 AND p.estado = true")
     long countProductosStockBajo(@Param("sedeId") Long sedeId);
 
+    // Foto referenciada (las imágenes se comparten por contenido)
+    boolean existsByFotoUrl(String fotoUrl);
+
+    // Miniatura generada para la foto principal
+    @Modifying
+    @Query("UPDATE Producto p SET p.fotoMiniaturaUrl = :miniatura WHERE p.fotoUrl = :fotoUrl")
+    int registrarMiniatura(@Param("fotoUrl") String fotoUrl, @Param("miniatura") String miniatura);
+
+    // Índice de escaneo POS (solo productos activos, sin cargar entidades)
+    @Query("SELECT new com.deybimotors.dto.ProductoDTO$EscaneoResponse(p.id, p.codigoInterno, p.codigoMarca, " +
+            "p.descripcion, p.precioVenta, p.stock, s.id, s.nombre) FROM Producto p JOIN p.sede s WHERE p.estado = true")
+    List<ProductoDTO.EscaneoResponse> listarParaEscaneo();
+
+    @Query("SELECT new com.deybimotors.dto.ProductoDTO$EscaneoResponse(p.id, p.codigoInterno, p.codigoMarca, " +
+            "p.descripcion, p.precioVenta, p.stock, s.id, s.nombre) FROM Producto p JOIN p.sede s " +
+            "WHERE p.estado = true AND (p.codigoInterno IN :codigos OR p.codigoMarca IN :codigos)")
+    List<ProductoDTO.EscaneoResponse> buscarParaEscaneo(@Param("codigos") Collection<String> codigos);
+
+    @Query("SELECT p.id FROM Producto p WHERE p.codigoInterno IN :codigos")
+    List<Long> findIdsByCodigoInternoIn(@Param("codigos") Collection<String> codigos);
+
+    @Query("SELECT new com.deybimotors.dto.ProductoDTO$EscaneoResponse(p.id, p.codigoInterno, p.codigoMarca, " +
+            "p.descripcion, p.precioVenta, p.stock, s.id, s.nombre) FROM Producto p JOIN p.sede s " +
+            "WHERE p.estado = true AND p.id IN :ids")
+    List<ProductoDTO.EscaneoResponse> listarParaEscaneoPorIds(@Param("ids") Collection<Long> ids);
+
     // Métodos de compatibilidad
     default Optional<Producto> findByCodigo(String codigo) {
         return findByCodigoInterno(codigo);
@@ -1,7 +1,10 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.Sede;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,13 +16,19 @@ import java.util.Optional;
 @Repository
 public interface SedeRepository extends JpaRepository<Sede, Long> {
 
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Sede> findAll();
+
     // Buscar sede por nombre
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Sede> findByNombre(String nombre);
 
     // Verificar si existe sede con ese nombre
     boolean existsByNombre(String nombre);
 
     // Listar sedes activas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Sede> findByActivoTrue();
 
     // Buscar por ciudad
@@ -1,7 +1,10 @@
 package com.deybimotors.repository;
 
 import com.deybimotors.entity.Subcategoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,13 +16,21 @@ import java.util.Optional;
 @Repository
 public interface SubcategoriaRepository extends JpaRepository<Subcategoria, Long> {
 
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Subcategoria> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Subcategoria> findByCategoriaId(Long categoriaId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Subcategoria> findByNombreAndCategoriaId(String nombre, Long categoriaId);
 
     boolean existsByNombreAndCategoriaId(String nombre, Long categoriaId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Subcategoria> findByActivoTrue();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Subcategoria> findByCategoriaIdAndActivoTrue(Long categoriaId);
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.deybimotors.security;
+
+import com.deybimotors.config.EnrutadorDataSource;
+import com.deybimotors.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Límite de frecuencia y descarte de carga para el catálogo público - RF-058
+ * - Token bucket por IP de cliente (429 al agotarse)
+ * - Si hay demasiados hilos esperando conexión en el pool de Hikari, el
+ *   tráfico anónimo se descarta con 503 para no afectar al POS autenticado
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoPublicoRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String RUTA_CATALOGO = "/api/catalogo-publico/";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile List<HikariPoolMXBean> pools;
+
+    @Value("${catalogo.rate-limit.capacity:30}")
+    private int capacidad;
+
+    @Value("${catalogo.rate-limit.per-minute:60}")
+    private int recargaPorMinuto;
+
+    @Value("${catalogo.rate-limit.max-clients:20000}")
+    private int maxClientes;
+
+    @Value("${catalogo.shedding.max-pending-connections:3}")
+    private int maxConexionesPendientes;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(RUTA_CATALOGO);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // Descarte de carga: el pool de BD está saturado
+        int pendientes = conexionesPendientes();
+        if (pendientes > maxConexionesPendientes) {
+            log.warn("⚠️ Catálogo público descartado: {} hilos esperando conexión", pendientes);
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 5,
+                    "Catálogo temporalmente no disponible. Intente nuevamente en unos segundos.");
+            return;
+        }
+
+        // Límite por cliente
+        long ahora = System.nanoTime();
+        String cliente = request.getRemoteAddr();
+        if (buckets.size() >= maxClientes && !buckets.containsKey(cliente)) {
+            liberarEspacio(ahora);
+        }
+
+        long espera = buckets.computeIfAbsent(cliente, k -> new TokenBucket(capacidad, ahora))
+                .consumir(capacidad, recargaPorMinuto, ahora);
+        if (espera > 0) {
+            rechazar(response, HttpStatus.TOO_MANY_REQUESTS, espera,
+                    "Demasiadas solicitudes al catálogo. Intente más tarde.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Limpieza periódica de clientes inactivos
+     */
+    @Scheduled(fixedDelayString = "${catalogo.rate-limit.eviction-ms:60000}")
+    public void limpiarClientesInactivos() {
+        long ahora = System.nanoTime();
+        buckets.values().removeIf(b -> b.inactivo(ahora));
+    }
+
+    private void liberarEspacio(long ahora) {
+        buckets.values().removeIf(b -> b.inactivo(ahora));
+
+        var iterador = buckets.keySet().iterator();
+        while (buckets.size() >= maxClientes && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+
+    private int conexionesPendientes() {
+        int pendientes = 0;
+        for (HikariPoolMXBean mxBean : pools()) {
+            pendientes = Math.max(pendientes, mxBean.getThreadsAwaitingConnection());
+        }
+        return pendientes;
+    }
+
+    /**
+     * Pools de Hikari detrás del DataSource (primario y réplicas de lectura si las hay)
+     */
+    private List<HikariPoolMXBean> pools() {
+        if (pools == null) {
+            List<HikariPoolMXBean> encontrados = new ArrayList<>();
+            try {
+                if (dataSource.isWrapperFor(EnrutadorDataSource.class)) {
+                    EnrutadorDataSource enrutador = dataSource.unwrap(EnrutadorDataSource.class);
+                    agregarPool(enrutador.getPrimario(), encontrados);
+                    enrutador.getReplicas().forEach(r -> agregarPool(r.dataSource(), encontrados));
+                } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    agregarPool(dataSource.unwrap(HikariDataSource.class), encontrados);
+                }
+            } catch (SQLException e) {
+                log.debug("DataSource no es Hikari: {}", e.getMessage());
+            }
+            if (encontrados.isEmpty()) {
+                return encontrados;
+            }
+            pools = encontrados;
+        }
+        return pools;
+    }
+
+    private static void agregarPool(DataSource origen, List<HikariPoolMXBean> destino) {
+        if (origen instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            destino.add(hikari.getHikariPoolMXBean());
+        }
+    }
+
+    private void rechazar(HttpServletResponse response, HttpStatus status, long segundosEspera, String mensaje)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundosEspera));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                mensaje
+        ));
+    }
+}
@@ -0,0 +1,62 @@
+package com.deybimotors.security;
+
+import com.deybimotors.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ejecuta el trabajo de BCrypt (login, cambio de contraseña) en el pool acotado
+ * Si el pool está lleno o la espera supera el timeout responde 503 de inmediato
+ * en lugar de encolar hilos de Tomcat.
+ */
+@Component
+@Slf4j
+public class EjecutorPasswords {
+
+    private final ThreadPoolExecutor passwordExecutor;
+
+    @Value("${security.bcrypt.timeout-ms:5000}")
+    private long timeoutMs;
+
+    public EjecutorPasswords(@Qualifier("passwordExecutor") ThreadPoolExecutor passwordExecutor) {
+        this.passwordExecutor = passwordExecutor;
+    }
+
+    public <T> T ejecutar(Callable<T> tarea) {
+
+        Future<T> futuro;
+        try {
+            futuro = passwordExecutor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Pool de contraseñas saturado ({} en cola)", passwordExecutor.getQueue().size());
+            throw new ServiceUnavailableException("Servicio de autenticación saturado. Intente nuevamente en unos segundos.");
+        }
+
+        try {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new ServiceUnavailableException("Tiempo de espera agotado en autenticación. Intente nuevamente.");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Autenticación interrumpida");
+        } catch (ExecutionException e) {
+            // Propagar la excepción original (BadCredentialsException, etc.)
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
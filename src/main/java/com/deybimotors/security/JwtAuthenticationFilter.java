@@ -25,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     protected void doFilterInternal(
@@ -48,17 +49,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            // Extraer username del token
-            username = jwtUtil.extractUsername(jwt);
+            // Verificar firma y expiración una sola vez (resultado cacheado hasta que expire)
+            JwtUtil.TokenVerificado token = jwtUtil.verificar(jwt);
+            username = token.username();
 
             // Si el username existe y no hay autenticación previa
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // Cargar detalles del usuario
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Cargar detalles del usuario (caché con TTL, invalidada al modificar el usuario)
+                UserDetails userDetails = userDetailsCache.obtener(username,
+                        () -> this.userDetailsService.loadUserByUsername(username));
 
-                // Validar el token
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                // Validar que el token corresponda al usuario
+                if (username.equals(userDetails.getUsername())) {
 
                     // Crear autenticación
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
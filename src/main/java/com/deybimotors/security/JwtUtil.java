@@ -1,22 +1,30 @@
 package com.deybimotors.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
  * Utilidad para generar y validar tokens JWT
  * Componente central de la autenticación
+ * La clave y el parser se construyen una sola vez; cada token se verifica
+ * una vez y el resultado se guarda (por hash del token) hasta su expiración.
  */
 @Component
 public class JwtUtil {
@@ -27,41 +35,78 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    // Generar clave secreta
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxTokensVerificados;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens ya verificados: hash SHA-256 del token -> claims
+    private final Map<String, TokenVerificado> tokensVerificados = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    // Clave secreta (construida una sola vez)
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Verificar firma y expiración del token una sola vez
+     * Lanza JwtException si el token es inválido o expiró
+     */
+    public TokenVerificado verificar(String token) {
+
+        String hash = hashToken(token);
+        long ahora = System.currentTimeMillis();
+
+        TokenVerificado cacheado = tokensVerificados.get(hash);
+        if (cacheado != null) {
+            if (!cacheado.expiradoEn(ahora)) {
+                return cacheado;
+            }
+            tokensVerificados.remove(hash);
+        }
+
+        Claims claims = extractAllClaims(token);
+        TokenVerificado verificado = new TokenVerificado(claims.getSubject(), claims.getExpiration(), claims);
+
+        if (tokensVerificados.size() >= maxTokensVerificados) {
+            liberarEspacio(ahora);
+        }
+        tokensVerificados.put(hash, verificado);
+
+        return verificado;
     }
 
     // Extraer username del token
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verificar(token).username();
     }
 
     // Extraer fecha de expiración
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verificar(token).expiracion();
     }
 
     // Extraer un claim específico
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verificar(token).claims());
     }
 
     // Extraer todos los claims - CORREGIDO PARA JJWT 0.12.3
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    // Verificar si el token ha expirado
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     // Generar token para un usuario
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
@@ -87,7 +132,37 @@ public class JwtUtil {
 
     // Validar token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        TokenVerificado verificado = verificar(token);
+        return verificado.username().equals(userDetails.getUsername())
+                && !verificado.expiradoEn(System.currentTimeMillis());
+    }
+
+    private void liberarEspacio(long ahora) {
+        tokensVerificados.values().removeIf(t -> t.expiradoEn(ahora));
+
+        var iterador = tokensVerificados.keySet().iterator();
+        while (tokensVerificados.size() >= maxTokensVerificados && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+
+    private String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Resultado de verificar un token: firma válida y claims ya parseados
+     */
+    public record TokenVerificado(String username, Date expiracion, Claims claims) {
+
+        public boolean expiradoEn(long instante) {
+            return expiracion != null && expiracion.getTime() <= instante;
+        }
     }
-}
\ No newline at end of file
+}
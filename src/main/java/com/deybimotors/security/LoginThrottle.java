@@ -0,0 +1,88 @@
+package com.deybimotors.security;
+
+import com.deybimotors.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Límite de intentos de login en memoria (token bucket)
+ * Un bucket por username y otro por IP; cada intento consume una ficha y
+ * las fichas se recargan de forma continua. Un login correcto recarga el
+ * bucket del username.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private final Map<String, TokenBucket> porUsername = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> porIp = new ConcurrentHashMap<>();
+
+    @Value("${security.login.username-capacity:5}")
+    private int capacidadUsername;
+
+    @Value("${security.login.username-per-minute:5}")
+    private int recargaUsernamePorMinuto;
+
+    @Value("${security.login.ip-capacity:20}")
+    private int capacidadIp;
+
+    @Value("${security.login.ip-per-minute:30}")
+    private int recargaIpPorMinuto;
+
+    @Value("${security.login.max-buckets:10000}")
+    private int maxBuckets;
+
+    /**
+     * Consumir un intento para el username y la IP; lanza 429 si alguno está agotado
+     */
+    public void registrarIntento(String username, String ip) {
+        long ahora = System.nanoTime();
+
+        long esperaIp = consumir(porIp, ip, capacidadIp, recargaIpPorMinuto, ahora);
+        if (esperaIp > 0) {
+            log.warn("⚠️ Demasiados intentos de login desde IP {}", ip);
+            throw new TooManyRequestsException("Demasiados intentos de inicio de sesión. Intente más tarde.", esperaIp);
+        }
+
+        long esperaUsuario = consumir(porUsername, normalizar(username), capacidadUsername, recargaUsernamePorMinuto, ahora);
+        if (esperaUsuario > 0) {
+            log.warn("⚠️ Demasiados intentos de login para usuario {}", username);
+            throw new TooManyRequestsException("Demasiados intentos de inicio de sesión. Intente más tarde.", esperaUsuario);
+        }
+    }
+
+    /**
+     * Login correcto: no penalizar al usuario por intentos fallidos previos
+     */
+    public void registrarExito(String username) {
+        porUsername.remove(normalizar(username));
+    }
+
+    // Devuelve 0 si se consumió una ficha, o los segundos a esperar
+    private long consumir(Map<String, TokenBucket> buckets, String clave, int capacidad, int porMinuto, long ahora) {
+        if (buckets.size() >= maxBuckets && !buckets.containsKey(clave)) {
+            liberarEspacio(buckets, ahora);
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(clave, k -> new TokenBucket(capacidad, ahora));
+        return bucket.consumir(capacidad, porMinuto, ahora);
+    }
+
+    private void liberarEspacio(Map<String, TokenBucket> buckets, long ahora) {
+        // Los buckets que ya se habrían recargado del todo no aportan información
+        buckets.values().removeIf(b -> b.inactivo(ahora));
+
+        var iterador = buckets.keySet().iterator();
+        while (buckets.size() >= maxBuckets && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+
+    private String normalizar(String username) {
+        return username == null ? "" : username.trim().toLowerCase();
+    }
+}
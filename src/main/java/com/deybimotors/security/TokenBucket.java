@@ -0,0 +1,41 @@
+package com.deybimotors.security;
+
+/**
+ * Token bucket simple para límites de frecuencia en memoria
+ * Las fichas se recargan de forma continua hasta la capacidad.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_POR_MINUTO = 60_000_000_000.0;
+
+    private double fichas;
+    private long ultimaRecarga;
+
+    TokenBucket(int capacidad, long ahora) {
+        this.fichas = capacidad;
+        this.ultimaRecarga = ahora;
+    }
+
+    /**
+     * Consumir una ficha; devuelve 0 si se pudo, o los segundos a esperar
+     */
+    synchronized long consumir(int capacidad, int recargaPorMinuto, long ahora) {
+        double fichasPorNano = recargaPorMinuto / NANOS_POR_MINUTO;
+
+        fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+        ultimaRecarga = ahora;
+
+        if (fichas >= 1) {
+            fichas -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - fichas) / fichasPorNano / 1_000_000_000.0);
+    }
+
+    /**
+     * Sin uso desde hace más de un minuto (se puede descartar al limpiar)
+     */
+    synchronized boolean inactivo(long ahora) {
+        return ahora - ultimaRecarga > NANOS_POR_MINUTO;
+    }
+}
@@ -0,0 +1,110 @@
+package com.deybimotors.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de UserDetails para el filtro JWT
+ * Evita consultar usuarios (con JOIN a sede) en cada petición autenticada.
+ * Acotada por tamaño y TTL; se invalida al confirmar cambios del usuario
+ * (UsuarioModificadoEvent), así una desactivación aplica de inmediato.
+ * No guarda la contraseña: el login sigue validando contra la BD.
+ * Una carga que empezó antes de una invalidación no se guarda al terminar:
+ * cada invalidación avanza una generación y la carga compara con la de su inicio.
+ */
+@Component
+@Slf4j
+public class UserDetailsCache {
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Generación de la última invalidación por usuario y de la última invalidación total
+    private final AtomicLong generacion = new AtomicLong();
+    private final Map<String, Long> invalidaciones = new ConcurrentHashMap<>();
+    private volatile long invalidacionTotal;
+
+    @Value("${security.user-cache.ttl-seconds:60}")
+    private long ttlSegundos;
+
+    @Value("${security.user-cache.max-size:1000}")
+    private int tamanioMaximo;
+
+    public UserDetails obtener(String username, Supplier<UserDetails> cargador) {
+
+        long ahora = System.currentTimeMillis();
+
+        Entrada entrada = entradas.get(username);
+        if (entrada != null && entrada.expiraEn() > ahora) {
+            return entrada.userDetails();
+        }
+
+        long inicio = generacion.get();
+        UserDetails userDetails = sinCredenciales(cargador.get());
+
+        if (entradas.size() >= tamanioMaximo) {
+            liberarEspacio(ahora);
+        }
+        // Atómico respecto de invalidar(): o ve su generación, o la entrada se elimina después
+        entradas.compute(username, (clave, actual) -> invalidadoDesde(username, inicio)
+                ? actual
+                : new Entrada(userDetails, ahora + ttlSegundos * 1000));
+
+        return userDetails;
+    }
+
+    public synchronized void invalidar(String username) {
+        long actual = generacion.incrementAndGet();
+        if (invalidaciones.size() >= tamanioMaximo) {
+            // Sin espacio para marcas por usuario: invalida las cargas en curso de todos
+            invalidacionTotal = actual;
+            invalidaciones.clear();
+        } else {
+            invalidaciones.put(username, actual);
+        }
+        entradas.remove(username);
+    }
+
+    public synchronized void invalidarTodo() {
+        invalidacionTotal = generacion.incrementAndGet();
+        invalidaciones.clear();
+        entradas.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarUsuario(UsuarioModificadoEvent evento) {
+        evento.usernames().forEach(this::invalidar);
+        log.debug("Caché de usuarios invalidada para: {}", evento.usernames());
+    }
+
+    private boolean invalidadoDesde(String username, long inicio) {
+        return invalidacionTotal > inicio || invalidaciones.getOrDefault(username, 0L) > inicio;
+    }
+
+    private void liberarEspacio(long ahora) {
+        entradas.values().removeIf(e -> e.expiraEn() <= ahora);
+
+        // Si siguen sin caber, descartar entradas arbitrarias hasta bajar del límite
+        var iterador = entradas.keySet().iterator();
+        while (entradas.size() >= tamanioMaximo && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+
+    private UserDetails sinCredenciales(UserDetails userDetails) {
+        return User.withUserDetails(userDetails)
+                .password("")
+                .build();
+    }
+
+    private record Entrada(UserDetails userDetails, long expiraEn) {}
+}
@@ -3,13 +3,16 @@ package com.deybimotors.security;
 import com.deybimotors.entity.Usuario;
 import com.deybimotors.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -17,10 +20,12 @@ import java.util.Collections;
 /**
  * Servicio de UserDetails para Spring Security
  * Carga los datos del usuario para autenticación
+ * y re-cifra la contraseña al hacer login si cambió el costo de BCrypt
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UsuarioRepository usuarioRepository;
 
@@ -47,6 +52,24 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .build();
     }
 
+    /**
+     * Llamado por Spring Security tras un login correcto cuando el hash
+     * guardado usa un costo menor al configurado (security.bcrypt.strength)
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        usuarioRepository.findByUsername(user.getUsername()).ifPresent(usuario -> {
+            usuario.setPassword(newPassword);
+            usuarioRepository.save(usuario);
+            log.info("✅ Contraseña re-cifrada con el costo actual para: {}", user.getUsername());
+        });
+
+        return User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
     // Convertir rol a GrantedAuthority
     private Collection<? extends GrantedAuthority> getAuthorities(Usuario usuario) {
         return Collections.singletonList(
@@ -0,0 +1,15 @@
+package com.deybimotors.security;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambian datos de un usuario que afectan su autenticación
+ * (rol, sede, estado, contraseña, username o eliminación)
+ */
+public record UsuarioModificadoEvent(Set<String> usernames) {
+
+    public static UsuarioModificadoEvent de(String... usernames) {
+        return new UsuarioModificadoEvent(Set.copyOf(Arrays.asList(usernames)));
+    }
+}
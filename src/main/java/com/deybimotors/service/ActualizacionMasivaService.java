@@ -0,0 +1,184 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.ProductoDTO;
+import com.deybimotors.entity.Producto;
+import com.deybimotors.entity.Subcategoria;
+import com.deybimotors.exception.BadRequestException;
+import com.deybimotors.exception.ResourceNotFoundException;
+import com.deybimotors.repository.SubcategoriaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Actualización masiva de productos activos: un solo UPDATE por operación, sin cargar entidades
+ * - Filtro: categoría, subcategoría, marca, sede y/o códigos internos
+ * - Operaciones: precio de venta por porcentaje o monto, visibilidad en catálogo, subcategoría
+ * La caché de consultas de Hibernate se invalida sola (UPDATE vía Criteria); el índice de
+ * escaneo se refresca en segundo plano tras el commit con los códigos afectados (ProductosModificadosEvent).
+ */
+@Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
+@RequiredArgsConstructor
+@Slf4j
+public class ActualizacionMasivaService {
+
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    private final EntityManager entityManager;
+    private final SubcategoriaRepository subcategoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public enum Operacion {
+        PRECIO_PORCENTAJE,
+        PRECIO_MONTO,
+        PUBLICO_CATALOGO,
+        SUBCATEGORIA
+    }
+
+    @Transactional
+    public ProductoDTO.ActualizacionMasivaResponse actualizar(ProductoDTO.ActualizacionMasivaRequest request, Long usuarioId) {
+
+        Operacion operacion = validar(request);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        // Códigos afectados: antes del UPDATE (cambiar la subcategoría saca filas del filtro)
+        CriteriaQuery<String> consulta = cb.createQuery(String.class);
+        Root<Producto> seleccion = consulta.from(Producto.class);
+        consulta.select(seleccion.get("codigoInterno")).where(filtro(cb, seleccion, request));
+        List<String> codigos = entityManager.createQuery(consulta).getResultList();
+
+        if (codigos.isEmpty()) {
+            return new ProductoDTO.ActualizacionMasivaResponse(operacion.name(), 0);
+        }
+
+        CriteriaUpdate<Producto> update = cb.createCriteriaUpdate(Producto.class);
+        Root<Producto> producto = update.from(Producto.class);
+        Path<BigDecimal> precioVenta = producto.get("precioVenta");
+
+        switch (operacion) {
+            case PRECIO_PORCENTAJE -> {
+                // Literal: como parámetro Hibernate lo castea a la escala de precio_venta (1.125 -> 1.13)
+                BigDecimal factor = BigDecimal.ONE.add(request.getValor().divide(CIEN));
+                update.set(precioVenta,
+                        cb.function("round", BigDecimal.class, cb.prod(precioVenta, cb.literal(factor)), cb.literal(2)));
+            }
+            case PRECIO_MONTO -> {
+                // Un descuento mayor al precio lo deja en 0
+                Expression<BigDecimal> nuevo = cb.sum(precioVenta, request.getValor());
+                update.set(precioVenta, cb.<BigDecimal>selectCase()
+                        .when(cb.lessThan(nuevo, BigDecimal.ZERO), BigDecimal.ZERO)
+                        .otherwise(nuevo));
+            }
+            case PUBLICO_CATALOGO -> update.set(producto.<Boolean>get("publicoCatalogo"), request.getPublicoCatalogo());
+            case SUBCATEGORIA -> {
+                Subcategoria subcategoria = subcategoriaRepository.findById(request.getNuevaSubcategoriaId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Subcategoría no encontrada"));
+                update.set(producto.get("subcategoria"), subcategoria);
+                update.set(producto.get("categoria"), subcategoria.getCategoria());
+            }
+        }
+        update.where(filtro(cb, producto, request));
+
+        int actualizados = entityManager.createQuery(update).executeUpdate();
+
+        // El UPDATE no pasa por entidades: el índice de escaneo relee estos códigos tras el commit
+        eventPublisher.publishEvent(ProductosModificadosEvent.de(codigos));
+
+        log.info("✅ Actualización masiva {} por usuario {}: {} productos", operacion, usuarioId, actualizados);
+        return new ProductoDTO.ActualizacionMasivaResponse(operacion.name(), actualizados);
+    }
+
+    private Operacion validar(ProductoDTO.ActualizacionMasivaRequest request) {
+
+        boolean sinCodigos = request.getCodigos() == null || request.getCodigos().stream().allMatch(this::vacio);
+        if (request.getCategoriaId() == null && request.getSubcategoriaId() == null
+                && request.getMarcaId() == null && request.getSedeId() == null && sinCodigos) {
+            throw new BadRequestException("Debe indicar al menos un filtro (categoría, subcategoría, marca, sede o códigos)");
+        }
+
+        Operacion operacion;
+        try {
+            operacion = Operacion.valueOf(request.getOperacion().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Operación no válida: " + request.getOperacion());
+        }
+
+        switch (operacion) {
+            case PRECIO_PORCENTAJE -> {
+                if (request.getValor() == null || request.getValor().compareTo(CIEN.negate()) <= 0) {
+                    throw new BadRequestException("El porcentaje es obligatorio y debe ser mayor a -100");
+                }
+            }
+            case PRECIO_MONTO -> {
+                if (request.getValor() == null) {
+                    throw new BadRequestException("El monto es obligatorio");
+                }
+            }
+            case PUBLICO_CATALOGO -> {
+                if (request.getPublicoCatalogo() == null) {
+                    throw new BadRequestException("Debe indicar publicoCatalogo (true/false)");
+                }
+            }
+            case SUBCATEGORIA -> {
+                if (request.getNuevaSubcategoriaId() == null) {
+                    throw new BadRequestException("La nueva subcategoría es obligatoria");
+                }
+            }
+        }
+        return operacion;
+    }
+
+    private Predicate[] filtro(CriteriaBuilder cb, Root<Producto> producto, ProductoDTO.ActualizacionMasivaRequest request) {
+        List<Predicate> predicados = new ArrayList<>();
+
+        predicados.add(cb.equal(producto.get("estado"), true));
+
+        if (request.getCategoriaId() != null) {
+            predicados.add(cb.equal(producto.get("categoria").get("id"), request.getCategoriaId()));
+        }
+        if (request.getSubcategoriaId() != null) {
+            predicados.add(cb.equal(producto.get("subcategoria").get("id"), request.getSubcategoriaId()));
+        }
+        if (request.getMarcaId() != null) {
+            predicados.add(cb.equal(producto.get("marcaProducto").get("id"), request.getMarcaId()));
+        }
+        if (request.getSedeId() != null) {
+            predicados.add(cb.equal(producto.get("sede").get("id"), request.getSedeId()));
+        }
+        if (request.getCodigos() != null) {
+            List<String> codigos = request.getCodigos().stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(codigo -> !codigo.isEmpty())
+                    .distinct()
+                    .toList();
+            if (!codigos.isEmpty()) {
+                predicados.add(producto.get("codigoInterno").in(codigos));
+            }
+        }
+
+        return predicados.toArray(Predicate[]::new);
+    }
+
+    private boolean vacio(String codigo) {
+        return codigo == null || codigo.isBlank();
+    }
+}
@@ -5,16 +5,20 @@ import com.deybimotors.entity.Usuario;
 import com.deybimotors.exception.BadRequestException;
 import com.deybimotors.exception.ResourceNotFoundException;
 import com.deybimotors.repository.UsuarioRepository;
+import com.deybimotors.security.EjecutorPasswords;
 import com.deybimotors.security.JwtUtil;
+import com.deybimotors.security.LoginThrottle;
+import com.deybimotors.security.UsuarioModificadoEvent;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +26,8 @@ import java.util.Map;
 /**
  * Servicio de Autenticación - RF-001
  * Maneja login y generación de tokens JWT
+ * Sin transacción alrededor de BCrypt: el hilo del request no retiene una conexión
+ * del pool mientras espera al pool de contraseñas (que necesita las suyas).
  */
 @Service
 @RequiredArgsConstructor
@@ -30,25 +36,42 @@ public class AuthService {
     private final UsuarioRepository usuarioRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EjecutorPasswords ejecutorPasswords;
+    private final LoginThrottle loginThrottle;
+
+    // Lecturas de usuario: pueden ir a una réplica
+    private TransactionTemplate lectura;
+
+    @PostConstruct
+    public void init() {
+        lectura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        lectura.setReadOnly(true);
+    }
 
     /**
      * Iniciar sesión - RF-001
+     * La verificación BCrypt corre en el pool acotado de contraseñas
      */
-    @Transactional(readOnly = true)
-    public AuthDTO.LoginResponse login(AuthDTO.LoginRequest request) {
+    public AuthDTO.LoginResponse login(AuthDTO.LoginRequest request, String ipCliente) {
+
+        // Límite de intentos por usuario e IP
+        loginThrottle.registrarIntento(request.getUsername(), ipCliente);
 
         // Autenticar usuario
-        Authentication authentication = authenticationManager.authenticate(
+        Authentication authentication = ejecutorPasswords.ejecutar(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
-        );
+        ));
+        loginThrottle.registrarExito(request.getUsername());
 
-        // Cargar datos del usuario
-        Usuario usuario = usuarioRepository.findByUsername(request.getUsername())
+        // Cargar datos del usuario (transacción corta de solo lectura, ya autenticado)
+        // El re-cifrado del hash, si aplica, ya escribió en su propia transacción al autenticar
+        Usuario usuario = lectura.execute(status -> usuarioRepository.findByUsername(request.getUsername()))
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
         // Validar que esté activo - RF-001
@@ -56,8 +79,8 @@ public class AuthService {
             throw new BadRequestException("Usuario desactivado. Contacte al administrador.");
         }
 
-        // Generar token JWT con información adicional
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+        // Generar token JWT con información adicional (UserDetails ya cargado al autenticar)
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
         Map<String, Object> extraClaims = new HashMap<>();
         extraClaims.put("userId", usuario.getId());
@@ -81,20 +104,31 @@ public class AuthService {
 
     /**
      * Cambiar contraseña del usuario actual
+     * BCrypt fuera de transacción; lectura y escritura en transacciones cortas
      */
-    @Transactional
     public void cambiarPassword(String username, AuthDTO.CambiarPasswordRequest request) {
 
-        Usuario usuario = usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        String passwordActual = lectura.execute(status -> usuarioRepository.findByUsername(username))
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"))
+                .getPassword();
 
         // Validar contraseña actual
-        if (!passwordEncoder.matches(request.getPasswordActual(), usuario.getPassword())) {
+        if (!ejecutorPasswords.ejecutar(() -> passwordEncoder.matches(request.getPasswordActual(), passwordActual))) {
             throw new BadRequestException("La contraseña actual es incorrecta");
         }
 
-        // Actualizar contraseña
-        usuario.setPassword(passwordEncoder.encode(request.getPasswordNueva()));
-        usuarioRepository.save(usuario);
+        String passwordNueva = ejecutorPasswords.ejecutar(() -> passwordEncoder.encode(request.getPasswordNueva()));
+
+        // Actualizar contraseña (si cambió mientras se verificaba, gana el otro cambio)
+        transactionTemplate.executeWithoutResult(status -> {
+            Usuario usuario = usuarioRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+            if (!usuario.getPassword().equals(passwordActual)) {
+                throw new BadRequestException("La contraseña cambió durante la operación, intente nuevamente");
+            }
+            usuario.setPassword(passwordNueva);
+            usuarioRepository.save(usuario);
+            eventPublisher.publishEvent(UsuarioModificadoEvent.de(usuario.getUsername()));
+        });
     }
 }
\ No newline at end of file
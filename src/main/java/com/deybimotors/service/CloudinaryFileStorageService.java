@@ -1,214 +1,115 @@
 package com.deybimotors.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.deybimotors.almacenamiento.AlmacenamientoCompuesto;
+import com.deybimotors.almacenamiento.AlmacenamientoLocal;
 import com.deybimotors.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import jakarta.annotation.PostConstruct;
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.UUID;
 
 /**
- * Servicio de almacenamiento usando Cloudinary
- * ✅ GRATIS: 25 GB almacenamiento + 25 GB ancho de banda
- * ✅ Acceso global desde cualquier país
+ * Servicio de almacenamiento de documentos
+ * ✅ Backend configurable (almacenamiento.documentos.backend): Cloudinary o disco local
+ * ✅ Cloudinary con caché LRU en disco: las lecturas repetidas no salen a la red
+ * ✅ Subida asíncrona: el archivo se escribe en disco local (uploads/documents) y esa
+ *    referencia se guarda en BD; OperacionesAlmacenamientoService lo transfiere al
+ *    backend remoto con reintentos y reemplaza la referencia por la URL remota
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CloudinaryFileStorageService {
 
-    @Value("${cloudinary.cloud-name}")
-    private String cloudName;
-
-    @Value("${cloudinary.api-key}")
-    private String apiKey;
-
-    @Value("${cloudinary.api-secret}")
-    private String apiSecret;
-
-    private Cloudinary cloudinary;
-
-    @PostConstruct
-    public void init() {
-        cloudinary = new Cloudinary(ObjectUtils.asMap(
-                "cloud_name", cloudName,
-                "api_key", apiKey,
-                "api_secret", apiSecret
-        ));
-        log.info("✅ Cloudinary inicializado: {}", cloudName);
-    }
-
-    /**
-     * Subir imagen de producto
-     */
-    public String subirImagen(MultipartFile archivo, String carpeta) throws IOException {
-
-        validarImagen(archivo);
-
-        Map uploadResult = cloudinary.uploader().upload(
-                archivo.getBytes(),
-                ObjectUtils.asMap(
-                        "folder", "deybimotors/" + carpeta,
-                        "resource_type", "image"
-                )
-        );
-
-        String url = (String) uploadResult.get("secure_url");
-        log.info("✅ Imagen subida a Cloudinary: {}", url);
-
-        return url;
-    }
+    private final AlmacenamientoCompuesto almacenamientoDocumentos;
+    private final AlmacenamientoLocal almacenamientoLocalDocumentos;
 
     /**
      * Subir documento (facturas, PDF, Excel, Word, etc.)
      * ✅ Soporta: PDF, DOC, DOCX, XLS, XLSX, imágenes
      */
     public String subirDocumento(MultipartFile archivo, String carpeta) throws IOException {
-
         validarArchivo(archivo);
-
-        // Determinar el tipo de recurso según el archivo
-        String resourceType = determinarTipoRecurso(archivo);
-
-        Map uploadResult = cloudinary.uploader().upload(
-                archivo.getBytes(),
-                ObjectUtils.asMap(
-                        "folder", "deybimotors/" + carpeta,
-                        "resource_type", resourceType, // "image", "raw", o "auto"
-                        "format", obtenerExtensionLimpia(archivo.getOriginalFilename()) // Mantener extensión original
-                )
-        );
-
-        String url = (String) uploadResult.get("secure_url");
-        log.info("✅ {} subido a Cloudinary: {}", resourceType.toUpperCase(), url);
-
-        return url;
+        return subir(archivo, carpeta);
     }
 
     /**
-     * Determinar tipo de recurso para Cloudinary
+     * Indica si el archivo sigue en disco local esperando su transferencia al backend remoto
      */
-    private String determinarTipoRecurso(MultipartFile archivo) {
-        String contentType = archivo.getContentType();
+    public boolean pendienteDeTransferir(String referencia) {
+        return almacenamientoDocumentos.getPrincipal() != almacenamientoLocalDocumentos
+                && almacenamientoLocalDocumentos.admite(referencia);
+    }
 
-        if (contentType == null) {
-            return "raw"; // Por defecto, archivo sin procesar
+    /**
+     * Transferir un archivo en espera al backend principal y retornar su referencia remota
+     * NoSuchFileException si el archivo local ya no existe (se reemplazó o eliminó)
+     */
+    public String transferir(String referenciaLocal) throws IOException {
+        Path archivo = almacenamientoLocalDocumentos.ruta(referenciaLocal);
+        if (!Files.exists(archivo)) {
+            throw new NoSuchFileException(referenciaLocal);
         }
 
-        // Si es imagen, usar tipo "image"
-        if (contentType.startsWith("image/")) {
-            return "image";
-        }
+        String relativa = almacenamientoLocalDocumentos.relativa(referenciaLocal);
+        int barra = relativa.lastIndexOf('/');
+        String carpeta = barra > 0 ? relativa.substring(0, barra) : "";
+        String nombre = relativa.substring(barra + 1);
+        String contentType = MediaTypeFactory.getMediaType(nombre).map(MediaType::toString).orElse(null);
 
-        // Para PDFs, documentos, Excel, etc., usar "raw"
-        return "raw";
+        return almacenamientoDocumentos.getPrincipal().guardar(carpeta, nombre, archivo, contentType);
     }
 
     /**
-     * Obtener extensión limpia del archivo
+     * Abrir un archivo subido (desde la caché local si ya se leyó antes)
+     * NoSuchFileException si no existe
      */
-    private String obtenerExtensionLimpia(String nombreArchivo) {
-        if (nombreArchivo == null || !nombreArchivo.contains(".")) {
-            return "";
-        }
-        return nombreArchivo.substring(nombreArchivo.lastIndexOf(".") + 1).toLowerCase();
+    public InputStream abrir(String referencia) throws IOException {
+        return almacenamientoDocumentos.abrir(referencia);
     }
 
     /**
-     * Eliminar archivo de Cloudinary
-     * ✅ Funciona para imágenes y documentos (PDF, Excel, etc.)
+     * Eliminar archivo
+     * ✅ Funciona para imágenes y documentos (PDF, Excel, etc.) de cualquier backend
+     * Retorna false solo si el backend no respondió (para reintentar)
      */
-    public void eliminarArchivo(String urlArchivo) {
-        try {
-            // Extraer public_id de la URL
-            String publicId = extraerPublicId(urlArchivo);
-
-            if (publicId == null || publicId.isEmpty()) {
-                log.warn("⚠️ No se pudo extraer public_id de: {}", urlArchivo);
-                return;
-            }
-
-            // Determinar el tipo de recurso desde la URL
-            String resourceType = urlArchivo.contains("/image/upload/") ? "image" : "raw";
-
-            // Eliminar con el tipo correcto
-            Map result = cloudinary.uploader().destroy(
-                    publicId,
-                    ObjectUtils.asMap("resource_type", resourceType)
-            );
-
-            log.info("🗑️ Archivo eliminado de Cloudinary: {} (tipo: {}) - Resultado: {}",
-                    publicId, resourceType, result.get("result"));
-
-        } catch (Exception e) {
-            log.error("❌ Error al eliminar de Cloudinary: {}", e.getMessage());
-        }
+    public boolean eliminarArchivo(String referencia) {
+        return almacenamientoDocumentos.eliminar(referencia);
     }
 
     /**
-     * Extraer public_id de una URL de Cloudinary
-     * ✅ Funciona para URLs de imagen y raw (documentos)
-     *
-     * Ejemplos:
-     * - https://res.cloudinary.com/drdet81ws/image/upload/v123/deybimotors/facturas/archivo.jpg
-     *   -> deybimotors/facturas/archivo
-     *
-     * - https://res.cloudinary.com/drdet81ws/raw/upload/v123/deybimotors/facturas/documento.pdf
-     *   -> deybimotors/facturas/documento
+     * Escribir en disco local y retornar su referencia (uploads/documents/...)
+     * Si el backend principal es remoto, el llamador programa la transferencia
      */
-    private String extraerPublicId(String url) {
-        try {
-            if (url == null || !url.contains("/upload/")) {
-                return null;
-            }
+    private String subir(MultipartFile archivo, String carpeta) throws IOException {
+        String nombre = UUID.randomUUID() + obtenerExtension(archivo.getOriginalFilename());
+        String referencia = almacenamientoLocalDocumentos.referencia(carpeta, nombre);
 
-            String[] partes = url.split("/upload/");
-            if (partes.length < 2) return null;
+        Path destino = almacenamientoLocalDocumentos.ruta(referencia);
+        Files.createDirectories(destino.getParent());
+        archivo.transferTo(destino);
 
-            String despuesUpload = partes[1];
-
-            // Remover version (v1234567890/)
-            String sinVersion = despuesUpload.replaceFirst("v\\d+/", "");
-
-            // Remover extensión del archivo
-            int ultimoPunto = sinVersion.lastIndexOf('.');
-            if (ultimoPunto > 0) {
-                sinVersion = sinVersion.substring(0, ultimoPunto);
-            }
-
-            return sinVersion;
-
-        } catch (Exception e) {
-            log.error("❌ Error al extraer public_id: {}", e.getMessage());
-            return null;
-        }
+        log.info("✅ Archivo guardado en disco local: {}", referencia);
+        return referencia;
     }
 
     /**
-     * Validar imagen
+     * Extensión con punto y en minúsculas (".pdf"), vacía si no tiene
      */
-    private void validarImagen(MultipartFile archivo) {
-        if (archivo.isEmpty()) {
-            throw new BadRequestException("El archivo está vacío");
-        }
-
-        // Máximo 10MB
-        if (archivo.getSize() > 10 * 1024 * 1024) {
-            throw new BadRequestException("La imagen excede 10MB");
-        }
-
-        String contentType = archivo.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new BadRequestException("El archivo debe ser una imagen (JPG, PNG, etc.)");
+    private String obtenerExtension(String nombreArchivo) {
+        if (nombreArchivo == null || !nombreArchivo.contains(".")) {
+            return "";
         }
-
-        log.info("✅ Imagen validada: {} - Tamaño: {} KB",
-                archivo.getOriginalFilename(),
-                archivo.getSize() / 1024);
+        return nombreArchivo.substring(nombreArchivo.lastIndexOf(".")).toLowerCase();
     }
 
     /**
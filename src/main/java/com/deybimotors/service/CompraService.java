@@ -5,6 +5,7 @@ import com.deybimotors.entity.*;
 import com.deybimotors.exception.BadRequestException;
 import com.deybimotors.exception.ResourceNotFoundException;
 import com.deybimotors.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.Year;
@@ -23,11 +25,13 @@ import java.util.stream.Collectors;
  * ✅ ACTUALIZADO: Usa Cloudinary para almacenamiento global
  */
 @Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
 @RequiredArgsConstructor
 @Slf4j
 public class CompraService {
 
     private final CompraRepository compraRepository;
+    private final CorrelativoRepository correlativoRepository;
     private final CompraDetalleRepository compraDetalleRepository;
     private final ProveedorRepository proveedorRepository;
     private final SedeRepository sedeRepository;
@@ -37,6 +41,7 @@ public class CompraService {
 
     // ✅ CAMBIO: Ahora usa Cloudinary en lugar de FileStorageService local
     private final CloudinaryFileStorageService cloudinaryService;
+    private final OperacionesAlmacenamientoService operacionesAlmacenamiento;
 
     @Transactional(readOnly = true)
     public List<CompraDTO.CompraResponse> listarTodas() {
@@ -173,33 +178,70 @@ public class CompraService {
     }
 
     /**
-     * ✅ ACTUALIZADO: Subir factura a Cloudinary
+     * ✅ ACTUALIZADO: Subir factura
+     * Se guarda en disco local y se responde; la transferencia a Cloudinary corre en segundo plano
+     * y reemplaza la ruta local por la URL remota al completarse
      */
-    @Transactional
     public CompraDTO.CompraResponse subirFactura(Long compraId, MultipartFile archivo) throws IOException {
 
+        if (!compraRepository.existsById(compraId)) {
+            throw new ResourceNotFoundException("Compra no encontrada");
+        }
+
+        // ✅ Guardar en disco local (la URL remota reemplaza a esta ruta tras la transferencia)
+        String ruta = cloudinaryService.subirDocumento(archivo, "facturas");
+        Long compensacion = operacionesAlmacenamiento.registrarCompensacion(
+                OperacionAlmacenamiento.Backend.CLOUDINARY, ruta);
+
+        return operacionesAlmacenamiento.confirmarSubidas(List.of(compensacion), () -> {
+
+            Compra compra = compraRepository.findById(compraId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Compra no encontrada"));
+
+            // Si ya tiene archivo, el anterior se elimina tras el commit
+            if (compra.getRutaFactura() != null) {
+                operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.CLOUDINARY,
+                        compra.getRutaFactura(), "Factura reemplazada");
+            }
+
+            // Guardar ruta en BD y transferir al backend remoto tras el commit
+            compra.setRutaFactura(ruta);
+            Compra actualizada = compraRepository.save(compra);
+            operacionesAlmacenamiento.programarSubida(OperacionAlmacenamiento.Backend.CLOUDINARY, ruta);
+
+            log.info("✅ Factura subida: {} -> {}", compra.getNumeroCompra(), ruta);
+            return convertirADTO(actualizada);
+        });
+    }
+
+    /**
+     * Abrir la factura de una compra para descargarla
+     * Sin transacción: la lectura del backend (o de su caché local) no retiene conexión de BD
+     */
+    public CompraDTO.FacturaArchivo abrirFactura(Long compraId) throws IOException {
+
         Compra compra = compraRepository.findById(compraId)
                 .orElseThrow(() -> new ResourceNotFoundException("Compra no encontrada"));
 
-        // Si ya tiene archivo, eliminar el anterior de Cloudinary
-        if (compra.getRutaFactura() != null) {
-            cloudinaryService.eliminarArchivo(compra.getRutaFactura());
-            log.info("🗑️ Archivo anterior eliminado de Cloudinary");
+        String ruta = compra.getRutaFactura();
+        if (ruta == null) {
+            throw new ResourceNotFoundException("La compra no tiene archivo adjunto");
         }
 
-        // ✅ Subir a Cloudinary y obtener URL pública global
-        String urlPublica = cloudinaryService.subirDocumento(archivo, "facturas");
+        // Nombre de descarga: número de compra con la extensión del archivo
+        int punto = ruta.lastIndexOf('.');
+        String extension = punto > ruta.lastIndexOf('/') ? ruta.substring(punto) : "";
+        String nombre = compra.getNumeroCompra() + extension;
 
-        // Guardar URL en BD
-        compra.setRutaFactura(urlPublica);
-        Compra actualizada = compraRepository.save(compra);
-
-        log.info("✅ Factura subida a Cloudinary: {} -> {}", compra.getNumeroCompra(), urlPublica);
-        return convertirADTO(actualizada);
+        try {
+            return new CompraDTO.FacturaArchivo(nombre, cloudinaryService.abrir(ruta));
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Archivo de factura no encontrado");
+        }
     }
 
     /**
-     * ✅ ACTUALIZADO: Eliminar factura de Cloudinary
+     * ✅ ACTUALIZADO: Eliminar factura de Cloudinary (después del commit)
      */
     @Transactional
     public CompraDTO.CompraResponse eliminarFactura(Long compraId) {
@@ -211,14 +253,14 @@ public class CompraService {
             throw new BadRequestException("La compra no tiene archivo adjunto");
         }
 
-        // Eliminar de Cloudinary
-        cloudinaryService.eliminarArchivo(compra.getRutaFactura());
+        operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.CLOUDINARY,
+                compra.getRutaFactura(), "Factura eliminada");
 
         // Eliminar referencia en BD
         compra.setRutaFactura(null);
         Compra actualizada = compraRepository.save(compra);
 
-        log.info("🗑️ Factura eliminada de Cloudinary para compra: {}", actualizada.getNumeroCompra());
+        log.info("🗑️ Factura eliminada para compra: {}", actualizada.getNumeroCompra());
         return convertirADTO(actualizada);
     }
 
@@ -273,10 +315,10 @@ public class CompraService {
             throw new BadRequestException("Solo se pueden eliminar compras en estado PENDIENTE");
         }
 
-        // Eliminar archivo de Cloudinary si existe
+        // Eliminar archivo de Cloudinary si existe (después del commit)
         if (compra.getRutaFactura() != null) {
-            cloudinaryService.eliminarArchivo(compra.getRutaFactura());
-            log.info("🗑️ Archivo eliminado de Cloudinary");
+            operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.CLOUDINARY,
+                    compra.getRutaFactura(), "Compra eliminada");
         }
 
         compraRepository.delete(compra);
@@ -284,15 +326,26 @@ public class CompraService {
     }
 
     /**
-     * Generar número de compra automático
+     * Siguiente número de la serie del año (CMP-2024-0001)
+     * El correlativo queda bloqueado hasta que confirma la compra: dos compras
+     * simultáneas no pueden tomar el mismo número.
      */
     private String generarNumeroCompra() {
         String year = String.valueOf(Year.now().getValue());
-        Integer ultimoNumero = compraRepository.findUltimoNumeroCompraDelAnio(year);
+        String serie = "CMP-" + year;
+
+        Correlativo correlativo = correlativoRepository.bloquear(serie).orElse(null);
+        if (correlativo == null) {
+            // Primera compra con correlativo: continúa desde las compras ya registradas del año
+            Integer ultimoNumero = compraRepository.findUltimoNumeroCompraDelAnio(year);
+            correlativoRepository.crearSiNoExiste(serie, ultimoNumero != null ? ultimoNumero : 0);
+            correlativo = correlativoRepository.bloquear(serie).orElseThrow();
+        }
 
-        int nuevoNumero = (ultimoNumero != null ? ultimoNumero : 0) + 1;
+        int nuevoNumero = correlativo.getUltimoNumero() + 1;
+        correlativo.setUltimoNumero(nuevoNumero);
 
-        return String.format("CMP-%s-%04d", year, nuevoNumero);
+        return String.format("%s-%04d", serie, nuevoNumero);
     }
 
     /**
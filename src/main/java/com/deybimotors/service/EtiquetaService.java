@@ -1,112 +1,221 @@
 package com.deybimotors.service;
 
+import com.deybimotors.dto.EtiquetaDTO;
 import com.deybimotors.entity.Compatibilidad;
 import com.deybimotors.entity.Producto;
 import com.deybimotors.exception.ResourceNotFoundException;
+import com.deybimotors.repository.CompraDetalleRepository;
+import com.deybimotors.repository.CompraRepository;
 import com.deybimotors.repository.ProductoRepository;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.oned.Code128Writer;
+import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.HorizontalAlignment;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
-import com.itextpdf.io.image.ImageDataFactory;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio de Etiquetas - ✅ ACTUALIZADO
- * Sin cambios significativos (no usa stockMinimo ni imágenes)
+ * Códigos de barras Code128 vectoriales (iText) en lugar de PNG rasterizados.
+ * Cada etiqueta se dibuja una sola vez como plantilla (XObject) y todas sus
+ * copias referencian la misma plantilla dentro del PDF.
+ * Las etiquetas de compra se generan solo desde las líneas de la compra.
+ * Para impresoras térmicas se emite ZPL/EPL (texto) usando el Code128 y las fuentes de la impresora.
  */
 @Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
 @RequiredArgsConstructor
 @Slf4j
 public class EtiquetaService {
 
     private final ProductoRepository productoRepository;
+    private final CompraRepository compraRepository;
+    private final CompraDetalleRepository compraDetalleRepository;
 
-    @Transactional(readOnly = true)
-    public byte[] generarEtiquetas(List<Long> productosIds, int cantidadPorProducto) throws IOException, WriterException {
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(baos);
-        PdfDocument pdfDoc = new PdfDocument(writer);
-        Document document = new Document(pdfDoc, PageSize.A4);
+    // Tamaño de la plantilla de etiqueta (3 columnas en A4 con márgenes de 20pt)
+    static final float ANCHO_ETIQUETA = 170f;
+    static final float ALTO_ETIQUETA = 100f;
 
-        document.setMargins(20, 20, 20, 20);
+    // Máximo de plantillas/códigos retenidos por documento
+    private static final int MAX_PLANTILLAS_CACHE = 256;
 
-        Table table = new Table(UnitValue.createPercentArray(new float[]{33.33f, 33.33f, 33.33f}));
-        table.setWidth(UnitValue.createPercentValue(100));
+    // Celdas agregadas antes de volcar la tabla al PDF
+    private static final int CELDAS_POR_FLUSH = 60;
 
-        int etiquetasGeneradas = 0;
+    // Etiqueta térmica 2" x 1.25" a 203 dpi
+    static final int ANCHO_TERMICA_DOTS = 406;
+    static final int ALTO_TERMICA_DOTS = 254;
 
-        for (Long productoId : productosIds) {
+    @Transactional(readOnly = true)
+    public byte[] generarEtiquetas(List<Long> productosIds, int cantidadPorProducto) throws IOException {
+        return generarEtiquetas(productosIds, cantidadPorProducto, EtiquetaDTO.FormatoEtiqueta.PDF);
+    }
 
-            Producto producto = productoRepository.findById(productoId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado: ID " + productoId));
+    @Transactional(readOnly = true)
+    public byte[] generarEtiquetas(List<Long> productosIds, int cantidadPorProducto,
+                                   EtiquetaDTO.FormatoEtiqueta formato) throws IOException {
 
-            for (int i = 0; i < cantidadPorProducto; i++) {
+        Map<Long, Producto> productos = productoRepository.findAllById(productosIds).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
 
-                byte[] codigoBarras = generarCodigoBarras(producto.getCodigo());
-                Table etiqueta = crearEtiqueta(producto, codigoBarras);
-                table.addCell(etiqueta);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-                etiquetasGeneradas++;
+        try (DestinoEtiquetas hoja = abrirDestino(formato, baos)) {
+            for (Long productoId : productosIds) {
 
-                if (etiquetasGeneradas == productosIds.size() * cantidadPorProducto) {
-                    int celdasFaltantes = 3 - (etiquetasGeneradas % 3);
-                    if (celdasFaltantes < 3) {
-                        for (int j = 0; j < celdasFaltantes; j++) {
-                            table.addCell("");
-                        }
-                    }
+                Producto producto = productos.get(productoId);
+                if (producto == null) {
+                    throw new ResourceNotFoundException("Producto no encontrado: ID " + productoId);
                 }
+
+                hoja.agregar(convertirAEtiqueta(producto), cantidadPorProducto);
             }
+
+            log.info("Etiquetas generadas: {} etiquetas para {} productos", hoja.getEtiquetasGeneradas(), productosIds.size());
         }
 
-        document.add(table);
-        document.close();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Etiquetas de una compra - RF-031
+     * Una etiqueta por unidad recibida (cantidad de cada línea), leyendo solo las líneas de la compra
+     */
+    @Transactional(readOnly = true)
+    public byte[] generarEtiquetasCompra(Long compraId) throws IOException {
+        return generarEtiquetasCompra(compraId, EtiquetaDTO.FormatoEtiqueta.PDF);
+    }
 
-        log.info("Etiquetas generadas: {} etiquetas para {} productos", etiquetasGeneradas, productosIds.size());
+    @Transactional(readOnly = true)
+    public byte[] generarEtiquetasCompra(Long compraId, EtiquetaDTO.FormatoEtiqueta formato) throws IOException {
+
+        if (!compraRepository.existsById(compraId)) {
+            throw new ResourceNotFoundException("Compra no encontrada con ID: " + compraId);
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        int lineas = 0;
+
+        try (DestinoEtiquetas hoja = abrirDestino(formato, baos);
+             Stream<CompraDetalleRepository.EtiquetaCompraView> detalles =
+                     compraDetalleRepository.streamEtiquetasByCompraId(compraId)) {
+
+            Iterator<CompraDetalleRepository.EtiquetaCompraView> iterador = detalles.iterator();
+            while (iterador.hasNext()) {
+                CompraDetalleRepository.EtiquetaCompraView detalle = iterador.next();
+                hoja.agregar(convertirAEtiqueta(detalle), detalle.getCantidad() != null ? detalle.getCantidad() : 0);
+                lineas++;
+            }
+
+            log.info("Etiquetas de compra {} generadas: {} etiquetas para {} líneas", compraId, hoja.getEtiquetasGeneradas(), lineas);
+        }
 
         return baos.toByteArray();
     }
 
-    private Table crearEtiqueta(Producto producto, byte[] codigoBarras) throws IOException {
+    private DestinoEtiquetas abrirDestino(EtiquetaDTO.FormatoEtiqueta formato, ByteArrayOutputStream destino) {
+        return switch (formato) {
+            case ZPL -> new EtiquetasTermicas(destino, EtiquetaDTO.FormatoEtiqueta.ZPL);
+            case EPL -> new EtiquetasTermicas(destino, EtiquetaDTO.FormatoEtiqueta.EPL);
+            default -> new HojaEtiquetas(destino);
+        };
+    }
 
-        Table etiqueta = new Table(1);
-        etiqueta.setWidth(UnitValue.createPercentValue(100));
-        etiqueta.setPadding(5);
+    /**
+     * Código de barras Code128 vectorial, sin texto (el código se imprime aparte)
+     */
+    PdfFormXObject generarCodigoBarras(String codigo, PdfDocument pdfDoc) {
 
-        String nombreCorto = producto.getNombre().length() > 40
-                ? producto.getNombre().substring(0, 37) + "..."
-                : producto.getNombre();
+        Barcode128 barcode = new Barcode128(pdfDoc);
+        barcode.setCodeType(Barcode128.CODE128);
+        barcode.setCode(codigo);
+        barcode.setBarHeight(28f);
+        barcode.setX(0.8f);
+        barcode.setFont(null);
 
-        Paragraph nombre = new Paragraph(nombreCorto)
-                .setFontSize(8)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setBold();
+        return barcode.createFormXObject(null, null, pdfDoc);
+    }
 
-        Paragraph codigo = new Paragraph("Código: " + producto.getCodigo())
-                .setFontSize(7)
-                .setTextAlignment(TextAlignment.CENTER);
+    /**
+     * Dibujar la etiqueta completa de un producto como plantilla reutilizable
+     */
+    PdfFormXObject crearPlantillaEtiqueta(EtiquetaDTO.EtiquetaItem etiqueta, PdfFormXObject codigoBarras, PdfDocument pdfDoc) {
+
+        PdfFormXObject plantilla = new PdfFormXObject(new Rectangle(ANCHO_ETIQUETA, ALTO_ETIQUETA));
+
+        try (Canvas canvas = new Canvas(plantilla, pdfDoc)) {
+
+            String nombreCompleto = etiqueta.getNombre() != null ? etiqueta.getNombre() : "";
+            String nombreCorto = nombreCompleto.length() > 40
+                    ? nombreCompleto.substring(0, 37) + "..."
+                    : nombreCompleto;
+
+            canvas.add(new Paragraph(nombreCorto)
+                    .setFontSize(8)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setBold()
+                    .setMargin(0)
+                    .setMarginTop(4));
+
+            canvas.add(new Paragraph("Código: " + etiqueta.getCodigo())
+                    .setFontSize(7)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setMargin(0));
+
+            String marcaModelo = etiqueta.getMarcaModelo();
+            if (marcaModelo != null && !marcaModelo.isEmpty()) {
+                canvas.add(new Paragraph(marcaModelo)
+                        .setFontSize(6)
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setMargin(0));
+            }
 
+            Image imagenBarras = new Image(codigoBarras);
+            imagenBarras.scaleToFit(ANCHO_ETIQUETA * 0.9f, 32f);
+            imagenBarras.setHorizontalAlignment(HorizontalAlignment.CENTER);
+            imagenBarras.setMarginTop(2);
+            canvas.add(imagenBarras);
+
+            canvas.add(new Paragraph("S/ " + etiqueta.getPrecioVenta())
+                    .setFontSize(10)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setBold()
+                    .setMargin(0));
+        }
+
+        return plantilla;
+    }
+
+    EtiquetaDTO.EtiquetaItem convertirAEtiqueta(Producto producto) {
         String marcaModelo = "";
         if (producto.getCompatibilidades() != null && !producto.getCompatibilidades().isEmpty()) {
             Compatibilidad compat = producto.getCompatibilidades().get(0);
@@ -117,50 +226,236 @@ public class EtiquetaService {
                 }
             }
         }
+        return new EtiquetaDTO.EtiquetaItem(producto.getCodigo(), producto.getNombre(), producto.getPrecioVenta(), marcaModelo);
+    }
+
+    private EtiquetaDTO.EtiquetaItem convertirAEtiqueta(CompraDetalleRepository.EtiquetaCompraView detalle) {
+        String marcaModelo = "";
+        if (detalle.getMarcaAutomovil() != null) {
+            marcaModelo = detalle.getMarcaAutomovil();
+            if (detalle.getModeloAutomovil() != null) {
+                marcaModelo += " " + detalle.getModeloAutomovil();
+            }
+        }
+        return new EtiquetaDTO.EtiquetaItem(detalle.getCodigo(), detalle.getNombre(), detalle.getPrecioVenta(), marcaModelo);
+    }
+
+    /**
+     * Hoja A4 de etiquetas en 3 columnas.
+     * Las plantillas se guardan en un LRU acotado por código: las copias
+     * de un mismo producto solo agregan una referencia al XObject ya escrito.
+     */
+    class HojaEtiquetas implements DestinoEtiquetas {
+
+        private final PdfDocument pdfDoc;
+        private final Document document;
+        private final Table table;
+        private final Map<String, PdfFormXObject> plantillas =
+                new LinkedHashMap<>(64, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PdfFormXObject> eldest) {
+                        return size() > MAX_PLANTILLAS_CACHE;
+                    }
+                };
+
+        private int etiquetasGeneradas = 0;
+
+        HojaEtiquetas(ByteArrayOutputStream destino) {
+            this.pdfDoc = new PdfDocument(new PdfWriter(destino));
+            this.document = new Document(pdfDoc, PageSize.A4);
+            this.document.setMargins(20, 20, 20, 20);
+
+            // Tabla en modo "large table": se vuelca por partes en lugar de acumularse en memoria
+            this.table = new Table(UnitValue.createPercentArray(new float[]{33.33f, 33.33f, 33.33f}), true);
+            this.table.setWidth(UnitValue.createPercentValue(100));
+            this.document.add(table);
+        }
+
+        @Override
+        public void agregar(EtiquetaDTO.EtiquetaItem etiqueta, int copias) {
+
+            PdfFormXObject plantilla = plantillas.computeIfAbsent(etiqueta.getCodigo(), codigo ->
+                    crearPlantillaEtiqueta(etiqueta, generarCodigoBarras(codigo, pdfDoc), pdfDoc));
+
+            for (int i = 0; i < copias; i++) {
+                table.addCell(new Cell()
+                        .add(new Image(plantilla).setHorizontalAlignment(HorizontalAlignment.CENTER))
+                        .setPadding(5));
+
+                etiquetasGeneradas++;
+
+                if (etiquetasGeneradas % CELDAS_POR_FLUSH == 0) {
+                    table.flush();
+                }
+            }
+        }
 
-        Paragraph info = new Paragraph(marcaModelo)
-                .setFontSize(6)
-                .setTextAlignment(TextAlignment.CENTER);
+        @Override
+        public int getEtiquetasGeneradas() {
+            return etiquetasGeneradas;
+        }
 
-        Paragraph precio = new Paragraph("S/ " + producto.getPrecioVenta())
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setBold();
+        @Override
+        public void close() {
+            // Completar la última fila con celdas vacías
+            int celdasFaltantes = (3 - (etiquetasGeneradas % 3)) % 3;
+            for (int j = 0; j < celdasFaltantes; j++) {
+                table.addCell("");
+            }
 
-        Image imagenBarras = new Image(ImageDataFactory.create(codigoBarras));
-        imagenBarras.setWidth(UnitValue.createPercentValue(90));
-        imagenBarras.setHorizontalAlignment(com.itextpdf.layout.properties.HorizontalAlignment.CENTER);
+            table.complete();
+            document.close();
+        }
+    }
+
+    /**
+     * Destino de etiquetas: hoja PDF o flujo de comandos para impresora térmica
+     */
+    interface DestinoEtiquetas extends AutoCloseable {
+
+        void agregar(EtiquetaDTO.EtiquetaItem etiqueta, int copias);
+
+        int getEtiquetasGeneradas();
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Etiquetas en ZPL o EPL. Una definición por producto; las copias
+     * se piden a la impresora (^PQ / P) en lugar de repetir la etiqueta.
+     */
+    static class EtiquetasTermicas implements DestinoEtiquetas {
+
+        private final Writer writer;
+        private final EtiquetaDTO.FormatoEtiqueta formato;
+        private int etiquetasGeneradas = 0;
+
+        EtiquetasTermicas(ByteArrayOutputStream destino, EtiquetaDTO.FormatoEtiqueta formato) {
+            // ZPL se envía en UTF-8 (^CI28); EPL con página de códigos Latin-1 (I8,A)
+            this.writer = new OutputStreamWriter(destino,
+                    formato == EtiquetaDTO.FormatoEtiqueta.ZPL ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+            this.formato = formato;
+        }
+
+        @Override
+        public void agregar(EtiquetaDTO.EtiquetaItem etiqueta, int copias) {
+            if (copias <= 0) return;
+
+            try {
+                writer.write(formato == EtiquetaDTO.FormatoEtiqueta.ZPL
+                        ? generarZpl(etiqueta, copias)
+                        : generarEpl(etiqueta, copias));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
 
-        etiqueta.addCell(nombre);
-        etiqueta.addCell(codigo);
-        if (!marcaModelo.isEmpty()) {
-            etiqueta.addCell(info);
+            etiquetasGeneradas += copias;
         }
-        etiqueta.addCell(imagenBarras);
-        etiqueta.addCell(precio);
 
-        return etiqueta;
+        @Override
+        public int getEtiquetasGeneradas() {
+            return etiquetasGeneradas;
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
-    private byte[] generarCodigoBarras(String codigo) throws WriterException, IOException {
+    static String generarZpl(EtiquetaDTO.EtiquetaItem etiqueta, int copias) {
+
+        String codigo = etiqueta.getCodigo();
+        int modulo = moduloCodigoBarras(codigo);
+        int xBarras = xCentradoCodigoBarras(codigo, modulo);
+        int anchoTexto = ANCHO_TERMICA_DOTS - 20;
+
+        StringBuilder zpl = new StringBuilder(384);
+        zpl.append("^XA^CI28")
+                .append("^PW").append(ANCHO_TERMICA_DOTS)
+                .append("^LL").append(ALTO_TERMICA_DOTS).append('\n');
+        zpl.append("^FO10,10^A0N,22,22^FB").append(anchoTexto).append(",1,0,C^FH^FD")
+                .append(escaparZpl(recortarNombre(etiqueta.getNombre()))).append("^FS\n");
+        zpl.append("^FO10,36^A0N,18,18^FB").append(anchoTexto).append(",1,0,C^FH^FD")
+                .append(escaparZpl("Código: " + codigo)).append("^FS\n");
+        if (etiqueta.getMarcaModelo() != null && !etiqueta.getMarcaModelo().isEmpty()) {
+            zpl.append("^FO10,58^A0N,16,16^FB").append(anchoTexto).append(",1,0,C^FH^FD")
+                    .append(escaparZpl(etiqueta.getMarcaModelo())).append("^FS\n");
+        }
+        zpl.append("^FO").append(xBarras).append(",80^BY").append(modulo)
+                .append("^BCN,90,N,N,N^FH^FD").append(escaparZpl(codigo)).append("^FS\n");
+        zpl.append("^FO10,190^A0N,34,34^FB").append(anchoTexto).append(",1,0,C^FH^FD")
+                .append(escaparZpl(formatearPrecio(etiqueta.getPrecioVenta()))).append("^FS\n");
+        zpl.append("^PQ").append(copias).append("^XZ\n");
 
-        Code128Writer barcodeWriter = new Code128Writer();
-        BitMatrix bitMatrix = barcodeWriter.encode(codigo, BarcodeFormat.CODE_128, 300, 80);
-        BufferedImage bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
+        return zpl.toString();
+    }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(bufferedImage, "png", baos);
+    static String generarEpl(EtiquetaDTO.EtiquetaItem etiqueta, int copias) {
 
-        return baos.toByteArray();
+        String codigo = etiqueta.getCodigo();
+        int modulo = moduloCodigoBarras(codigo);
+        int xBarras = xCentradoCodigoBarras(codigo, modulo);
+
+        StringBuilder epl = new StringBuilder(320);
+        epl.append("\nN\nI8,A,001\n")
+                .append("q").append(ANCHO_TERMICA_DOTS).append('\n')
+                .append("Q").append(ALTO_TERMICA_DOTS).append(",24\n");
+        epl.append("A10,10,0,3,1,1,N,\"").append(escaparEpl(recortarNombre(etiqueta.getNombre()))).append("\"\n");
+        epl.append("A10,38,0,2,1,1,N,\"").append(escaparEpl("Código: " + codigo)).append("\"\n");
+        if (etiqueta.getMarcaModelo() != null && !etiqueta.getMarcaModelo().isEmpty()) {
+            epl.append("A10,58,0,1,1,1,N,\"").append(escaparEpl(etiqueta.getMarcaModelo())).append("\"\n");
+        }
+        epl.append("B").append(xBarras).append(",80,0,1,").append(modulo).append(",2,90,N,\"")
+                .append(escaparEpl(codigo)).append("\"\n");
+        epl.append("A10,190,0,4,1,1,N,\"").append(escaparEpl(formatearPrecio(etiqueta.getPrecioVenta()))).append("\"\n");
+        epl.append("P").append(copias).append('\n');
+
+        return epl.toString();
     }
 
-    @Transactional(readOnly = true)
-    public byte[] generarEtiquetasCompra(Long compraId) throws IOException, WriterException {
+    // Code128: 11 módulos por carácter + inicio/control/fin (~35 módulos)
+    private static int moduloCodigoBarras(String codigo) {
+        return (11 * codigo.length() + 35) * 2 <= ANCHO_TERMICA_DOTS - 20 ? 2 : 1;
+    }
+
+    private static int xCentradoCodigoBarras(String codigo, int modulo) {
+        return Math.max(10, (ANCHO_TERMICA_DOTS - (11 * codigo.length() + 35) * modulo) / 2);
+    }
+
+    private static String recortarNombre(String nombre) {
+        if (nombre == null) return "";
+        return nombre.length() > 40 ? nombre.substring(0, 37) + "..." : nombre;
+    }
 
-        List<Long> productosIds = productoRepository.findAll().stream()
-                .map(Producto::getId)
-                .toList();
+    private static String formatearPrecio(BigDecimal precio) {
+        return "S/ " + (precio != null ? precio : BigDecimal.ZERO);
+    }
+
+    // ^FH: "_" es el indicador hexadecimal; se escapan los caracteres de control de ZPL
+    private static String escaparZpl(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (char c : texto.toCharArray()) {
+            switch (c) {
+                case '_' -> sb.append("_5F");
+                case '^' -> sb.append("_5E");
+                case '~' -> sb.append("_7E");
+                case '\n', '\r' -> sb.append(' ');
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
 
-        return generarEtiquetas(productosIds, 1);
+    private static String escaparEpl(String texto) {
+        return texto.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace('\n', ' ')
+                .replace('\r', ' ');
     }
 }
\ No newline at end of file
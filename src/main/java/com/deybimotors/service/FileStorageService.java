@@ -1,6 +1,8 @@
 package com.deybimotors.service;
 
+import com.deybimotors.almacenamiento.AlmacenamientoLocal;
 import com.deybimotors.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -8,26 +10,55 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
 /**
  * Servicio para gestión de archivos
  * Guarda archivos en el servidor y retorna la ruta
+ * Las imágenes se guardan por contenido (SHA-256): el mismo archivo subido
+ * para varios productos se guarda una sola vez y su URL nunca cambia de contenido.
+ * Las reservas de imágenes recién subidas viven solo en la memoria de esta JVM:
+ * con varios nodos sobre el mismo directorio, una eliminación en otro nodo no las ve
+ * y solo la protegen las referencias en BD.
+ * Los archivos se escriben primero en un directorio hermano del de imágenes (fuera de lo
+ * que sirve /uploads/**, en el mismo disco) y se mueven ya completos a su ruta final.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
+    // Documentos: mismo backend local que usa el almacenamiento de facturas
+    private final AlmacenamientoLocal almacenamientoLocalDocumentos;
+
     @Value("${file.upload-dir}")
     private String imageUploadDir;
 
     @Value("${file.documents-dir}")
     private String documentsUploadDir;
 
+    // Una imagen recién guardada o reutilizada no se elimina durante este tiempo
+    // (su subida aún no registró la compensación ni la referencia en BD)
+    @Value("${imagenes.reserva-ms:120000}")
+    private long reservaMs;
+
     // Extensiones permitidas para documentos
     private static final String[] ALLOWED_EXTENSIONS = {
             "pdf", "jpg", "jpeg", "png", "doc", "docx", "xls", "xlsx"
@@ -36,6 +67,38 @@ public class FileStorageService {
     // Tamaño máximo: 10MB
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
 
+    // Variantes reducidas que se guardan junto a cada imagen original
+    public static final String VARIANTE_MINIATURA = "miniatura";
+    public static final String VARIANTE_MEDIANA = "mediana";
+    private static final List<String> VARIANTES = List.of(VARIANTE_MINIATURA, VARIANTE_MEDIANA);
+
+    private static final int MAX_RESERVAS = 10_000;
+
+    private final Map<String, Long> reservas = new ConcurrentHashMap<>();
+
+    // Serializa guardar/eliminar sobre una misma ruta
+    private final Object[] candados = crearCandados(64);
+
+    /**
+     * Resultado de eliminar una imagen compartida
+     * Con diferidaHasta, la imagen está reservada por otra subida: se vuelve a
+     * intentar a esa hora y no cuenta como fallo.
+     */
+    public record ResultadoEliminacion(boolean completada, LocalDateTime diferidaHasta) {
+
+        public static ResultadoEliminacion de(boolean completada) {
+            return new ResultadoEliminacion(completada, null);
+        }
+
+        public static ResultadoEliminacion reservada(LocalDateTime hasta) {
+            return new ResultadoEliminacion(false, hasta);
+        }
+
+        public boolean diferida() {
+            return diferidaHasta != null;
+        }
+    }
+
     /**
      * Guardar documento (facturas, comprobantes, etc.)
      */
@@ -44,24 +107,21 @@ public class FileStorageService {
         // Validar archivo
         validarArchivo(archivo);
 
-        // Crear directorio si no existe
-        Path uploadPath = Paths.get(documentsUploadDir, subdirectorio);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-            log.info("✅ Directorio creado: {}", uploadPath);
-        }
-
         // Generar nombre único para el archivo
         String nombreOriginal = StringUtils.cleanPath(archivo.getOriginalFilename());
         String extension = obtenerExtension(nombreOriginal);
         String nombreUnico = UUID.randomUUID().toString() + "." + extension;
 
-        // Guardar archivo
-        Path rutaDestino = uploadPath.resolve(nombreUnico);
-        Files.copy(archivo.getInputStream(), rutaDestino, StandardCopyOption.REPLACE_EXISTING);
-
-        // ✅ CORRECCIÓN: Retornar ruta completa con prefijo
-        String rutaRelativa = "uploads/documents/" + subdirectorio + "/" + nombreUnico;
+        // Guardar archivo (retorna la ruta con prefijo "uploads/documents/")
+        Path temporal = Files.createTempFile("documento-", ".tmp");
+        String rutaRelativa;
+        try {
+            archivo.transferTo(temporal);
+            rutaRelativa = almacenamientoLocalDocumentos.guardar(
+                    subdirectorio, nombreUnico, temporal, archivo.getContentType());
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
 
         log.info("✅ Archivo guardado: {}", rutaRelativa);
         return rutaRelativa;
@@ -82,52 +142,189 @@ public class FileStorageService {
             log.info("✅ Directorio creado: {}", uploadPath);
         }
 
-        // Generar nombre único
         String nombreOriginal = StringUtils.cleanPath(archivo.getOriginalFilename());
         String extension = obtenerExtension(nombreOriginal);
-        String nombreUnico = UUID.randomUUID().toString() + "." + extension;
+        if (extension.equals("jpeg")) {
+            extension = "jpg";
+        }
 
-        // Guardar archivo
-        Path rutaDestino = uploadPath.resolve(nombreUnico);
-        Files.copy(archivo.getInputStream(), rutaDestino, StandardCopyOption.REPLACE_EXISTING);
+        // Copiar a un temporal (no publicado) calculando el SHA-256 mientras se lee
+        Path temporal = nuevoTemporal();
+        MessageDigest digest = nuevoDigest();
+        try (InputStream entrada = new DigestInputStream(archivo.getInputStream(), digest)) {
+            Files.copy(entrada, temporal);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
 
-        // ✅ CORRECCIÓN: Retornar ruta completa con prefijo
-        String rutaRelativa = "uploads/images/" + subdirectorio + "/" + nombreUnico;
+        // Nombre = hash del contenido, en subdirectorios ab/cd/ para no saturar un solo directorio
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String relativa = subdirectorio + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+        String rutaRelativa = "uploads/images/" + relativa;
+        Path rutaDestino = Paths.get(imageUploadDir, relativa);
+
+        synchronized (candado(rutaRelativa)) {
+            reservar(rutaRelativa);
+            if (Files.exists(rutaDestino)) {
+                Files.delete(temporal);
+                log.info("♻️ Imagen ya almacenada, se reutiliza: {}", rutaRelativa);
+                return rutaRelativa;
+            }
+
+            mover(temporal, rutaDestino);
+        }
 
         log.info("✅ Imagen guardada: {}", rutaRelativa);
         return rutaRelativa;
     }
 
+    /**
+     * Eliminar una imagen solo si ya nadie la referencia
+     * Si otra subida la reutilizó hace poco, se difiere hasta que venza su reserva.
+     */
+    public ResultadoEliminacion eliminarImagenSinReferencias(String rutaRelativa, BooleanSupplier enUso) {
+        synchronized (candado(rutaRelativa)) {
+            Long reservadaHasta = reservas.get(rutaRelativa);
+            if (reservadaHasta != null && reservadaHasta > System.currentTimeMillis()) {
+                return ResultadoEliminacion.reservada(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(reservadaHasta), ZoneId.systemDefault()));
+            }
+            reservas.remove(rutaRelativa);
+
+            if (enUso.getAsBoolean()) {
+                log.info("ℹ️ Imagen aún referenciada, se conserva: {}", rutaRelativa);
+                return ResultadoEliminacion.de(true);
+            }
+            return ResultadoEliminacion.de(eliminarArchivo(rutaRelativa));
+        }
+    }
+
     /**
      * Eliminar archivo
+     * Retorna false solo si el archivo existe y no se pudo borrar (para reintentar)
      */
-    public void eliminarArchivo(String rutaRelativa) {
+    public boolean eliminarArchivo(String rutaRelativa) {
+        // Documentos
+        if (almacenamientoLocalDocumentos.admite(rutaRelativa)) {
+            return almacenamientoLocalDocumentos.eliminar(rutaRelativa);
+        }
+
         try {
-            // ✅ CORRECCIÓN: Extraer la ruta sin el prefijo "uploads/documents/" o "uploads/images/"
-            String rutaSinPrefijo = rutaRelativa
-                    .replace("uploads/documents/", "")
-                    .replace("uploads/images/", "");
-
-            // Intentar eliminar de documentos
-            Path rutaDocumento = Paths.get(documentsUploadDir, rutaSinPrefijo);
-            if (Files.exists(rutaDocumento)) {
-                Files.delete(rutaDocumento);
-                log.info("✅ Archivo eliminado: {}", rutaRelativa);
-                return;
-            }
+            // ✅ CORRECCIÓN: Extraer la ruta sin el prefijo "uploads/images/"
+            String rutaSinPrefijo = rutaRelativa.replace("uploads/images/", "");
 
-            // Intentar eliminar de imágenes
+            // Intentar eliminar de imágenes (con sus variantes)
             Path rutaImagen = Paths.get(imageUploadDir, rutaSinPrefijo);
+            eliminarVariantes(rutaRelativa);
             if (Files.exists(rutaImagen)) {
                 Files.delete(rutaImagen);
                 log.info("✅ Imagen eliminada: {}", rutaRelativa);
-                return;
+                return true;
             }
 
             log.warn("⚠️ Archivo no encontrado: {}", rutaRelativa);
+            return true;
 
         } catch (IOException e) {
             log.error("❌ Error al eliminar archivo: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ruta de una variante junto a su original
+     * uploads/images/productos/abc.png -> uploads/images/productos/abc_miniatura.jpg
+     */
+    public static String rutaVariante(String rutaOriginal, String variante) {
+        int punto = rutaOriginal.lastIndexOf('.');
+        String base = punto > rutaOriginal.lastIndexOf('/') ? rutaOriginal.substring(0, punto) : rutaOriginal;
+        return base + "_" + variante + ".jpg";
+    }
+
+    /**
+     * Archivo en disco de una imagen (original o variante)
+     */
+    public Path resolverImagen(String rutaRelativa) {
+        return Paths.get(imageUploadDir, rutaRelativa.replace("uploads/images/", ""));
+    }
+
+    /**
+     * Indica si ya existe una variante (el mismo contenido se procesó antes)
+     */
+    public boolean existeVariante(String rutaOriginal, String variante) {
+        return Files.exists(resolverImagen(rutaVariante(rutaOriginal, variante)));
+    }
+
+    /**
+     * Guardar una variante ya codificada junto a su original
+     */
+    public String guardarVariante(String rutaOriginal, String variante, byte[] contenido) throws IOException {
+        String ruta = rutaVariante(rutaOriginal, variante);
+        Path temporal = nuevoTemporal();
+        try {
+            Files.write(temporal, contenido);
+            mover(temporal, resolverImagen(ruta));
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        return ruta;
+    }
+
+    /**
+     * Temporal en uploads/images-subidas (hermano de file.upload-dir): nunca se sirve por HTTP
+     */
+    private Path nuevoTemporal() throws IOException {
+        Path base = Paths.get(imageUploadDir).toAbsolutePath().normalize();
+        Path directorio = base.resolveSibling(base.getFileName() + "-subidas");
+        Files.createDirectories(directorio);
+        return directorio.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    // Mismo disco que el destino: el archivo aparece completo o no aparece
+    private static void mover(Path temporal, Path destino) throws IOException {
+        Files.createDirectories(destino.getParent());
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void reservar(String rutaRelativa) {
+        long ahora = System.currentTimeMillis();
+        if (reservas.size() >= MAX_RESERVAS) {
+            reservas.values().removeIf(hasta -> hasta <= ahora);
+        }
+        reservas.put(rutaRelativa, ahora + reservaMs);
+    }
+
+    private Object candado(String rutaRelativa) {
+        return candados[Math.floorMod(rutaRelativa.hashCode(), candados.length)];
+    }
+
+    private static Object[] crearCandados(int cantidad) {
+        Object[] candados = new Object[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            candados[i] = new Object();
+        }
+        return candados;
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private void eliminarVariantes(String rutaOriginal) throws IOException {
+        if (!rutaOriginal.startsWith("uploads/images/")) {
+            return;
+        }
+        for (String variante : VARIANTES) {
+            Files.deleteIfExists(resolverImagen(rutaVariante(rutaOriginal, variante)));
         }
     }
 
@@ -0,0 +1,346 @@
+package com.deybimotors.service;
+
+import com.deybimotors.config.IdentidadNodo;
+import com.deybimotors.dto.ImportDTO;
+import com.deybimotors.entity.ImportacionError;
+import com.deybimotors.entity.ImportacionJob;
+import com.deybimotors.exception.ResourceNotFoundException;
+import com.deybimotors.exception.ServiceUnavailableException;
+import com.deybimotors.repository.ImportacionErrorRepository;
+import com.deybimotors.repository.ImportacionJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de Jobs de Importación - RF-028
+ * El Excel se guarda en disco y se procesa en el pool de importaciones por bloques.
+ * Cada bloque se confirma junto con el checkpoint (ultimaFilaProcesada), así que
+ * al reiniciar el nodo los jobs PENDIENTE/EN_PROCESO continúan desde la última fila confirmada.
+ * Con varios nodos, cada job se reclama con un UPDATE condicional antes de ejecutarlo:
+ * lo procesa un solo nodo, que renueva su asignación en cada bloque. Si ese nodo cae,
+ * otro lo retoma cuando vence la asignación (import.asignacion-min).
+ * El nodo se identifica con {@link IdentidadNodo} (estable): al reiniciar
+ * reclama de inmediato sus propios jobs. El Excel queda en el disco del nodo que lo
+ * recibió; otro nodo solo retoma jobs cuyo archivo puede leer (file.imports-dir compartido).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    private final ImportacionJobRepository jobRepository;
+    private final ImportacionErrorRepository errorRepository;
+    private final ImportService importService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor importExecutor;
+    private final IdentidadNodo identidadNodo;
+
+    private static final List<ImportacionJob.EstadoJob> ESTADOS_REANUDABLES =
+            List.of(ImportacionJob.EstadoJob.PENDIENTE, ImportacionJob.EstadoJob.EN_PROCESO);
+
+    // Jobs encolados o en ejecución en este nodo (evita doble ejecución)
+    private final Set<Long> enEjecucion = ConcurrentHashMap.newKeySet();
+
+    @Value("${file.imports-dir:./uploads/imports}")
+    private String importsDir;
+
+    @Value("${import.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${import.asignacion-min:10}")
+    private long asignacionMin;
+
+    /**
+     * Registrar un nuevo job: guardar el archivo en disco y encolarlo
+     */
+    public ImportDTO.ImportJobResponse enviar(MultipartFile archivo, String username) throws IOException {
+
+        Path directorio = Paths.get(importsDir);
+        if (!Files.exists(directorio)) {
+            Files.createDirectories(directorio);
+            log.info("✅ Directorio creado: {}", directorio);
+        }
+
+        String nombreOriginal = StringUtils.cleanPath(archivo.getOriginalFilename());
+        String extension = nombreOriginal.substring(nombreOriginal.lastIndexOf(".") + 1).toLowerCase();
+        Path destino = directorio.resolve(UUID.randomUUID() + "." + extension);
+        Files.copy(archivo.getInputStream(), destino, StandardCopyOption.REPLACE_EXISTING);
+
+        ImportacionJob job = new ImportacionJob();
+        job.setNombreArchivo(nombreOriginal);
+        job.setRutaArchivo(destino.toString());
+        job.setUsername(username);
+        job.setEstado(ImportacionJob.EstadoJob.PENDIENTE);
+        job.setNodo(identidadNodo.getId());
+        job.setAsignadoHasta(LocalDateTime.now().plusMinutes(asignacionMin));
+        ImportacionJob guardado = jobRepository.save(job);
+
+        try {
+            programar(guardado.getId());
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(destino);
+            guardado.setEstado(ImportacionJob.EstadoJob.FALLIDO);
+            guardado.setMensajeError("Cola de importaciones llena");
+            jobRepository.save(guardado);
+            throw new ServiceUnavailableException("La cola de importaciones está llena. Intente nuevamente en unos minutos");
+        }
+
+        log.info("📥 Job de importación {} encolado: {}", guardado.getId(), nombreOriginal);
+        return convertirADTO(guardado, List.of());
+    }
+
+    public ImportDTO.ImportJobResponse obtenerEstado(Long jobId) {
+        ImportacionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job de importación no encontrado con ID: " + jobId));
+        return convertirADTO(job, errorRepository.findTop500ByJobIdOrderByFilaAsc(jobId));
+    }
+
+    public List<ImportDTO.ImportJobResponse> listarRecientes() {
+        return jobRepository.findTop20ByOrderByFechaCreacionDesc().stream()
+                .map(job -> convertirADTO(job, List.of()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reanudar jobs interrumpidos: al iniciar y periódicamente (jobs de un nodo caído)
+     * Solo se ejecutan los que este nodo puede leer y logra reclamar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${import.barrido-ms:60000}",
+            fixedDelayString = "${import.barrido-ms:60000}"
+    )
+    public void reanudarPendientes() {
+        List<ImportacionJob> pendientes = jobRepository.findByEstadoInOrderByIdAsc(ESTADOS_REANUDABLES);
+
+        for (ImportacionJob job : pendientes) {
+            if (enEjecucion.contains(job.getId()) || !archivoAccesible(job) || !reclamar(job.getId())) {
+                continue;
+            }
+            try {
+                programar(job.getId());
+                log.info("🔁 Job de importación {} reanudado desde la fila {}", job.getId(), job.getUltimaFilaProcesada() + 1);
+            } catch (RejectedExecutionException e) {
+                // Que lo tome otro nodo (o este en el próximo barrido)
+                transactionTemplate.executeWithoutResult(status -> jobRepository.liberar(job.getId(), identidadNodo.getId()));
+                log.warn("⚠️ Cola de importaciones llena, quedan jobs pendientes por reanudar");
+                break;
+            }
+        }
+    }
+
+    /**
+     * Un job propio (o sin dueño) se reclama siempre: si perdió su archivo, falla en vez de quedar pendiente.
+     * El de otro nodo, solo si su archivo se ve desde aquí.
+     */
+    private boolean archivoAccesible(ImportacionJob job) {
+        return job.getNodo() == null || job.getNodo().equals(identidadNodo.getId())
+                || Files.isReadable(Paths.get(job.getRutaArchivo()));
+    }
+
+    private boolean reclamar(Long jobId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Integer reclamados = transactionTemplate.execute(status -> jobRepository.reclamar(
+                jobId, identidadNodo.getId(), ahora.plusMinutes(asignacionMin), ahora, ESTADOS_REANUDABLES));
+        return reclamados != null && reclamados > 0;
+    }
+
+    private boolean renovar(Long jobId) {
+        Integer renovados = transactionTemplate.execute(status ->
+                jobRepository.renovar(jobId, identidadNodo.getId(), LocalDateTime.now().plusMinutes(asignacionMin)));
+        return renovados != null && renovados > 0;
+    }
+
+    private void programar(Long jobId) {
+        if (!enEjecucion.add(jobId)) {
+            return;
+        }
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    ejecutar(jobId);
+                } finally {
+                    enEjecucion.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enEjecucion.remove(jobId);
+            throw e;
+        }
+    }
+
+    private void ejecutar(Long jobId) {
+
+        ImportacionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) return;
+
+        Path archivo = Paths.get(job.getRutaArchivo());
+        if (!Files.exists(archivo)) {
+            marcarFallido(jobId, "Archivo no encontrado: " + job.getNombreArchivo());
+            return;
+        }
+
+        try (Workbook workbook = WorkbookFactory.create(archivo.toFile(), null, true)) {
+
+            Sheet sheet = workbook.getSheetAt(0);
+            int ultimaFila = sheet.getLastRowNum();
+
+            job.setEstado(ImportacionJob.EstadoJob.EN_PROCESO);
+            job.setTotalFilas(ultimaFila);
+            if (job.getFechaInicio() == null) {
+                job.setFechaInicio(LocalDateTime.now());
+            }
+            jobRepository.save(job);
+
+            // La fila 0 es la cabecera; el checkpoint inicial es 0
+            int desde = job.getUltimaFilaProcesada() + 1;
+            while (desde <= ultimaFila) {
+                if (!renovar(jobId)) {
+                    log.warn("⚠️ Job de importación {} reclamado por otro nodo, se detiene en la fila {}", jobId, desde);
+                    return;
+                }
+                int hasta = Math.min(desde + chunkSize - 1, ultimaFila);
+                procesarBloque(jobId, sheet, desde, hasta);
+                desde = hasta + 1;
+            }
+
+            ImportacionJob terminado = jobRepository.findById(jobId).orElseThrow();
+            terminado.setEstado(ImportacionJob.EstadoJob.COMPLETADO);
+            terminado.setFechaFin(LocalDateTime.now());
+            jobRepository.save(terminado);
+
+            Files.deleteIfExists(archivo);
+
+            log.info("✅ Job de importación {} completado: {} exitosos, {} errores",
+                    jobId, terminado.getFilasExitosas(), terminado.getFilasFallidas());
+
+        } catch (Exception e) {
+            log.error("❌ Error en job de importación {}: {}", jobId, e.getMessage(), e);
+            marcarFallido(jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Procesar un bloque de filas en una sola transacción junto con su checkpoint.
+     * Si una fila deja la transacción marcada para rollback, el bloque se
+     * reprocesa fila por fila para aislar la fila culpable.
+     */
+    private void procesarBloque(Long jobId, Sheet sheet, int desde, int hasta) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    aplicarFilas(jobId, sheet, desde, hasta, new ImportService.ImportResult()));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Bloque {}-{} del job {} revertido, reprocesando fila por fila: {}",
+                    desde, hasta, jobId, e.getMessage());
+
+            for (int fila = desde; fila <= hasta; fila++) {
+                int filaActual = fila;
+                ImportService.ImportResult resultado = new ImportService.ImportResult();
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            aplicarFilas(jobId, sheet, filaActual, filaActual, resultado));
+                } catch (RuntimeException ex) {
+                    List<ImportService.ErrorFila> errores = resultado.tieneErrores()
+                            ? resultado.getErroresPorFila()
+                            : List.of(new ImportService.ErrorFila(filaActual, "Error al procesar: " + ex.getMessage()));
+                    transactionTemplate.executeWithoutResult(status ->
+                            registrarCheckpoint(jobId, filaActual, 0, errores));
+                }
+            }
+        }
+    }
+
+    private void aplicarFilas(Long jobId, Sheet sheet, int desde, int hasta, ImportService.ImportResult resultado) {
+        for (int i = desde; i <= hasta; i++) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue;
+            importService.procesarFila(row, i, resultado);
+        }
+        registrarCheckpoint(jobId, hasta, resultado.getProductosImportados(), resultado.getErroresPorFila());
+    }
+
+    private void registrarCheckpoint(Long jobId, int ultimaFila, int exitosas, List<ImportService.ErrorFila> errores) {
+        ImportacionJob job = jobRepository.findById(jobId).orElseThrow();
+        job.setUltimaFilaProcesada(ultimaFila);
+        job.setFilasExitosas(job.getFilasExitosas() + exitosas);
+        job.setFilasFallidas(job.getFilasFallidas() + errores.size());
+        jobRepository.save(job);
+
+        errorRepository.saveAll(errores.stream()
+                .map(e -> new ImportacionError(null, jobId, e.fila(), recortar(e.mensaje())))
+                .collect(Collectors.toList()));
+    }
+
+    private void marcarFallido(Long jobId, String mensaje) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setEstado(ImportacionJob.EstadoJob.FALLIDO);
+            job.setMensajeError(recortar(mensaje));
+            job.setFechaFin(LocalDateTime.now());
+            jobRepository.save(job);
+        });
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) return null;
+        return mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje;
+    }
+
+    private ImportDTO.ImportJobResponse convertirADTO(ImportacionJob job, List<ImportacionError> errores) {
+
+        Double filasPorSegundo = null;
+        if (job.getFechaInicio() != null) {
+            LocalDateTime fin = job.getFechaFin() != null ? job.getFechaFin() : LocalDateTime.now();
+            long millis = Duration.between(job.getFechaInicio(), fin).toMillis();
+            if (millis > 0) {
+                filasPorSegundo = Math.round(job.getFilasProcesadas() * 100_000.0 / millis) / 100.0;
+            }
+        }
+
+        return new ImportDTO.ImportJobResponse(
+                job.getId(),
+                job.getNombreArchivo(),
+                job.getEstado().name(),
+                job.getUsername(),
+                job.getTotalFilas(),
+                job.getUltimaFilaProcesada(),
+                job.getFilasProcesadas(),
+                job.getFilasExitosas(),
+                job.getFilasFallidas(),
+                filasPorSegundo,
+                job.getMensajeError(),
+                job.getFechaCreacion(),
+                job.getFechaInicio(),
+                job.getFechaFin(),
+                errores.stream()
+                        .map(e -> new ImportDTO.ErrorFilaInfo(e.getFila(), e.getMensaje()))
+                        .collect(Collectors.toList())
+        );
+    }
+}
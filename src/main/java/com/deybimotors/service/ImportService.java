@@ -3,25 +3,35 @@ package com.deybimotors.service;
 import com.deybimotors.entity.*;
 import com.deybimotors.exception.BadRequestException;
 import com.deybimotors.repository.*;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio de Importación - ✅ ACTUALIZADO
  * ❌ SIN stockMinimo en importación
  * Formato Excel: CODIGO | NOMBRE | CATEGORIA | SUBCATEGORIA | MARCA | PRECIO_VENTA | SEDE
+ * Formato lista de precios: CODIGO | PRECIO_COSTO | PRECIO_VENTA | CODIGO_PRECIO | PUBLICO_CATALOGO
  */
 @Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
 @RequiredArgsConstructor
 @Slf4j
 public class ImportService {
@@ -31,6 +41,11 @@ public class ImportService {
     private final SubcategoriaRepository subcategoriaRepository;
     private final MarcaRepository marcaRepository;
     private final SedeRepository sedeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int BATCH_SIZE = 1000;
 
     @Transactional
     public ImportResult importarProductosDesdeExcel(MultipartFile archivo) throws IOException {
@@ -40,110 +55,247 @@ public class ImportService {
         Workbook workbook = new XSSFWorkbook(archivo.getInputStream());
         Sheet sheet = workbook.getSheetAt(0);
 
-        int filaActual = 1;
-
         for (Row row : sheet) {
 
             if (row.getRowNum() == 0) continue;
 
-            try {
+            procesarFila(row, row.getRowNum(), resultado);
+        }
 
-                String codigo = getCellValueAsString(row.getCell(0));
-                String nombre = getCellValueAsString(row.getCell(1));
-                String categoriaNombre = getCellValueAsString(row.getCell(2));
-                String subcategoriaNombre = getCellValueAsString(row.getCell(3));
-                String marcaNombre = getCellValueAsString(row.getCell(4));
-                String precioVentaStr = getCellValueAsString(row.getCell(5));
-                String sedeNombre = getCellValueAsString(row.getCell(6));
-
-                if (codigo == null || codigo.isEmpty()) {
-                    resultado.agregarError(filaActual, "Código es obligatorio");
-                    filaActual++;
-                    continue;
-                }
+        workbook.close();
 
-                if (nombre == null || nombre.isEmpty()) {
-                    resultado.agregarError(filaActual, "Nombre es obligatorio");
-                    filaActual++;
-                    continue;
-                }
+        log.info("Importación completada: {} exitosos, {} errores",
+                resultado.getProductosImportados(), resultado.getErrores().size());
 
-                if (productoRepository.existsByCodigo(codigo)) {
-                    resultado.agregarError(filaActual, "El código " + codigo + " ya existe");
-                    filaActual++;
-                    continue;
-                }
+        return resultado;
+    }
 
-                Categoria categoria = categoriaRepository.findByNombre(categoriaNombre)
-                        .orElseGet(() -> {
-                            Categoria nuevaCategoria = new Categoria();
-                            nuevaCategoria.setNombre(categoriaNombre);
-                            nuevaCategoria.setActivo(true);
-                            return categoriaRepository.save(nuevaCategoria);
-                        });
+    /**
+     * Importar lista de precios de proveedor (actualización masiva por código interno)
+     * Las filas se cargan en una tabla temporal y se aplican con UPDATE ... JOIN,
+     * sin cargar ni guardar entidades Producto una por una.
+     * Celdas vacías no modifican el valor actual del producto.
+     * Las escrituras sobre tablas mapeadas van por Hibernate (SQL nativo con sus entidades
+     * declaradas) para que invalide la caché de segundo nivel y de consultas al confirmar.
+     */
+    @Transactional
+    public PriceListResult importarListaPreciosDesdeExcel(MultipartFile archivo) throws IOException {
 
-                Subcategoria subcategoria = null;
-                if (subcategoriaNombre != null && !subcategoriaNombre.isEmpty()) {
-                    subcategoria = subcategoriaRepository.findByNombreAndCategoriaId(subcategoriaNombre, categoria.getId())
-                            .orElseGet(() -> {
-                                Subcategoria nuevaSubcategoria = new Subcategoria();
-                                nuevaSubcategoria.setNombre(subcategoriaNombre);
-                                nuevaSubcategoria.setCategoria(categoria);
-                                nuevaSubcategoria.setActivo(true);
-                                return subcategoriaRepository.save(nuevaSubcategoria);
-                            });
-                }
+        PriceListResult resultado = new PriceListResult();
 
-                Marca marca = marcaRepository.findByNombre(marcaNombre)
-                        .orElseGet(() -> {
-                            Marca nuevaMarca = new Marca();
-                            nuevaMarca.setNombre(marcaNombre);
-                            nuevaMarca.setActivo(true);
-                            return marcaRepository.save(nuevaMarca);
-                        });
+        // Última fila gana si un código se repite en el archivo
+        Map<String, Object[]> filas = new LinkedHashMap<>();
+
+        try (Workbook workbook = new XSSFWorkbook(archivo.getInputStream())) {
+            Sheet sheet = workbook.getSheetAt(0);
 
-                Sede sede = sedeRepository.findByNombre(sedeNombre != null ? sedeNombre : "Sede Principal")
-                        .orElseGet(() -> sedeRepository.findAll().stream()
-                                .findFirst()
-                                .orElseThrow(() -> new BadRequestException("No existe ninguna sede")));
+            for (Row row : sheet) {
 
-                Producto producto = new Producto();
-                producto.setCodigoInterno(codigo);
-                producto.setDescripcion(nombre);
-                producto.setCategoria(categoria);
-                producto.setSubcategoria(subcategoria);
-                producto.setMarcaProducto(marca);
-                producto.setSede(sede);
+                if (row.getRowNum() == 0) continue;
+
+                int filaActual = row.getRowNum();
 
                 try {
-                    producto.setPrecioVenta(new BigDecimal(precioVentaStr != null ? precioVentaStr : "0"));
+                    String codigo = getCellValueAsString(row.getCell(0));
+                    if (codigo == null || codigo.isEmpty()) {
+                        resultado.agregarError(filaActual, "Código es obligatorio");
+                        continue;
+                    }
+
+                    String codigoPrecio = getCellValueAsString(row.getCell(3));
+                    if (codigoPrecio != null && codigoPrecio.length() > 20) {
+                        resultado.agregarError(filaActual, "Código de precio excede 20 caracteres");
+                        continue;
+                    }
+
+                    filas.put(codigo, new Object[]{
+                            codigo,
+                            getCellValueAsDecimal(row.getCell(1)),
+                            getCellValueAsDecimal(row.getCell(2)),
+                            codigoPrecio != null && !codigoPrecio.isEmpty() ? codigoPrecio : null,
+                            getCellValueAsFlag(row.getCell(4))
+                    });
+
                 } catch (Exception e) {
-                    producto.setPrecioVenta(BigDecimal.ZERO);
+                    resultado.agregarError(filaActual, "Error al procesar: " + e.getMessage());
                 }
+            }
+        }
 
-                producto.setStock(0);
-                producto.setEstado(true);
+        if (filas.isEmpty()) {
+            return resultado;
+        }
 
-                productoRepository.save(producto);
-                resultado.incrementarExitosos();
+        // Tabla temporal: vive solo en la conexión de esta transacción
+        jdbcTemplate.execute("DROP TEMPORARY TABLE IF EXISTS tmp_lista_precios");
+        jdbcTemplate.execute(
+                "CREATE TEMPORARY TABLE tmp_lista_precios (" +
+                        "codigo_interno VARCHAR(50) NOT NULL PRIMARY KEY, " +
+                        "precio_costo DECIMAL(10,2) NULL, " +
+                        "precio_venta DECIMAL(10,2) NULL, " +
+                        "codigo_precio VARCHAR(20) NULL, " +
+                        "publico_catalogo TINYINT NULL)");
+
+        try {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO tmp_lista_precios " +
+                            "(codigo_interno, precio_costo, precio_venta, codigo_precio, publico_catalogo) " +
+                            "VALUES (?, ?, ?, ?, ?)",
+                    new ArrayList<>(filas.values()),
+                    BATCH_SIZE,
+                    (ps, fila) -> {
+                        ps.setString(1, (String) fila[0]);
+                        ps.setObject(2, fila[1], Types.DECIMAL);
+                        ps.setObject(3, fila[2], Types.DECIMAL);
+                        ps.setObject(4, fila[3], Types.VARCHAR);
+                        ps.setObject(5, fila[4], Types.TINYINT);
+                    });
+
+            // Crear códigos de precio que aún no existen (igual que ProductoService.crear)
+            ejecutarSincronizado(
+                    "INSERT INTO codigos_precio (codigo) " +
+                            "SELECT DISTINCT t.codigo_precio FROM tmp_lista_precios t " +
+                            "LEFT JOIN codigos_precio c ON c.codigo = t.codigo_precio " +
+                            "WHERE t.codigo_precio IS NOT NULL AND c.id IS NULL",
+                    CodigoPrecio.class);
+
+            int actualizados = ejecutarSincronizado(
+                    "UPDATE productos p " +
+                            "JOIN tmp_lista_precios t ON t.codigo_interno = p.codigo_interno " +
+                            "LEFT JOIN codigos_precio c ON c.codigo = t.codigo_precio " +
+                            "SET p.precio_costo = COALESCE(t.precio_costo, p.precio_costo), " +
+                            "p.precio_venta = COALESCE(t.precio_venta, p.precio_venta), " +
+                            "p.codigo_precio_id = COALESCE(c.id, p.codigo_precio_id), " +
+                            "p.publico_catalogo = COALESCE(t.publico_catalogo, p.publico_catalogo)",
+                    Producto.class, CodigoPrecio.class);
+
+            List<String> noEncontrados = jdbcTemplate.queryForList(
+                    "SELECT t.codigo_interno FROM tmp_lista_precios t " +
+                            "LEFT JOIN productos p ON p.codigo_interno = t.codigo_interno " +
+                            "WHERE p.id IS NULL",
+                    String.class);
+
+            resultado.setFilasLeidas(filas.size());
+            resultado.setProductosActualizados(filas.size() - noEncontrados.size());
+            resultado.setFilasModificadas(actualizados);
+            resultado.getNoEncontrados().addAll(noEncontrados);
+
+            // El UPDATE no pasa por entidades: el índice de escaneo relee estos códigos tras el commit
+            eventPublisher.publishEvent(ProductosModificadosEvent.de(filas.keySet()));
+
+        } finally {
+            jdbcTemplate.execute("DROP TEMPORARY TABLE IF EXISTS tmp_lista_precios");
+        }
 
-            } catch (Exception e) {
-                resultado.agregarError(filaActual, "Error al procesar: " + e.getMessage());
-                log.error("Error en fila {}: {}", filaActual, e.getMessage());
-            }
+        log.info("Lista de precios aplicada: {} productos, {} códigos no encontrados, {} errores",
+                resultado.getProductosActualizados(), resultado.getNoEncontrados().size(), resultado.getErrores().size());
 
-            filaActual++;
+        return resultado;
+    }
+
+    /**
+     * Sentencia nativa que declara las entidades que modifica: Hibernate desaloja sus
+     * regiones y marca sus tablas como modificadas (caché de consultas) al confirmar
+     */
+    private int ejecutarSincronizado(String sql, Class<?>... entidades) {
+        NativeQuery<?> consulta = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (Class<?> entidad : entidades) {
+            consulta.addSynchronizedEntityClass(entidad);
         }
+        return consulta.executeUpdate();
+    }
 
-        workbook.close();
+    /**
+     * Procesar una fila del Excel y registrar el resultado.
+     * Compartido entre la importación síncrona y los jobs en segundo plano.
+     */
+    public void procesarFila(Row row, int filaActual, ImportResult resultado) {
+
+        try {
+
+            String codigo = getCellValueAsString(row.getCell(0));
+            String nombre = getCellValueAsString(row.getCell(1));
+            String categoriaNombre = getCellValueAsString(row.getCell(2));
+            String subcategoriaNombre = getCellValueAsString(row.getCell(3));
+            String marcaNombre = getCellValueAsString(row.getCell(4));
+            String precioVentaStr = getCellValueAsString(row.getCell(5));
+            String sedeNombre = getCellValueAsString(row.getCell(6));
+
+            if (codigo == null || codigo.isEmpty()) {
+                resultado.agregarError(filaActual, "Código es obligatorio");
+                return;
+            }
 
-        log.info("Importación completada: {} exitosos, {} errores",
-                resultado.getProductosImportados(), resultado.getErrores().size());
+            if (nombre == null || nombre.isEmpty()) {
+                resultado.agregarError(filaActual, "Nombre es obligatorio");
+                return;
+            }
 
-        return resultado;
+            if (productoRepository.existsByCodigo(codigo)) {
+                resultado.agregarError(filaActual, "El código " + codigo + " ya existe");
+                return;
+            }
+
+            Categoria categoria = categoriaRepository.findByNombre(categoriaNombre)
+                    .orElseGet(() -> {
+                        Categoria nuevaCategoria = new Categoria();
+                        nuevaCategoria.setNombre(categoriaNombre);
+                        nuevaCategoria.setActivo(true);
+                        return categoriaRepository.save(nuevaCategoria);
+                    });
+
+            Subcategoria subcategoria = null;
+            if (subcategoriaNombre != null && !subcategoriaNombre.isEmpty()) {
+                subcategoria = subcategoriaRepository.findByNombreAndCategoriaId(subcategoriaNombre, categoria.getId())
+                        .orElseGet(() -> {
+                            Subcategoria nuevaSubcategoria = new Subcategoria();
+                            nuevaSubcategoria.setNombre(subcategoriaNombre);
+                            nuevaSubcategoria.setCategoria(categoria);
+                            nuevaSubcategoria.setActivo(true);
+                            return subcategoriaRepository.save(nuevaSubcategoria);
+                        });
+            }
+
+            Marca marca = marcaRepository.findByNombre(marcaNombre)
+                    .orElseGet(() -> {
+                        Marca nuevaMarca = new Marca();
+                        nuevaMarca.setNombre(marcaNombre);
+                        nuevaMarca.setActivo(true);
+                        return marcaRepository.save(nuevaMarca);
+                    });
+
+            Sede sede = sedeRepository.findByNombre(sedeNombre != null ? sedeNombre : "Sede Principal")
+                    .orElseGet(() -> sedeRepository.findAll().stream()
+                            .findFirst()
+                            .orElseThrow(() -> new BadRequestException("No existe ninguna sede")));
+
+            Producto producto = new Producto();
+            producto.setCodigoInterno(codigo);
+            producto.setDescripcion(nombre);
+            producto.setCategoria(categoria);
+            producto.setSubcategoria(subcategoria);
+            producto.setMarcaProducto(marca);
+            producto.setSede(sede);
+
+            try {
+                producto.setPrecioVenta(new BigDecimal(precioVentaStr != null ? precioVentaStr : "0"));
+            } catch (Exception e) {
+                producto.setPrecioVenta(BigDecimal.ZERO);
+            }
+
+            producto.setStock(0);
+            producto.setEstado(true);
+
+            productoRepository.save(producto);
+            resultado.incrementarExitosos();
+
+        } catch (Exception e) {
+            resultado.agregarError(filaActual, "Error al procesar: " + e.getMessage());
+            log.error("Error en fila {}: {}", filaActual, e.getMessage());
+        }
     }
 
-    private String getCellValueAsString(Cell cell) {
+    String getCellValueAsString(Cell cell) {
         if (cell == null) return null;
 
         return switch (cell.getCellType()) {
@@ -155,9 +307,35 @@ public class ImportService {
         };
     }
 
+    private BigDecimal getCellValueAsDecimal(Cell cell) {
+        if (cell == null) return null;
+
+        return switch (cell.getCellType()) {
+            case NUMERIC -> BigDecimal.valueOf(cell.getNumericCellValue());
+            case STRING -> {
+                String valor = cell.getStringCellValue().trim().replace(",", ".");
+                yield valor.isEmpty() ? null : new BigDecimal(valor);
+            }
+            case FORMULA -> BigDecimal.valueOf(cell.getNumericCellValue());
+            default -> null;
+        };
+    }
+
+    private Integer getCellValueAsFlag(Cell cell) {
+        String valor = getCellValueAsString(cell);
+        if (valor == null || valor.isEmpty()) return null;
+
+        return switch (valor.toUpperCase()) {
+            case "1", "SI", "SÍ", "TRUE", "S" -> 1;
+            case "0", "NO", "FALSE", "N" -> 0;
+            default -> throw new BadRequestException("Valor inválido para PUBLICO_CATALOGO: " + valor);
+        };
+    }
+
     public static class ImportResult {
         private int productosImportados = 0;
         private final List<String> errores = new ArrayList<>();
+        private final List<ErrorFila> erroresPorFila = new ArrayList<>();
 
         public void incrementarExitosos() {
             this.productosImportados++;
@@ -165,6 +343,7 @@ public class ImportService {
 
         public void agregarError(int fila, String mensaje) {
             this.errores.add("Fila " + fila + ": " + mensaje);
+            this.erroresPorFila.add(new ErrorFila(fila, mensaje));
         }
 
         public int getProductosImportados() {
@@ -175,8 +354,49 @@ public class ImportService {
             return errores;
         }
 
+        public List<ErrorFila> getErroresPorFila() {
+            return erroresPorFila;
+        }
+
         public boolean tieneErrores() {
             return !errores.isEmpty();
         }
     }
+
+    public record ErrorFila(int fila, String mensaje) {}
+
+    public static class PriceListResult extends ImportResult {
+        private int filasLeidas = 0;
+        private int productosActualizados = 0;
+        private int filasModificadas = 0;
+        private final List<String> noEncontrados = new ArrayList<>();
+
+        public int getFilasLeidas() {
+            return filasLeidas;
+        }
+
+        public void setFilasLeidas(int filasLeidas) {
+            this.filasLeidas = filasLeidas;
+        }
+
+        public int getProductosActualizados() {
+            return productosActualizados;
+        }
+
+        public void setProductosActualizados(int productosActualizados) {
+            this.productosActualizados = productosActualizados;
+        }
+
+        public int getFilasModificadas() {
+            return filasModificadas;
+        }
+
+        public void setFilasModificadas(int filasModificadas) {
+            this.filasModificadas = filasModificadas;
+        }
+
+        public List<String> getNoEncontrados() {
+            return noEncontrados;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,519 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.ProductoDTO;
+import com.deybimotors.entity.Producto;
+import com.deybimotors.entity.Sede;
+import com.deybimotors.exception.ResourceNotFoundException;
+import com.deybimotors.repository.ProductoOemRepository;
+import com.deybimotors.repository.ProductoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria para el escaneo en caja (POS)
+ * Código interno y código de marca -> EscaneoResponse inmutable: un escaneo no toca la BD.
+ * - Se carga completo al iniciar (mientras tanto las búsquedas van a la BD) y se recarga
+ *   periódicamente (cambios hechos por otros nodos o fuera de la aplicación)
+ * - Se mantiene con los cambios confirmados de Producto y Sede (listeners post-commit de Hibernate)
+ *   y con ProductosModificadosEvent para las actualizaciones masivas por SQL, que se
+ *   releen en segundo plano (el request que las confirmó no espera ni suma sus consultas)
+ * Solo indexa productos activos. Los códigos no distinguen mayúsculas (igual que la collation de MySQL).
+ * Los códigos OEM no se indexan: en la resolución en lote se buscan con una sola consulta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceEscaneoService implements SmartInitializingSingleton {
+
+    private static final int LOTE = 1000;
+
+    // Más códigos que esto: conviene recargar todo el índice en lugar de releerlos por lotes
+    private static final int MAX_CODIGOS_PARCIAL = 20 * LOTE;
+
+    public static final String TIPO_INTERNO = "INTERNO";
+    public static final String TIPO_MARCA = "MARCA";
+    public static final String TIPO_OEM = "OEM";
+
+    private final ProductoRepository productoRepository;
+    private final ProductoOemRepository productoOemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor indiceEscaneoExecutor;
+
+    // Lecturas sin bloqueo; las escrituras se serializan con synchronized
+    private final Map<Long, ProductoDTO.EscaneoResponse> porId = new ConcurrentHashMap<>();
+    private final Map<String, Long> porCodigo = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> porCodigoMarca = new ConcurrentHashMap<>();
+
+    // Ids modificados mientras corre una carga completa: la carga no los pisa
+    private Set<Long> modificadosDuranteCarga;
+
+    private volatile boolean listo;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        EventListenerRegistry registry = entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        ListenerCambios listener = new ListenerCambios(this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+        Gauge.builder("deybimotors.escaneo.indice.productos", porId, Map::size)
+                .description("Productos en el índice de escaneo en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Escanear un código: interno (exacto) o, si no existe, de marca (puede haber varios)
+     */
+    public List<ProductoDTO.EscaneoResponse> escanear(String codigo) {
+        List<ProductoDTO.EscaneoResponse> resultado = buscar(codigo);
+        if (resultado.isEmpty()) {
+            throw new ResourceNotFoundException("Producto no encontrado con código: " + codigo);
+        }
+        return resultado;
+    }
+
+    public List<ProductoDTO.EscaneoResponse> buscar(String codigo) {
+        String clave = normalizar(codigo);
+        if (clave.isEmpty()) {
+            return List.of();
+        }
+
+        ProductoDTO.CodigoResuelto resuelto = listo
+                ? resolverEnIndice(codigo.trim(), clave)
+                : resolverEnBd(Map.of(clave, codigo.trim())).get(clave);
+
+        return resuelto != null ? resuelto.productos() : List.of();
+    }
+
+    /**
+     * Resolver varios códigos en una llamada (cotizaciones, órdenes de taller)
+     * Interno o de marca desde el índice; los que falten se buscan como OEM en una sola consulta.
+     * Se responden en el orden recibido, sin repetidos.
+     */
+    public ProductoDTO.ResolverCodigosResponse resolver(List<String> codigos) {
+
+        // Clave normalizada -> código tal como llegó
+        Map<String, String> claves = new LinkedHashMap<>();
+        for (String codigo : codigos) {
+            String clave = normalizar(codigo);
+            if (!clave.isEmpty()) {
+                claves.putIfAbsent(clave, codigo.trim());
+            }
+        }
+
+        Map<String, ProductoDTO.CodigoResuelto> resueltos = new HashMap<>();
+        if (listo) {
+            claves.forEach((clave, codigo) -> {
+                ProductoDTO.CodigoResuelto resuelto = resolverEnIndice(codigo, clave);
+                if (resuelto != null) {
+                    resueltos.put(clave, resuelto);
+                }
+            });
+        } else {
+            resueltos.putAll(resolverEnBd(claves));
+        }
+
+        Map<String, String> faltantes = new HashMap<>(claves);
+        faltantes.keySet().removeAll(resueltos.keySet());
+        if (!faltantes.isEmpty()) {
+            resueltos.putAll(resolverOem(faltantes));
+        }
+
+        List<ProductoDTO.CodigoResuelto> encontrados = new ArrayList<>();
+        List<String> noEncontrados = new ArrayList<>();
+        claves.forEach((clave, codigo) -> {
+            ProductoDTO.CodigoResuelto resuelto = resueltos.get(clave);
+            if (resuelto != null) {
+                encontrados.add(resuelto);
+            } else {
+                noEncontrados.add(codigo);
+            }
+        });
+
+        return new ProductoDTO.ResolverCodigosResponse(encontrados, noEncontrados);
+    }
+
+    /**
+     * Carga completa al iniciar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recargar();
+    }
+
+    /**
+     * Recarga completa periódica
+     */
+    @Scheduled(
+            initialDelayString = "${pos.indice.recarga-ms:300000}",
+            fixedDelayString = "${pos.indice.recarga-ms:300000}"
+    )
+    public void recargar() {
+        synchronized (this) {
+            if (modificadosDuranteCarga != null) {
+                return;
+            }
+            modificadosDuranteCarga = new HashSet<>();
+        }
+
+        long inicio = System.currentTimeMillis();
+        try {
+            // Transacción de escritura: se lee del primario (una réplica atrasada dejaría cambios fuera)
+            List<ProductoDTO.EscaneoResponse> productos =
+                    transactionTemplate.execute(status -> productoRepository.listarParaEscaneo());
+
+            synchronized (this) {
+                Set<Long> vigentes = new HashSet<>(productos.size() * 2);
+                for (ProductoDTO.EscaneoResponse producto : productos) {
+                    vigentes.add(producto.id());
+                    if (!modificadosDuranteCarga.contains(producto.id())) {
+                        poner(producto);
+                    }
+                }
+                for (Long id : List.copyOf(porId.keySet())) {
+                    if (!vigentes.contains(id) && !modificadosDuranteCarga.contains(id)) {
+                        quitarClaves(porId.remove(id));
+                    }
+                }
+                listo = true;
+            }
+
+            log.info("✅ Índice de escaneo cargado: {} productos en {} ms",
+                    productos.size(), System.currentTimeMillis() - inicio);
+
+        } catch (RuntimeException e) {
+            log.error("❌ No se pudo cargar el índice de escaneo: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                modificadosDuranteCarga = null;
+            }
+        }
+    }
+
+    /**
+     * Productos modificados con SQL masivo: se releen tras el commit, en el pool del índice
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarProductos(ProductosModificadosEvent evento) {
+        List<String> codigos = List.copyOf(evento.codigosInternos());
+        try {
+            indiceEscaneoExecutor.execute(() -> refrescar(codigos));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Cola del índice de escaneo llena: {} código(s) se recogen en la próxima recarga", codigos.size());
+        }
+    }
+
+    void refrescar(List<String> codigos) {
+        if (codigos.size() > MAX_CODIGOS_PARCIAL) {
+            recargar();
+            return;
+        }
+
+        for (int i = 0; i < codigos.size(); i += LOTE) {
+            List<String> lote = codigos.subList(i, Math.min(i + LOTE, codigos.size()));
+
+            List<Long> ids = transactionTemplate.execute(status -> productoRepository.findIdsByCodigoInternoIn(lote));
+            if (ids.isEmpty()) {
+                continue;
+            }
+            List<ProductoDTO.EscaneoResponse> activos =
+                    transactionTemplate.execute(status -> productoRepository.listarParaEscaneoPorIds(ids));
+
+            Set<Long> idsActivos = activos.stream().map(ProductoDTO.EscaneoResponse::id).collect(Collectors.toSet());
+            activos.forEach(this::indexar);
+            ids.stream().filter(id -> !idsActivos.contains(id)).forEach(this::quitar);
+        }
+
+        log.debug("Índice de escaneo actualizado para {} código(s)", codigos.size());
+    }
+
+    synchronized void indexar(ProductoDTO.EscaneoResponse producto) {
+        marcarModificado(producto.id());
+        poner(producto);
+    }
+
+    synchronized void quitar(Long id) {
+        marcarModificado(id);
+        quitarClaves(porId.remove(id));
+    }
+
+    synchronized void renombrarSede(Long sedeId, String nombre) {
+        for (ProductoDTO.EscaneoResponse producto : List.copyOf(porId.values())) {
+            if (sedeId.equals(producto.sedeId()) && !Objects.equals(nombre, producto.sedeNombre())) {
+                porId.put(producto.id(), new ProductoDTO.EscaneoResponse(producto.id(), producto.codigo(),
+                        producto.codigoMarca(), producto.descripcion(), producto.precioVenta(),
+                        producto.stock(), sedeId, nombre));
+            }
+        }
+    }
+
+    private void marcarModificado(Long id) {
+        if (modificadosDuranteCarga != null) {
+            modificadosDuranteCarga.add(id);
+        }
+    }
+
+    private void poner(ProductoDTO.EscaneoResponse nuevo) {
+        ProductoDTO.EscaneoResponse anterior = porId.put(nuevo.id(), nuevo);
+        if (nuevo.equals(anterior)) {
+            return;
+        }
+
+        String codigo = normalizar(nuevo.codigo());
+        String codigoMarca = normalizar(nuevo.codigoMarca());
+
+        // Primero se agregan las claves nuevas: un escaneo concurrente nunca ve el producto sin claves
+        porCodigo.put(codigo, nuevo.id());
+        if (!codigoMarca.isEmpty()) {
+            porCodigoMarca.merge(codigoMarca, Set.of(nuevo.id()), (actuales, agregado) ->
+                    Stream.concat(actuales.stream(), agregado.stream()).collect(Collectors.toUnmodifiableSet()));
+        }
+
+        if (anterior != null) {
+            String codigoAnterior = normalizar(anterior.codigo());
+            if (!codigoAnterior.equals(codigo)) {
+                porCodigo.remove(codigoAnterior, anterior.id());
+            }
+            String codigoMarcaAnterior = normalizar(anterior.codigoMarca());
+            if (!codigoMarcaAnterior.equals(codigoMarca)) {
+                quitarDeCodigoMarca(codigoMarcaAnterior, anterior.id());
+            }
+        }
+    }
+
+    private void quitarClaves(ProductoDTO.EscaneoResponse producto) {
+        if (producto == null) {
+            return;
+        }
+        porCodigo.remove(normalizar(producto.codigo()), producto.id());
+        quitarDeCodigoMarca(normalizar(producto.codigoMarca()), producto.id());
+    }
+
+    private void quitarDeCodigoMarca(String codigoMarca, Long id) {
+        if (codigoMarca.isEmpty()) {
+            return;
+        }
+        porCodigoMarca.computeIfPresent(codigoMarca, (clave, ids) -> {
+            Set<Long> restantes = ids.stream().filter(actual -> !actual.equals(id)).collect(Collectors.toUnmodifiableSet());
+            return restantes.isEmpty() ? null : restantes;
+        });
+    }
+
+    private ProductoDTO.CodigoResuelto resolverEnIndice(String codigo, String clave) {
+        Long id = porCodigo.get(clave);
+        ProductoDTO.EscaneoResponse producto = id != null ? porId.get(id) : null;
+        if (producto != null) {
+            return new ProductoDTO.CodigoResuelto(codigo, TIPO_INTERNO, List.of(producto));
+        }
+
+        List<ProductoDTO.EscaneoResponse> productos = porCodigoMarca.getOrDefault(clave, Set.of()).stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(ProductoDTO.EscaneoResponse::id))
+                .toList();
+
+        return productos.isEmpty() ? null : new ProductoDTO.CodigoResuelto(codigo, TIPO_MARCA, productos);
+    }
+
+    /**
+     * Índice aún sin cargar: códigos internos y de marca en una sola consulta
+     */
+    private Map<String, ProductoDTO.CodigoResuelto> resolverEnBd(Map<String, String> claves) {
+        Set<String> valores = new HashSet<>(claves.keySet());
+        valores.addAll(claves.values());
+        List<ProductoDTO.EscaneoResponse> encontrados = productoRepository.buscarParaEscaneo(valores);
+
+        Map<String, ProductoDTO.CodigoResuelto> resultado = new HashMap<>();
+        claves.forEach((clave, codigo) -> {
+            List<ProductoDTO.EscaneoResponse> internos = filtrar(encontrados, ProductoDTO.EscaneoResponse::codigo, clave);
+            List<ProductoDTO.EscaneoResponse> deMarca = filtrar(encontrados, ProductoDTO.EscaneoResponse::codigoMarca, clave);
+
+            if (!internos.isEmpty()) {
+                resultado.put(clave, new ProductoDTO.CodigoResuelto(codigo, TIPO_INTERNO, internos));
+            } else if (!deMarca.isEmpty()) {
+                resultado.put(clave, new ProductoDTO.CodigoResuelto(codigo, TIPO_MARCA, deMarca));
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Códigos OEM en una sola consulta; los productos salen del índice si ya está cargado
+     */
+    private Map<String, ProductoDTO.CodigoResuelto> resolverOem(Map<String, String> claves) {
+        Set<String> valores = new HashSet<>(claves.keySet());
+        valores.addAll(claves.values());
+
+        Map<String, Set<Long>> idsPorClave = new HashMap<>();
+        for (ProductoOemRepository.CodigoOemProducto fila : productoOemRepository.buscarProductosPorCodigosOem(valores)) {
+            String clave = normalizar(fila.codigoOem());
+            if (claves.containsKey(clave)) {
+                idsPorClave.computeIfAbsent(clave, k -> new HashSet<>()).add(fila.productoId());
+            }
+        }
+        if (idsPorClave.isEmpty()) {
+            return Map.of();
+        }
+
+        // Con el índice cargado, un id ausente es un producto inactivo
+        Map<Long, ProductoDTO.EscaneoResponse> productos = new HashMap<>();
+        Set<Long> ids = idsPorClave.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+        if (listo) {
+            ids.forEach(id -> {
+                ProductoDTO.EscaneoResponse producto = porId.get(id);
+                if (producto != null) {
+                    productos.put(id, producto);
+                }
+            });
+        } else {
+            productoRepository.listarParaEscaneoPorIds(ids).forEach(producto -> productos.put(producto.id(), producto));
+        }
+
+        Map<String, ProductoDTO.CodigoResuelto> resultado = new HashMap<>();
+        idsPorClave.forEach((clave, idsClave) -> {
+            List<ProductoDTO.EscaneoResponse> deOem = idsClave.stream()
+                    .map(productos::get)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(ProductoDTO.EscaneoResponse::id))
+                    .toList();
+            if (!deOem.isEmpty()) {
+                resultado.put(clave, new ProductoDTO.CodigoResuelto(claves.get(clave), TIPO_OEM, deOem));
+            }
+        });
+        return resultado;
+    }
+
+    private static List<ProductoDTO.EscaneoResponse> filtrar(List<ProductoDTO.EscaneoResponse> productos,
+                                                            Function<ProductoDTO.EscaneoResponse, String> codigo,
+                                                            String clave) {
+        return productos.stream()
+                .filter(producto -> normalizar(codigo.apply(producto)).equals(clave))
+                .sorted(Comparator.comparing(ProductoDTO.EscaneoResponse::id))
+                .toList();
+    }
+
+    private static String normalizar(String codigo) {
+        return codigo == null ? "" : codigo.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static ProductoDTO.EscaneoResponse escaneo(Producto producto) {
+        Sede sede = producto.getSede();
+        return new ProductoDTO.EscaneoResponse(
+                producto.getId(),
+                producto.getCodigoInterno(),
+                producto.getCodigoMarca(),
+                producto.getDescripcion(),
+                producto.getPrecioVenta(),
+                producto.getStock(),
+                sede != null ? sede.getId() : null,
+                sede != null ? sede.getNombre() : null
+        );
+    }
+
+    /**
+     * Aplica al índice los cambios de Producto y Sede una vez confirmada la transacción
+     */
+    static class ListenerCambios implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        private final IndiceEscaneoService indice;
+
+        ListenerCambios(IndiceEscaneoService indice) {
+            this.indice = indice;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            aplicar(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            aplicar(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Producto producto) {
+                indice.quitar(producto.getId());
+            }
+        }
+
+        private void aplicar(Object entidad) {
+            if (entidad instanceof Producto producto) {
+                if (Boolean.TRUE.equals(producto.getEstado())) {
+                    indice.indexar(escaneo(producto));
+                } else {
+                    indice.quitar(producto.getId());
+                }
+            } else if (entidad instanceof Sede sede) {
+                indice.renombrarSede(sede.getId(), sede.getNombre());
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            // Nada que aplicar: el cambio no se confirmó
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            // Nada que aplicar: el cambio no se confirmó
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            // Nada que aplicar: el cambio no se confirmó
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            Class<?> clase = persister.getMappedClass();
+            return Producto.class.isAssignableFrom(clase) || Sede.class.isAssignableFrom(clase);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.deybimotors.service;
+
+/**
+ * Evento publicado al registrar una eliminación o subida de archivo dentro de una transacción
+ * Se ejecuta después del commit, fuera de la transacción
+ */
+public record OperacionAlmacenamientoProgramadaEvent(Long operacionId) {
+}
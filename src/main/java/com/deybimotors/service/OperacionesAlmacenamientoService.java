@@ -0,0 +1,311 @@
+package com.deybimotors.service;
+
+import com.deybimotors.config.IdentidadNodo;
+import com.deybimotors.entity.OperacionAlmacenamiento;
+import com.deybimotors.repository.CompraRepository;
+import com.deybimotors.repository.OperacionAlmacenamientoRepository;
+import com.deybimotors.repository.ProductoImagenRepository;
+import com.deybimotors.repository.ProductoRepository;
+import com.deybimotors.service.FileStorageService.ResultadoEliminacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Almacenamiento en dos fases: la E/S de archivos nunca corre dentro de una transacción
+ * 1. Se sube el archivo sin transacción y se registra su compensación (transacción corta)
+ * 2. Una transacción corta lo referencia en BD y borra la compensación
+ *    - Si falla, la compensación elimina el archivo subido
+ *    - Si no llega a ejecutarse (caída del nodo), el barrido lo elimina pasada la gracia
+ * Los archivos que dejan de referenciarse se eliminan después del commit.
+ * Los documentos con backend remoto se suben primero a disco local; su transferencia
+ * queda registrada en la misma transacción que los referencia y corre en segundo plano.
+ * Toda operación fallida queda en operaciones_almacenamiento y se reintenta con espera creciente.
+ * Con varios nodos, cada operación se reclama con un UPDATE condicional antes de ejecutarla:
+ * la ejecuta un solo nodo; si cae a mitad, otra la retoma al vencer la asignación.
+ * Una imagen reservada por otra subida en curso se retoma al vencer la reserva, sin contar intento.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OperacionesAlmacenamientoService {
+
+    private final OperacionAlmacenamientoRepository operacionRepository;
+    private final ProductoImagenRepository productoImagenRepository;
+    private final ProductoRepository productoRepository;
+    private final CompraRepository compraRepository;
+    private final FileStorageService fileStorageService;
+    private final CloudinaryFileStorageService cloudinaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor almacenamientoExecutor;
+    private final IdentidadNodo identidadNodo;
+
+    // Operaciones encoladas o en ejecución en este nodo
+    private final Set<Long> enEjecucion = ConcurrentHashMap.newKeySet();
+
+    @Value("${almacenamiento.pendientes.gracia-seg:300}")
+    private long graciaSeg;
+
+    @Value("${almacenamiento.pendientes.max-espera-min:60}")
+    private long maxEsperaMin;
+
+    @Value("${almacenamiento.pendientes.asignacion-seg:300}")
+    private long asignacionSeg;
+
+    /**
+     * Fase 1: registrar un archivo recién subido que aún no referencia ninguna fila
+     */
+    public Long registrarCompensacion(OperacionAlmacenamiento.Backend backend, String ruta) {
+        OperacionAlmacenamiento operacion = nueva(backend, ruta, "Subida sin confirmar",
+                LocalDateTime.now().plusSeconds(graciaSeg));
+        return operacionRepository.save(operacion).getId();
+    }
+
+    /**
+     * Fase 2: transacción corta que referencia los archivos subidos
+     * Si falla, los archivos se eliminan y la excepción se propaga.
+     */
+    public <T> T confirmarSubidas(List<Long> compensaciones, Supplier<T> enTransaccion) {
+        try {
+            return transactionTemplate.execute(status -> {
+                T resultado = enTransaccion.get();
+                operacionRepository.deleteAllByIdInBatch(compensaciones);
+                return resultado;
+            });
+        } catch (RuntimeException e) {
+            compensar(compensaciones);
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecutar ya las compensaciones de una subida que no llegó a confirmarse
+     */
+    public void compensar(List<Long> compensaciones) {
+        if (compensaciones.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    operacionRepository.adelantar(compensaciones, LocalDateTime.now()));
+            compensaciones.forEach(this::programar);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Compensación de {} archivo(s) diferida al barrido: {}", compensaciones.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Eliminar un archivo que deja de referenciarse
+     * Se registra en la transacción del llamador y se ejecuta después del commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void programarEliminacion(OperacionAlmacenamiento.Backend backend, String ruta, String motivo) {
+        OperacionAlmacenamiento operacion = operacionRepository.save(nueva(backend, ruta, motivo, LocalDateTime.now()));
+        eventPublisher.publishEvent(new OperacionAlmacenamientoProgramadaEvent(operacion.getId()));
+    }
+
+    /**
+     * Transferir al backend remoto un archivo guardado en disco local
+     * Se registra en la transacción del llamador (la que lo referencia) y se ejecuta después del commit.
+     * Sin efecto si el backend principal es el disco local.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void programarSubida(OperacionAlmacenamiento.Backend backend, String ruta) {
+        if (!cloudinaryService.pendienteDeTransferir(ruta)) {
+            return;
+        }
+        OperacionAlmacenamiento operacion = nueva(backend, ruta, "Transferencia pendiente", LocalDateTime.now());
+        operacion.setTipo(OperacionAlmacenamiento.Tipo.SUBIR);
+        operacionRepository.save(operacion);
+        eventPublisher.publishEvent(new OperacionAlmacenamientoProgramadaEvent(operacion.getId()));
+    }
+
+    @TransactionalEventListener
+    public void alConfirmarTransaccion(OperacionAlmacenamientoProgramadaEvent evento) {
+        programar(evento.operacionId());
+    }
+
+    /**
+     * Barrido periódico: compensaciones vencidas y reintentos
+     */
+    @Scheduled(fixedDelayString = "${almacenamiento.pendientes.intervalo-ms:60000}")
+    public void procesarPendientes() {
+        List<OperacionAlmacenamiento> vencidas =
+                operacionRepository.findTop100ByEjecutarDesdeLessThanEqualOrderByIdAsc(LocalDateTime.now());
+
+        if (!vencidas.isEmpty()) {
+            log.info("🔁 {} operación(es) de almacenamiento pendientes", vencidas.size());
+            vencidas.forEach(operacion -> programar(operacion.getId()));
+        }
+    }
+
+    private void programar(Long operacionId) {
+        if (!enEjecucion.add(operacionId)) {
+            return;
+        }
+        try {
+            almacenamientoExecutor.execute(() -> {
+                try {
+                    ejecutar(operacionId);
+                } finally {
+                    enEjecucion.remove(operacionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queda en la tabla; la toma el siguiente barrido
+            enEjecucion.remove(operacionId);
+            log.debug("Cola de almacenamiento llena, operación {} diferida", operacionId);
+        }
+    }
+
+    void ejecutar(Long operacionId) {
+
+        // Confirmada (subida referenciada), aún dentro de su espera o en ejecución en otro nodo
+        if (!reclamar(operacionId)) {
+            return;
+        }
+        OperacionAlmacenamiento operacion = operacionRepository.findById(operacionId).orElse(null);
+        if (operacion == null) {
+            return;
+        }
+
+        boolean subida = operacion.getTipo() == OperacionAlmacenamiento.Tipo.SUBIR;
+        String error = null;
+        ResultadoEliminacion resultado;
+        try {
+            resultado = subida ? ResultadoEliminacion.de(subir(operacion)) : eliminar(operacion);
+        } catch (IOException | RuntimeException e) {
+            resultado = ResultadoEliminacion.de(false);
+            error = e.getMessage();
+        }
+
+        // Imagen reservada por otra subida: se retoma al vencer la reserva, sin contar intento
+        if (resultado.diferida()) {
+            operacion.setEjecutarDesde(resultado.diferidaHasta());
+            liberar(operacion);
+            operacionRepository.save(operacion);
+            log.debug("Eliminación de {} diferida hasta {}", operacion.getRuta(), resultado.diferidaHasta());
+            return;
+        }
+
+        if (resultado.completada()) {
+            operacionRepository.deleteById(operacionId);
+            if (!subida) {
+                log.info("🗑️ {} eliminado ({}): {}", operacion.getBackend(), operacion.getMotivo(), operacion.getRuta());
+            }
+            return;
+        }
+
+        int intentos = operacion.getIntentos() + 1;
+        long esperaMin = Math.min(maxEsperaMin, 1L << Math.min(intentos, 16));
+        operacion.setIntentos(intentos);
+        operacion.setUltimoError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        operacion.setEjecutarDesde(LocalDateTime.now().plusMinutes(esperaMin));
+        liberar(operacion);
+        operacionRepository.save(operacion);
+
+        log.warn("⚠️ No se pudo {} {} (intento {}), se reintenta en {} min",
+                subida ? "subir" : "eliminar", operacion.getRuta(), intentos, esperaMin);
+    }
+
+    private boolean reclamar(Long operacionId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Integer reclamadas = transactionTemplate.execute(status -> operacionRepository.reclamar(
+                operacionId, identidadNodo.getId(), ahora.plusSeconds(asignacionSeg), ahora));
+        return reclamadas != null && reclamadas > 0;
+    }
+
+    // El próximo intento puede tomarlo cualquier nodo
+    private static void liberar(OperacionAlmacenamiento operacion) {
+        operacion.setNodo(null);
+        operacion.setAsignadoHasta(null);
+    }
+
+    /**
+     * Transferir al backend remoto y reemplazar la referencia local en BD
+     * La copia local se elimina después del commit; si la fila ya no la referencia
+     * (factura reemplazada o eliminada mientras esperaba), se elimina la copia remota.
+     */
+    private boolean subir(OperacionAlmacenamiento operacion) throws IOException {
+        String local = operacion.getRuta();
+
+        // El backend cambió a disco local: el archivo ya está en su lugar definitivo
+        if (!cloudinaryService.pendienteDeTransferir(local)) {
+            log.info("ℹ️ {} queda en disco local", local);
+            return true;
+        }
+
+        String remota;
+        try {
+            remota = cloudinaryService.transferir(local);
+        } catch (NoSuchFileException e) {
+            log.info("ℹ️ {} ya no existe, no se transfiere", local);
+            return true;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                boolean referenciada = compraRepository.reemplazarRutaFactura(local, remota) > 0;
+                programarEliminacion(operacion.getBackend(), referenciada ? local : remota,
+                        referenciada ? "Copia local transferida" : "Subida sin referencias");
+                operacionRepository.deleteById(operacion.getId());
+            });
+        } catch (RuntimeException e) {
+            // El reintento vuelve a subir: la copia remota de este intento sobra
+            cloudinaryService.eliminarArchivo(remota);
+            throw e;
+        }
+
+        log.info("☁️ {} transferido: {} -> {}", operacion.getBackend(), local, remota);
+        return true;
+    }
+
+    private ResultadoEliminacion eliminar(OperacionAlmacenamiento operacion) {
+        return switch (operacion.getBackend()) {
+            case LOCAL -> operacion.getRuta().startsWith("uploads/images/")
+                    ? fileStorageService.eliminarImagenSinReferencias(operacion.getRuta(), () -> enUso(operacion))
+                    : ResultadoEliminacion.de(fileStorageService.eliminarArchivo(operacion.getRuta()));
+            case CLOUDINARY -> ResultadoEliminacion.de(cloudinaryService.eliminarArchivo(operacion.getRuta()));
+        };
+    }
+
+    /**
+     * Las imágenes se comparten por contenido: solo se eliminan sin referencias
+     * Si hay una operación más reciente sobre la misma ruta (p. ej. otra subida en curso), decide esa.
+     */
+    private boolean enUso(OperacionAlmacenamiento operacion) {
+        String ruta = operacion.getRuta();
+        return productoImagenRepository.existsByUrl(ruta)
+                || productoRepository.existsByFotoUrl(ruta)
+                || operacionRepository.existsByRutaAndIdGreaterThan(ruta, operacion.getId());
+    }
+
+    private static OperacionAlmacenamiento nueva(OperacionAlmacenamiento.Backend backend, String ruta,
+                                                 String motivo, LocalDateTime ejecutarDesde) {
+        OperacionAlmacenamiento operacion = new OperacionAlmacenamiento();
+        operacion.setTipo(OperacionAlmacenamiento.Tipo.ELIMINAR);
+        operacion.setBackend(backend);
+        operacion.setRuta(ruta);
+        operacion.setMotivo(motivo);
+        operacion.setEjecutarDesde(ejecutarDesde);
+        return operacion;
+    }
+}
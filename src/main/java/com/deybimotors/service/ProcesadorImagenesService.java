@@ -0,0 +1,265 @@
+package com.deybimotors.service;
+
+import com.deybimotors.entity.OperacionAlmacenamiento;
+import com.deybimotors.exception.ServiceUnavailableException;
+import com.deybimotors.repository.ProductoImagenRepository;
+import com.deybimotors.repository.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ingesta de imágenes de producto
+ * - Los originales de un lote se guardan en paralelo en un pool acotado (el request espera el lote)
+ * - Las variantes (miniatura y mediana en JPEG) se generan en segundo plano después del commit
+ *   y se registran en producto_imagenes y en la foto del producto
+ * Mientras una imagen no tiene variantes, las respuestas usan la original.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcesadorImagenesService {
+
+    private final FileStorageService fileStorageService;
+    private final OperacionesAlmacenamientoService operacionesAlmacenamiento;
+    private final ProductoImagenRepository productoImagenRepository;
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor ingestaImagenesExecutor;
+    private final ThreadPoolExecutor variantesImagenesExecutor;
+
+    @Value("${imagenes.ingesta.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${imagenes.miniatura.lado:240}")
+    private int ladoMiniatura;
+
+    @Value("${imagenes.mediana.lado:800}")
+    private int ladoMediana;
+
+    @Value("${imagenes.calidad-jpeg:0.82}")
+    private float calidadJpeg;
+
+    /**
+     * Original guardado en disco y su compensación (ver OperacionesAlmacenamientoService)
+     */
+    public record ImagenGuardada(String ruta, Long compensacion) {}
+
+    /**
+     * Guardar los originales en paralelo, conservando el orden del lote
+     * Si alguno falla, compensa los ya guardados y propaga el error
+     */
+    public List<ImagenGuardada> guardarOriginales(List<MultipartFile> archivos, String subdirectorio) throws IOException {
+
+        List<Future<ImagenGuardada>> futuros = new ArrayList<>();
+        Throwable error = null;
+
+        try {
+            for (MultipartFile archivo : archivos) {
+                futuros.add(ingestaImagenesExecutor.submit(() -> guardarOriginal(archivo, subdirectorio)));
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Pool de ingesta de imágenes saturado ({} en cola)", ingestaImagenesExecutor.getQueue().size());
+            error = new ServiceUnavailableException("El servidor está procesando muchas imágenes. Intente nuevamente en unos segundos");
+        }
+
+        // Esperar todo lo encolado (aunque algo falle) para poder compensarlo
+        List<ImagenGuardada> guardadas = new ArrayList<>();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Future<ImagenGuardada> futuro : futuros) {
+            try {
+                guardadas.add(futuro.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                error = error != null ? error : e.getCause();
+            } catch (TimeoutException e) {
+                // Si termina más tarde, su compensación lo elimina pasada la gracia
+                futuro.cancel(true);
+                error = error != null ? error : new ServiceUnavailableException("Tiempo de espera agotado al guardar las imágenes");
+            } catch (InterruptedException e) {
+                futuro.cancel(true);
+                Thread.currentThread().interrupt();
+                error = error != null ? error : new ServiceUnavailableException("Subida de imágenes interrumpida");
+            }
+        }
+
+        if (error == null) {
+            return guardadas;
+        }
+
+        operacionesAlmacenamiento.compensar(guardadas.stream().map(ImagenGuardada::compensacion).toList());
+        if (error instanceof IOException io) {
+            throw io;
+        }
+        if (error instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IllegalStateException(error);
+    }
+
+    private ImagenGuardada guardarOriginal(MultipartFile archivo, String subdirectorio) throws IOException {
+        String ruta = fileStorageService.guardarImagen(archivo, subdirectorio);
+        Long compensacion = operacionesAlmacenamiento.registrarCompensacion(OperacionAlmacenamiento.Backend.LOCAL, ruta);
+        return new ImagenGuardada(ruta, compensacion);
+    }
+
+    /**
+     * Encolar la generación de variantes (llamar después del commit que referencia las imágenes)
+     */
+    public void programarVariantes(List<String> rutas) {
+        for (String ruta : rutas) {
+            try {
+                variantesImagenesExecutor.execute(() -> generarVariantes(ruta));
+            } catch (RejectedExecutionException e) {
+                log.warn("⚠️ Cola de variantes llena, {} se servirá sin miniatura", ruta);
+            }
+        }
+    }
+
+    void generarVariantes(String ruta) {
+        try {
+            String miniatura = FileStorageService.rutaVariante(ruta, FileStorageService.VARIANTE_MINIATURA);
+            String mediana = FileStorageService.rutaVariante(ruta, FileStorageService.VARIANTE_MEDIANA);
+
+            // Imagen reutilizada (mismo contenido): sus variantes ya existen
+            boolean existentes = fileStorageService.existeVariante(ruta, FileStorageService.VARIANTE_MINIATURA)
+                    && fileStorageService.existeVariante(ruta, FileStorageService.VARIANTE_MEDIANA);
+
+            if (!existentes) {
+                BufferedImage original = leer(fileStorageService.resolverImagen(ruta));
+                if (original == null) {
+                    log.warn("⚠️ Formato sin soporte para variantes: {}", ruta);
+                    return;
+                }
+
+                fileStorageService.guardarVariante(ruta, FileStorageService.VARIANTE_MINIATURA,
+                        codificarJpeg(escalar(original, ladoMiniatura)));
+                fileStorageService.guardarVariante(ruta, FileStorageService.VARIANTE_MEDIANA,
+                        codificarJpeg(escalar(original, ladoMediana)));
+            }
+
+            Integer registradas = transactionTemplate.execute(status -> {
+                int filas = productoImagenRepository.registrarVariantes(ruta, miniatura, mediana)
+                        + productoRepository.registrarMiniatura(ruta, miniatura);
+                if (filas == 0) {
+                    // La imagen dejó de usarse mientras se procesaba
+                    operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.LOCAL,
+                            ruta, "Variantes sin referencias");
+                }
+                return filas;
+            });
+
+            if (registradas == null || registradas == 0) {
+                return;
+            }
+
+            log.info(existentes ? "♻️ Variantes reutilizadas: {}" : "✅ Variantes generadas: {}", ruta);
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Error generando variantes de {}: {}", ruta, e.getMessage());
+        }
+    }
+
+    /**
+     * Decodificar con submuestreo: nunca se carga en memoria más del doble de la variante mayor
+     */
+    private BufferedImage leer(Path archivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(archivo.toFile())) {
+            Iterator<ImageReader> lectores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (lectores == null || !lectores.hasNext()) {
+                return null;
+            }
+
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int lado = Math.max(lector.getWidth(0), lector.getHeight(0));
+                int paso = Math.max(1, lado / (ladoMediana * 2));
+
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reducir hasta que el lado mayor mida como máximo "lado" (nunca amplía)
+     * Se reduce en pasos de 1/2 para evitar el aliasing de un solo escalado grande.
+     */
+    private static BufferedImage escalar(BufferedImage origen, int lado) {
+        double escala = Math.min(1.0, (double) lado / Math.max(origen.getWidth(), origen.getHeight()));
+        int anchoFinal = Math.max(1, (int) Math.round(origen.getWidth() * escala));
+        int altoFinal = Math.max(1, (int) Math.round(origen.getHeight() * escala));
+
+        BufferedImage actual = origen;
+        int ancho = origen.getWidth();
+        int alto = origen.getHeight();
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            actual = dibujar(actual, ancho, alto);
+        } while (ancho != anchoFinal || alto != altoFinal);
+
+        return actual;
+    }
+
+    private static BufferedImage dibujar(BufferedImage origen, int ancho, int alto) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D grafico = destino.createGraphics();
+        try {
+            grafico.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            grafico.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Fondo blanco para PNG con transparencia (JPEG no tiene canal alfa)
+            grafico.setColor(Color.WHITE);
+            grafico.fillRect(0, 0, ancho, alto);
+            grafico.drawImage(origen, 0, 0, ancho, alto, null);
+        } finally {
+            grafico.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] codificarJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(salida)) {
+            escritor.setOutput(destino);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(calidadJpeg);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return salida.toByteArray();
+    }
+}
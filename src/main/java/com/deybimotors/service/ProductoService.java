@@ -6,6 +6,7 @@ import com.deybimotors.exception.BadRequestException;
 import com.deybimotors.exception.ConflictException;
 import com.deybimotors.exception.ResourceNotFoundException;
 import com.deybimotors.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,11 +14,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +31,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
 @RequiredArgsConstructor
 public class ProductoService {
 
@@ -45,6 +47,9 @@ public class ProductoService {
     private final CodigoOemRepository codigoOemRepository;
     private final CompatibilidadRepository compatibilidadRepository;
     private final ProductoImagenRepository productoImagenRepository;
+    private final OperacionesAlmacenamientoService operacionesAlmacenamiento;
+    private final ProcesadorImagenesService procesadorImagenes;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public List<ProductoDTO.ProductoResponse> listarTodos() {
@@ -201,8 +206,8 @@ public class ProductoService {
 
     /**
      * Crear producto con imagen
+     * La imagen se guarda antes de abrir la transacción; si la transacción falla se elimina
      */
-    @Transactional
     public ProductoDTO.ProductoResponse crearConImagen(
             ProductoDTO.ProductoRequest request,
             MultipartFile imagen
@@ -211,6 +216,32 @@ public class ProductoService {
             throw new ConflictException("Ya existe un producto con el código: " + request.getCodigo());
         }
 
+        if (imagen == null || imagen.isEmpty()) {
+            return transactionTemplate.execute(status -> guardarConImagen(request, null));
+        }
+
+        String rutaImagen;
+        try {
+            rutaImagen = fileStorageService.guardarImagen(imagen, "productos");
+        } catch (IOException e) {
+            log.error("Error al subir imagen", e);
+            throw new BadRequestException("Error al subir la imagen: " + e.getMessage());
+        }
+
+        Long compensacion = operacionesAlmacenamiento.registrarCompensacion(
+                OperacionAlmacenamiento.Backend.LOCAL, rutaImagen);
+        ProductoDTO.ProductoResponse creado = operacionesAlmacenamiento.confirmarSubidas(List.of(compensacion),
+                () -> guardarConImagen(request, rutaImagen));
+
+        procesadorImagenes.programarVariantes(List.of(rutaImagen));
+        return creado;
+    }
+
+    private ProductoDTO.ProductoResponse guardarConImagen(ProductoDTO.ProductoRequest request, String rutaImagen) {
+        if (productoRepository.existsByCodigoInterno(request.getCodigo())) {
+            throw new ConflictException("Ya existe un producto con el código: " + request.getCodigo());
+        }
+
         Sede sede = sedeRepository.findById(request.getSedeId() != null ? request.getSedeId() : 1L)
                 .orElseThrow(() -> new ResourceNotFoundException("Sede no encontrada"));
 
@@ -268,26 +299,19 @@ public class ProductoService {
 
         Producto guardado = productoRepository.save(producto);
 
-        if (imagen != null && !imagen.isEmpty()) {
-            try {
-                String rutaImagen = fileStorageService.guardarImagen(imagen, "productos");
+        if (rutaImagen != null) {
+            ProductoImagen productoImagen = new ProductoImagen();
+            productoImagen.setProducto(guardado);
+            productoImagen.setUrl(rutaImagen);
+            productoImagen.setOrden(0);
+            productoImagen.setEsPrincipal(true);
 
-                ProductoImagen productoImagen = new ProductoImagen();
-                productoImagen.setProducto(guardado);
-                productoImagen.setUrl(rutaImagen);
-                productoImagen.setOrden(0);
-                productoImagen.setEsPrincipal(true);
+            guardado.getImagenes().add(productoImagen);
+            guardado.setFotoUrl(rutaImagen);
 
-                guardado.getImagenes().add(productoImagen);
-                guardado.setFotoUrl(rutaImagen);
+            guardado = productoRepository.save(guardado);
 
-                guardado = productoRepository.save(guardado);
-
-                log.info("Imagen subida correctamente: {}", rutaImagen);
-            } catch (IOException e) {
-                log.error("Error al subir imagen", e);
-                throw new BadRequestException("Error al subir la imagen: " + e.getMessage());
-            }
+            log.info("Imagen subida correctamente: {}", rutaImagen);
         }
 
         log.info("Producto creado - Código: {} - Sede: {}", guardado.getCodigoInterno(), sede.getNombre());
@@ -396,19 +420,31 @@ public class ProductoService {
         productoRepository.save(producto);
     }
 
-    @Transactional
     public void subirFoto(Long productoId, MultipartFile archivo) throws IOException {
 
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
-
-        if (producto.getFotoUrl() != null) {
-            fileStorageService.eliminarArchivo(producto.getFotoUrl());
+        if (!productoRepository.existsById(productoId)) {
+            throw new ResourceNotFoundException("Producto no encontrado");
         }
 
         String rutaArchivo = fileStorageService.guardarImagen(archivo, "productos");
-        producto.setFotoUrl(rutaArchivo);
-        productoRepository.save(producto);
+        Long compensacion = operacionesAlmacenamiento.registrarCompensacion(
+                OperacionAlmacenamiento.Backend.LOCAL, rutaArchivo);
+
+        operacionesAlmacenamiento.confirmarSubidas(List.of(compensacion), () -> {
+            Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+
+            if (producto.getFotoUrl() != null) {
+                operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.LOCAL,
+                        producto.getFotoUrl(), "Foto reemplazada");
+            }
+
+            producto.setFotoUrl(rutaArchivo);
+            producto.setFotoMiniaturaUrl(null);
+            return productoRepository.save(producto);
+        });
+
+        procesadorImagenes.programarVariantes(List.of(rutaArchivo));
     }
 
     @Transactional
@@ -417,8 +453,10 @@ public class ProductoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
 
         if (producto.getFotoUrl() != null) {
-            fileStorageService.eliminarArchivo(producto.getFotoUrl());
+            operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.LOCAL,
+                    producto.getFotoUrl(), "Foto eliminada");
             producto.setFotoUrl(null);
+            producto.setFotoMiniaturaUrl(null);
             productoRepository.save(producto);
         }
     }
@@ -429,37 +467,49 @@ public class ProductoService {
 
     /**
      * Subir múltiples imágenes a un producto
+     * Los originales se guardan en paralelo sin transacción; luego una transacción corta crea las filas
+     * y las miniaturas se generan en segundo plano
      */
-    @Transactional
     public List<String> subirImagenes(Long productoId, List<MultipartFile> archivos) throws IOException {
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
 
-        List<String> urls = new ArrayList<>();
-        int ordenActual = producto.getImagenes().size();
-        boolean esPrimeraImagen = producto.getImagenes().isEmpty();
+        if (!productoRepository.existsById(productoId)) {
+            throw new ResourceNotFoundException("Producto no encontrado");
+        }
+
+        List<ProcesadorImagenesService.ImagenGuardada> guardadas =
+                procesadorImagenes.guardarOriginales(archivos, "productos");
+        List<String> urls = guardadas.stream().map(ProcesadorImagenesService.ImagenGuardada::ruta).toList();
+        List<Long> compensaciones = guardadas.stream().map(ProcesadorImagenesService.ImagenGuardada::compensacion).toList();
+
+        operacionesAlmacenamiento.confirmarSubidas(compensaciones, () -> {
+            Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+
+            int ordenActual = producto.getImagenes().size();
+            boolean esPrimeraImagen = producto.getImagenes().isEmpty();
 
-        for (MultipartFile archivo : archivos) {
-            String rutaImagen = fileStorageService.guardarImagen(archivo, "productos");
+            for (String rutaImagen : urls) {
+                ProductoImagen imagen = new ProductoImagen();
+                imagen.setProducto(producto);
+                imagen.setUrl(rutaImagen);
+                imagen.setOrden(ordenActual++);
+                imagen.setEsPrincipal(esPrimeraImagen);
 
-            ProductoImagen imagen = new ProductoImagen();
-            imagen.setProducto(producto);
-            imagen.setUrl(rutaImagen);
-            imagen.setOrden(ordenActual++);
-            imagen.setEsPrincipal(esPrimeraImagen);
+                productoImagenRepository.save(imagen);
 
-            productoImagenRepository.save(imagen);
-            urls.add(rutaImagen);
+                if (esPrimeraImagen) {
+                    producto.setFotoUrl(rutaImagen);
+                    producto.setFotoMiniaturaUrl(null);
+                    esPrimeraImagen = false;
+                }
 
-            if (esPrimeraImagen) {
-                producto.setFotoUrl(rutaImagen);
-                esPrimeraImagen = false;
+                log.info("Imagen agregada al producto {}: {}", productoId, rutaImagen);
             }
 
-            log.info("Imagen agregada al producto {}: {}", productoId, rutaImagen);
-        }
+            return productoRepository.save(producto);
+        });
 
-        productoRepository.save(producto);
+        procesadorImagenes.programarVariantes(urls);
         return urls;
     }
 
@@ -478,7 +528,8 @@ public class ProductoService {
             throw new BadRequestException("La imagen no pertenece a este producto");
         }
 
-        fileStorageService.eliminarArchivo(imagen.getUrl());
+        operacionesAlmacenamiento.programarEliminacion(OperacionAlmacenamiento.Backend.LOCAL,
+                imagen.getUrl(), "Imagen eliminada");
 
         if (imagen.getEsPrincipal() && producto.getImagenes().size() > 1) {
             ProductoImagen nuevaPrincipal = producto.getImagenes().stream()
@@ -489,10 +540,12 @@ public class ProductoService {
             if (nuevaPrincipal != null) {
                 nuevaPrincipal.setEsPrincipal(true);
                 producto.setFotoUrl(nuevaPrincipal.getUrl());
+                producto.setFotoMiniaturaUrl(nuevaPrincipal.getUrlMiniatura());
                 productoImagenRepository.save(nuevaPrincipal);
             }
         } else if (producto.getImagenes().size() == 1) {
             producto.setFotoUrl(null);
+            producto.setFotoMiniaturaUrl(null);
         }
 
         productoImagenRepository.delete(imagen);
@@ -543,6 +596,7 @@ public class ProductoService {
         productoImagenRepository.save(imagen);
 
         producto.setFotoUrl(imagen.getUrl());
+        producto.setFotoMiniaturaUrl(imagen.getUrlMiniatura());
         productoRepository.save(producto);
 
         log.info("Imagen principal actualizada para producto {}: {}", productoId, imagenId);
@@ -552,7 +606,7 @@ public class ProductoService {
     // MÉTODOS AUXILIARES
     // ========================================
 
-    private ProductoDTO.ProductoResponse convertirADTO(Producto producto) {
+    ProductoDTO.ProductoResponse convertirADTO(Producto producto) {
         ProductoDTO.ProductoResponse dto = new ProductoDTO.ProductoResponse();
 
         try {
@@ -588,6 +642,8 @@ public class ProductoService {
                         .map(img -> new ProductoDTO.ImagenInfo(
                                 img.getId(),
                                 img.getUrl(),
+                                variante(img.getUrlMiniatura(), img.getUrl()),
+                                variante(img.getUrlMediana(), img.getUrl()),
                                 img.getOrden(),
                                 img.getEsPrincipal()
                         ))
@@ -608,7 +664,7 @@ public class ProductoService {
         return dto;
     }
 
-    private void copiarDatosBasicos(Producto producto, ProductoDTO.ProductoResponse dto) {
+    void copiarDatosBasicos(Producto producto, ProductoDTO.ProductoResponse dto) {
         dto.setId(producto.getId());
         dto.setCodigo(producto.getCodigoInterno());
         dto.setCodigoMarca(producto.getCodigoMarca());
@@ -644,6 +700,12 @@ public class ProductoService {
         dto.setFechaCreacion(producto.getFechaCreacion());
 
         dto.setFotoUrl(producto.getFotoUrl());
+        dto.setFotoMiniaturaUrl(variante(producto.getFotoMiniaturaUrl(), producto.getFotoUrl()));
+    }
+
+    // Variante reducida, o la original mientras se genera
+    private static String variante(String urlVariante, String urlOriginal) {
+        return urlVariante != null ? urlVariante : urlOriginal;
     }
 
     @Transactional(readOnly = true)
@@ -700,6 +762,7 @@ public class ProductoService {
         }
 
         dto.setFotoUrl(producto.getFotoUrl());
+        dto.setFotoMiniaturaUrl(variante(producto.getFotoMiniaturaUrl(), producto.getFotoUrl()));
 
         // CÓDIGOS OEM
         if (producto.getCodigosOem() != null && !producto.getCodigosOem().isEmpty()) {
@@ -730,6 +793,8 @@ public class ProductoService {
                     .map(img -> new ProductoDTO.ImagenInfo(
                             img.getId(),
                             img.getUrl(),
+                            variante(img.getUrlMiniatura(), img.getUrl()),
+                            variante(img.getUrlMediana(), img.getUrl()),
                             img.getOrden(),
                             img.getEsPrincipal()
                     ))
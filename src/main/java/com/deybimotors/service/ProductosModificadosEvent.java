@@ -0,0 +1,15 @@
+package com.deybimotors.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Evento publicado tras modificar productos con SQL masivo (sin pasar por entidades JPA)
+ * Los cambios vía entidades los detectan los listeners de Hibernate; estos no.
+ */
+public record ProductosModificadosEvent(Set<String> codigosInternos) {
+
+    public static ProductosModificadosEvent de(Collection<String> codigosInternos) {
+        return new ProductosModificadosEvent(Set.copyOf(codigosInternos));
+    }
+}
@@ -6,6 +6,7 @@ import com.deybimotors.exception.BadRequestException;
 import com.deybimotors.exception.InsufficientStockException;
 import com.deybimotors.exception.ResourceNotFoundException;
 import com.deybimotors.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +21,7 @@ import java.util.stream.Collectors;
  * ✅ Stock bajo = stock <= 2 (valor fijo)
  */
 @Service
+@Timed(value = "deybimotors.servicio", percentiles = {0.5, 0.95, 0.99})
 @RequiredArgsConstructor
 public class StockService {
 
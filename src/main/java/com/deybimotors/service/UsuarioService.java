@@ -8,7 +8,9 @@ import com.deybimotors.exception.ConflictException;
 import com.deybimotors.exception.ResourceNotFoundException;
 import com.deybimotors.repository.SedeRepository;
 import com.deybimotors.repository.UsuarioRepository;
+import com.deybimotors.security.UsuarioModificadoEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +29,7 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final SedeRepository sedeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<UsuarioDTO.UsuarioResponse> listarTodos() {
@@ -98,6 +101,8 @@ public class UsuarioService {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
+        String usernameAnterior = usuario.getUsername();
+
         if (!usuario.getUsername().equals(request.getUsername())) {
             if (usuarioRepository.existsByUsername(request.getUsername())) {
                 throw new ConflictException("El usuario ya existe");
@@ -132,6 +137,7 @@ public class UsuarioService {
         usuario.setObservaciones(request.getObservaciones());
 
         Usuario actualizado = usuarioRepository.save(usuario);
+        eventPublisher.publishEvent(UsuarioModificadoEvent.de(usernameAnterior, actualizado.getUsername()));
         return convertirADTO(actualizado);
     }
 
@@ -142,6 +148,7 @@ public class UsuarioService {
 
         usuario.setActivo(activo);
         usuarioRepository.save(usuario);
+        eventPublisher.publishEvent(UsuarioModificadoEvent.de(usuario.getUsername()));
     }
 
     @Transactional
@@ -154,6 +161,7 @@ public class UsuarioService {
         }
 
         usuarioRepository.delete(usuario);
+        eventPublisher.publishEvent(UsuarioModificadoEvent.de(usuario.getUsername()));
     }
 
     @Transactional
@@ -163,6 +171,7 @@ public class UsuarioService {
 
         usuario.setPassword(passwordEncoder.encode(request.getNuevaPassword()));
         usuarioRepository.save(usuario);
+        eventPublisher.publishEvent(UsuarioModificadoEvent.de(usuario.getUsername()));
     }
 
     private UsuarioDTO.UsuarioResponse convertirADTO(Usuario usuario) {
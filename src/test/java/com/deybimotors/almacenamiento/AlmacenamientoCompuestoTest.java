@@ -0,0 +1,110 @@
+package com.deybimotors.almacenamiento;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Enrutamiento entre backends: se escribe en el principal y cada referencia
+ * se lee o elimina en el backend que la admite (cambiar de backend no rompe las guardadas)
+ */
+class AlmacenamientoCompuestoTest {
+
+    @TempDir
+    private Path directorio;
+
+    // Sustituto local del remoto (con caché delante, como en AlmacenamientoConfig)
+    private AlmacenamientoLocal remoto;
+    private AlmacenamientoLocal local;
+    private AlmacenamientoCompuesto almacenamiento;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        remoto = spy(new AlmacenamientoLocal(directorio.resolve("remoto"), "remoto/"));
+        local = spy(new AlmacenamientoLocal(directorio.resolve("documents"), "uploads/documents/"));
+        AlmacenamientoEscalonado escalonado =
+                new AlmacenamientoEscalonado(remoto, directorio.resolve("cache"), 1024 * 1024);
+
+        almacenamiento = new AlmacenamientoCompuesto(escalonado, List.of(local));
+    }
+
+    @Test
+    void guardarVaAlPrincipal() throws IOException {
+        String referencia = almacenamiento.guardar("facturas", "a.pdf", archivo("contenido"), "application/pdf");
+
+        assertThat(referencia).isEqualTo("remoto/facturas/a.pdf");
+        assertThat(remoto.ruta(referencia)).exists();
+        verify(local, never()).guardar(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void referenciaLocalAnteriorSeLeeYEliminaEnElLocal() throws IOException {
+        // Guardada cuando el backend configurado era el local
+        String referencia = local.guardar("facturas", "antigua.pdf", archivo("antigua"), "application/pdf");
+        clearInvocations(local);
+
+        assertThat(almacenamiento.admite(referencia)).isTrue();
+        assertThat(leer(referencia)).isEqualTo("antigua");
+        assertThat(almacenamiento.eliminar(referencia)).isTrue();
+
+        verify(local).abrir(referencia);
+        verify(local).eliminar(referencia);
+        verify(remoto, never()).abrir(anyString());
+        verify(remoto, never()).eliminar(anyString());
+        assertThat(local.ruta(referencia)).doesNotExist();
+    }
+
+    @Test
+    void referenciaRemotaSeLeeYEliminaEnElRemoto() throws IOException {
+        String referencia = remoto.guardar("facturas", "a.pdf", archivo("remota"), "application/pdf");
+
+        assertThat(leer(referencia)).isEqualTo("remota");
+        assertThat(almacenamiento.eliminar(referencia)).isTrue();
+
+        verify(remoto).abrir(referencia);
+        verify(remoto).eliminar(referencia);
+        verify(local, never()).abrir(anyString());
+        verify(local, never()).eliminar(anyString());
+        assertThat(remoto.ruta(referencia)).doesNotExist();
+    }
+
+    @Test
+    void referenciaDesconocidaNoSeEnruta() {
+        String referencia = "otro/facturas/a.pdf";
+
+        assertThat(almacenamiento.admite(referencia)).isFalse();
+        assertThatThrownBy(() -> almacenamiento.abrir(referencia)).isInstanceOf(NoSuchFileException.class);
+        // Nada que reintentar
+        assertThat(almacenamiento.eliminar(referencia)).isTrue();
+
+        verify(remoto, never()).eliminar(anyString());
+        verify(local, never()).eliminar(anyString());
+    }
+
+    private String leer(String referencia) throws IOException {
+        try (InputStream entrada = almacenamiento.abrir(referencia)) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Path archivo(String contenido) throws IOException {
+        return Files.writeString(Files.createTempFile(directorio, "origen", ".pdf"), contenido);
+    }
+}
@@ -0,0 +1,163 @@
+package com.deybimotors.almacenamiento;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Caché local en disco delante de un backend remoto (AlmacenamientoLocal como sustituto)
+ * Las lecturas en caché no llegan al remoto, cada archivo se descarga una sola vez
+ * y al superar el límite se desalojan los menos usados.
+ */
+class AlmacenamientoEscalonadoTest {
+
+    // almacenamiento.cache.max-mb=1: caben dos archivos de 400 KB, no tres
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final int TAMANIO = 400 * 1024;
+
+    @TempDir
+    private Path directorio;
+
+    private AlmacenamientoLocal remoto;
+    private Path cache;
+    private AlmacenamientoEscalonado almacenamiento;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        remoto = spy(new AlmacenamientoLocal(directorio.resolve("remoto"), "remoto/"));
+        cache = directorio.resolve("cache");
+        almacenamiento = new AlmacenamientoEscalonado(remoto, cache, MAX_BYTES);
+    }
+
+    @Test
+    void archivoGuardadoSeLeeDesdeLaCache() throws IOException {
+        String referencia = almacenamiento.guardar("facturas", "a.pdf", archivo("a.pdf", "0123456789"), "application/pdf");
+
+        assertThat(referencia).isEqualTo("remoto/facturas/a.pdf");
+        assertThat(remoto.ruta(referencia)).exists();
+        assertThat(almacenamiento.getArchivosEnCache()).isEqualTo(1);
+        assertThat(almacenamiento.getBytesEnCache()).isEqualTo(10);
+
+        assertThat(leer(referencia)).isEqualTo("0123456789");
+        verify(remoto, never()).abrir(anyString());
+    }
+
+    @Test
+    void archivoRemotoSeDescargaUnaVez() throws IOException {
+        String referencia = remoto.guardar("facturas", "a.pdf", archivo("a.pdf", "0123456789"), "application/pdf");
+
+        assertThat(leer(referencia)).isEqualTo("0123456789");
+        assertThat(leer(referencia)).isEqualTo("0123456789");
+
+        verify(remoto, times(1)).abrir(referencia);
+        assertThat(almacenamiento.getArchivosEnCache()).isEqualTo(1);
+        assertThat(temporales()).isZero();
+    }
+
+    @Test
+    void alSuperarElLimiteSeDesalojaElMenosUsado() throws IOException {
+        String a = almacenamiento.guardar("facturas", "a.pdf", archivo("a.pdf", contenido('a')), "application/pdf");
+        String b = almacenamiento.guardar("facturas", "b.pdf", archivo("b.pdf", contenido('b')), "application/pdf");
+        // Leer "a" lo vuelve el más reciente: el menos usado pasa a ser "b"
+        leer(a);
+
+        String c = almacenamiento.guardar("facturas", "c.pdf", archivo("c.pdf", contenido('c')), "application/pdf");
+
+        assertThat(almacenamiento.getArchivosEnCache()).isEqualTo(2);
+        assertThat(almacenamiento.getBytesEnCache()).isEqualTo(2L * TAMANIO);
+        try (Stream<Path> archivos = Files.list(cache)) {
+            assertThat(archivos).hasSize(2);
+        }
+
+        clearInvocations(remoto);
+        leer(a);
+        leer(c);
+        verify(remoto, never()).abrir(anyString());
+
+        // El desalojado sigue en el remoto y vuelve a descargarse
+        assertThat(leer(b)).isEqualTo(contenido('b'));
+        verify(remoto).abrir(b);
+    }
+
+    @Test
+    void archivoMayorAlLimiteSeConservaSolo() throws IOException {
+        almacenamiento.guardar("facturas", "a.pdf", archivo("a.pdf", contenido('a')), "application/pdf");
+        String grande = almacenamiento.guardar("facturas", "grande.pdf",
+                archivo("grande.pdf", "g".repeat(3 * TAMANIO)), "application/pdf");
+
+        assertThat(almacenamiento.getArchivosEnCache()).isEqualTo(1);
+        assertThat(almacenamiento.getBytesEnCache()).isEqualTo(3L * TAMANIO);
+        assertThat(leer(grande)).hasSize(3 * TAMANIO);
+        verify(remoto, never()).abrir(anyString());
+    }
+
+    @Test
+    void eliminarQuitaDeLaCacheYDelRemoto() throws IOException {
+        String referencia = almacenamiento.guardar("facturas", "a.pdf", archivo("a.pdf", "0123456789"), "application/pdf");
+
+        assertThat(almacenamiento.eliminar(referencia)).isTrue();
+
+        assertThat(almacenamiento.getArchivosEnCache()).isZero();
+        assertThat(almacenamiento.getBytesEnCache()).isZero();
+        assertThat(remoto.ruta(referencia)).doesNotExist();
+        assertThatThrownBy(() -> almacenamiento.abrir(referencia)).isInstanceOf(NoSuchFileException.class);
+        assertThat(temporales()).isZero();
+    }
+
+    @Test
+    void cacheSeReconstruyeAlIniciar() throws IOException {
+        almacenamiento.guardar("facturas", "a.pdf", archivo("a.pdf", contenido('a')), "application/pdf");
+        String b = almacenamiento.guardar("facturas", "b.pdf", archivo("b.pdf", contenido('b')), "application/pdf");
+        // Descarga interrumpida antes del reinicio
+        Files.writeString(cache.resolve("interrumpida.tmp"), "parcial");
+
+        AlmacenamientoEscalonado reiniciado = new AlmacenamientoEscalonado(remoto, cache, MAX_BYTES);
+
+        assertThat(reiniciado.getArchivosEnCache()).isEqualTo(2);
+        assertThat(reiniciado.getBytesEnCache()).isEqualTo(2L * TAMANIO);
+        assertThat(temporales()).isZero();
+        try (InputStream entrada = reiniciado.abrir(b)) {
+            assertThat(new String(entrada.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(contenido('b'));
+        }
+        verify(remoto, never()).abrir(anyString());
+    }
+
+    private String leer(String referencia) throws IOException {
+        try (InputStream entrada = almacenamiento.abrir(referencia)) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Path archivo(String nombre, String contenido) throws IOException {
+        Path origen = directorio.resolve("origen");
+        Files.createDirectories(origen);
+        return Files.writeString(origen.resolve(nombre), contenido);
+    }
+
+    private static String contenido(char caracter) {
+        return String.valueOf(caracter).repeat(TAMANIO);
+    }
+
+    private long temporales() throws IOException {
+        try (Stream<Path> archivos = Files.list(cache)) {
+            return archivos.filter(archivo -> archivo.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+}
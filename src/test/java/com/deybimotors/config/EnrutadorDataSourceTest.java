@@ -0,0 +1,173 @@
+package com.deybimotors.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento primario / réplica con dos bases H2 embebidas
+ * Cada base responde con su nombre en la tabla origen; la réplica publica su retraso en la tabla retraso.
+ */
+class EnrutadorDataSourceTest {
+
+    private static final String CONSULTA_RETRASO = "SELECT segundos FROM retraso";
+    private static final long MAX_RETRASO_SEG = 5;
+
+    private EmbeddedDatabase primario;
+    private EmbeddedDatabase replica;
+    private EnrutadorDataSource enrutador;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void iniciar() {
+        primario = base("primario");
+        replica = base("lectura-1");
+        new JdbcTemplate(replica).execute("CREATE TABLE retraso (segundos BIGINT)");
+        new JdbcTemplate(replica).update("INSERT INTO retraso VALUES (0)");
+
+        crearEnrutador(60_000);
+    }
+
+    @AfterEach
+    void cerrar() {
+        SecurityContextHolder.clearContext();
+        primario.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void lecturasALaReplicaYEscriturasAlPrimario() {
+        assertThat(leer()).isEqualTo("lectura-1");
+        assertThat(escribir()).isEqualTo("primario");
+    }
+
+    @Test
+    void sinChequeoLaReplicaNoEntraEnRotacion() {
+        enrutador = new EnrutadorDataSource(primario,
+                List.of(new EnrutadorDataSource.Replica("lectura-1", replica)), 60_000, 100);
+        enrutador.afterPropertiesSet();
+        usar(enrutador);
+
+        assertThat(leer()).isEqualTo("primario");
+    }
+
+    @Test
+    void replicaAtrasadaSaleDeRotacionHastaPonerseAlDia() {
+        new JdbcTemplate(replica).update("UPDATE retraso SET segundos = ?", MAX_RETRASO_SEG + 1);
+        enrutador.verificarReplicas(CONSULTA_RETRASO, MAX_RETRASO_SEG);
+        assertThat(leer()).isEqualTo("primario");
+
+        new JdbcTemplate(replica).update("UPDATE retraso SET segundos = ?", MAX_RETRASO_SEG);
+        enrutador.verificarReplicas(CONSULTA_RETRASO, MAX_RETRASO_SEG);
+        assertThat(leer()).isEqualTo("lectura-1");
+    }
+
+    @Test
+    void replicaQueNoRespondeSaleDeRotacion() {
+        enrutador.verificarReplicas("SELECT segundos FROM tabla_inexistente", MAX_RETRASO_SEG);
+
+        assertThat(enrutador.getReplicas().get(0).isDisponible()).isFalse();
+        assertThat(leer()).isEqualTo("primario");
+    }
+
+    @Test
+    void trasEscribirElUsuarioLeeDelPrimarioDuranteLaVentana() {
+        autenticar("ana");
+        escribir();
+        assertThat(leer()).isEqualTo("primario");
+
+        // Otro usuario sigue leyendo de la réplica
+        autenticar("luis");
+        assertThat(leer()).isEqualTo("lectura-1");
+    }
+
+    @Test
+    void laVentanaVence() throws InterruptedException {
+        crearEnrutador(50);
+        autenticar("ana");
+        escribir();
+        assertThat(leer()).isEqualTo("primario");
+
+        Thread.sleep(100);
+        assertThat(leer()).isEqualTo("lectura-1");
+    }
+
+    @Test
+    void escrituraRevertidaNoFijaAlUsuario() {
+        autenticar("ana");
+        escritura.executeWithoutResult(status -> {
+            jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+            status.setRollbackOnly();
+        });
+
+        assertThat(leer()).isEqualTo("lectura-1");
+    }
+
+    @Test
+    void ventanaCubreElRetrasoToleradoMasElChequeo() {
+        assertThat(EnrutadorDataSource.ventanaEfectivaMs(3_000, 5, 5_000)).isEqualTo(10_000);
+        assertThat(EnrutadorDataSource.ventanaEfectivaMs(15_000, 5, 5_000)).isEqualTo(15_000);
+    }
+
+    private void crearEnrutador(long ventanaMs) {
+        enrutador = new EnrutadorDataSource(primario,
+                List.of(new EnrutadorDataSource.Replica("lectura-1", replica)), ventanaMs, 100);
+        enrutador.afterPropertiesSet();
+        enrutador.verificarReplicas(CONSULTA_RETRASO, MAX_RETRASO_SEG);
+        usar(enrutador);
+    }
+
+    // Igual que en DataSourceConfig: la conexión se pide cuando la transacción ya marcó si es de solo lectura
+    private void usar(EnrutadorDataSource enrutador) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(enrutador);
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        escritura = new TransactionTemplate(transacciones);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+    }
+
+    private String leer() {
+        return lectura.execute(status -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    private String escribir() {
+        return escritura.execute(status -> {
+            jdbc.update("UPDATE origen SET escrituras = escrituras + 1");
+            return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+        });
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                usuario, null, AuthorityUtils.createAuthorityList("ROLE_VENDEDOR")));
+    }
+
+    private static EmbeddedDatabase base(String nombre) {
+        EmbeddedDatabase base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nombre + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20), escrituras INT)");
+        jdbc.update("INSERT INTO origen VALUES (?, 0)", nombre);
+        return base;
+    }
+}
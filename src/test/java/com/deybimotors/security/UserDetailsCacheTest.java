@@ -0,0 +1,98 @@
+package com.deybimotors.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una carga que se cruza con una invalidación no deja en caché el usuario anterior
+ */
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void iniciar() {
+        cache = new UserDetailsCache();
+        ReflectionTestUtils.setField(cache, "ttlSegundos", 60L);
+        ReflectionTestUtils.setField(cache, "tamanioMaximo", 2);
+    }
+
+    @Test
+    void segundaLecturaSaleDeLaCache() {
+        cache.obtener("ana", () -> cargar("ana", true));
+        cache.obtener("ana", () -> cargar("ana", true));
+
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    void cargaCruzadaConInvalidacionNoSeGuarda() {
+        // El usuario se desactiva mientras la carga (con los datos previos) está en curso
+        UserDetails previo = cache.obtener("ana", () -> {
+            UserDetails leido = cargar("ana", true);
+            cache.invalidar("ana");
+            return leido;
+        });
+        assertThat(previo.isEnabled()).isTrue();
+
+        UserDetails actual = cache.obtener("ana", () -> cargar("ana", false));
+
+        assertThat(actual.isEnabled()).isFalse();
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void invalidarOtroUsuarioNoAfectaLaCarga() {
+        cache.obtener("ana", () -> {
+            UserDetails leido = cargar("ana", true);
+            cache.invalidar("luis");
+            return leido;
+        });
+        cache.obtener("ana", () -> cargar("ana", true));
+
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    void sinEspacioParaMarcasSeInvalidanTodasLasCargasEnCurso() {
+        cache.obtener("ana", () -> {
+            UserDetails leido = cargar("ana", true);
+            cache.invalidar("luis");
+            cache.invalidar("eva");
+            cache.invalidar("juan");
+            return leido;
+        });
+        cache.obtener("ana", () -> cargar("ana", true));
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void invalidarTodoDescartaCargasEnCurso() {
+        cache.obtener("ana", () -> {
+            UserDetails leido = cargar("ana", true);
+            cache.invalidarTodo();
+            return leido;
+        });
+        cache.obtener("ana", () -> cargar("ana", true));
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    private UserDetails cargar(String username, boolean activo) {
+        cargas.incrementAndGet();
+        return User.withUsername(username)
+                .password("hash")
+                .disabled(!activo)
+                .authorities("ROLE_VENDEDOR")
+                .build();
+    }
+}
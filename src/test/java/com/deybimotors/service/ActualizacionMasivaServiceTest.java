@@ -0,0 +1,248 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.ProductoDTO;
+import com.deybimotors.entity.Categoria;
+import com.deybimotors.entity.Marca;
+import com.deybimotors.entity.Producto;
+import com.deybimotors.entity.Sede;
+import com.deybimotors.entity.Subcategoria;
+import com.deybimotors.exception.BadRequestException;
+import com.deybimotors.repository.SubcategoriaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Actualización masiva con un solo UPDATE sobre H2 en modo MySQL
+ * Cada operación modifica solo los productos activos que cumplen el filtro
+ * y publica los códigos afectados para el índice de escaneo.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:masiva;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.show-sql=false"
+})
+class ActualizacionMasivaServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private ActualizacionMasivaService servicio;
+    private Sede central;
+    private Sede norte;
+    private Categoria frenos;
+    private Subcategoria pastillas;
+    private Subcategoria discos;
+    private Marca bosch;
+    private Marca denso;
+
+    @BeforeEach
+    void iniciar() {
+        servicio = new ActualizacionMasivaService(entityManager, subcategoriaRepository, eventPublisher);
+
+        central = persistir(sede("Central", "CEN"));
+        norte = persistir(sede("Norte", "NOR"));
+        frenos = persistir(categoria("Frenos"));
+        Categoria filtros = persistir(categoria("Filtros"));
+        pastillas = persistir(subcategoria("Pastillas", frenos));
+        discos = persistir(subcategoria("Discos", filtros));
+        bosch = persistir(marca("Bosch"));
+        denso = persistir(marca("Denso"));
+
+        persistir(producto("P-1", central, pastillas, bosch, "100.00", true));
+        persistir(producto("P-2", central, pastillas, denso, "50.00", true));
+        persistir(producto("P-3", norte, pastillas, bosch, "80.00", true));
+        persistir(producto("P-4", central, pastillas, bosch, "100.00", false));
+        persistir(producto("P-5", central, discos, bosch, "30.00", true));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void porcentajeRedondeaYRespetaElFiltro() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("PRECIO_PORCENTAJE");
+        request.setSubcategoriaId(pastillas.getId());
+        request.setMarcaId(bosch.getId());
+        request.setValor(new BigDecimal("12.345"));
+
+        ProductoDTO.ActualizacionMasivaResponse respuesta = servicio.actualizar(request, 1L);
+
+        assertThat(respuesta.productosActualizados()).isEqualTo(2);
+        assertThat(precio("P-1")).isEqualByComparingTo("112.35");
+        assertThat(precio("P-3")).isEqualByComparingTo("89.88");
+        // Otra marca, inactivo, otra subcategoría
+        assertThat(precio("P-2")).isEqualByComparingTo("50.00");
+        assertThat(precio("P-4")).isEqualByComparingTo("100.00");
+        assertThat(precio("P-5")).isEqualByComparingTo("30.00");
+        assertThat(codigosPublicados()).containsExactlyInAnyOrder("P-1", "P-3");
+    }
+
+    @Test
+    void montoNegativoNoDejaPreciosBajoCero() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("precio_monto");
+        request.setSedeId(central.getId());
+        request.setValor(new BigDecimal("-60"));
+
+        ProductoDTO.ActualizacionMasivaResponse respuesta = servicio.actualizar(request, 1L);
+
+        assertThat(respuesta.operacion()).isEqualTo("PRECIO_MONTO");
+        assertThat(respuesta.productosActualizados()).isEqualTo(3);
+        assertThat(precio("P-1")).isEqualByComparingTo("40.00");
+        assertThat(precio("P-2")).isEqualByComparingTo("0.00");
+        assertThat(precio("P-5")).isEqualByComparingTo("0.00");
+        assertThat(precio("P-3")).isEqualByComparingTo("80.00");
+        assertThat(precio("P-4")).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void publicoCatalogoPorCodigos() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("PUBLICO_CATALOGO");
+        request.setCodigos(List.of(" P-2 ", "P-4", "", "P-2", "NO-EXISTE"));
+        request.setPublicoCatalogo(true);
+
+        ProductoDTO.ActualizacionMasivaResponse respuesta = servicio.actualizar(request, 1L);
+
+        assertThat(respuesta.productosActualizados()).isEqualTo(1);
+        assertThat(producto("P-2").getPublicoCatalogo()).isTrue();
+        assertThat(producto("P-4").getPublicoCatalogo()).isFalse();
+        assertThat(producto("P-1").getPublicoCatalogo()).isFalse();
+        assertThat(codigosPublicados()).containsExactly("P-2");
+    }
+
+    @Test
+    void subcategoriaTambienCambiaLaCategoria() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("SUBCATEGORIA");
+        request.setCategoriaId(frenos.getId());
+        request.setSedeId(norte.getId());
+        request.setNuevaSubcategoriaId(discos.getId());
+
+        ProductoDTO.ActualizacionMasivaResponse respuesta = servicio.actualizar(request, 1L);
+
+        assertThat(respuesta.productosActualizados()).isEqualTo(1);
+        Producto movido = producto("P-3");
+        assertThat(movido.getSubcategoria().getId()).isEqualTo(discos.getId());
+        assertThat(movido.getCategoria().getId()).isEqualTo(discos.getCategoria().getId());
+        assertThat(producto("P-1").getSubcategoria().getId()).isEqualTo(pastillas.getId());
+        // Los códigos se leen antes del UPDATE, que los saca del filtro
+        assertThat(codigosPublicados()).containsExactly("P-3");
+    }
+
+    @Test
+    void sinCoincidenciasNoPublicaEvento() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("PRECIO_MONTO");
+        request.setCodigos(List.of("P-4"));
+        request.setValor(BigDecimal.TEN);
+
+        assertThat(servicio.actualizar(request, 1L).productosActualizados()).isZero();
+        assertThat(precio("P-4")).isEqualByComparingTo("100.00");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void sinFiltroSeRechaza() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("PRECIO_PORCENTAJE");
+        request.setCodigos(List.of(" ", ""));
+        request.setValor(BigDecimal.TEN);
+
+        assertThatThrownBy(() -> servicio.actualizar(request, 1L)).isInstanceOf(BadRequestException.class);
+        assertThat(precio("P-1")).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void porcentajeDeMenosCienSeRechaza() {
+        ProductoDTO.ActualizacionMasivaRequest request = request("PRECIO_PORCENTAJE");
+        request.setSedeId(central.getId());
+        request.setValor(new BigDecimal("-100"));
+
+        assertThatThrownBy(() -> servicio.actualizar(request, 1L)).isInstanceOf(BadRequestException.class);
+    }
+
+    private ProductoDTO.ActualizacionMasivaRequest request(String operacion) {
+        ProductoDTO.ActualizacionMasivaRequest request = new ProductoDTO.ActualizacionMasivaRequest();
+        request.setOperacion(operacion);
+        return request;
+    }
+
+    private List<String> codigosPublicados() {
+        ArgumentCaptor<ProductosModificadosEvent> evento = ArgumentCaptor.forClass(ProductosModificadosEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        return List.copyOf(evento.getValue().codigosInternos());
+    }
+
+    private BigDecimal precio(String codigo) {
+        return producto(codigo).getPrecioVenta();
+    }
+
+    private Producto producto(String codigo) {
+        // El UPDATE masivo no pasa por el contexto de persistencia
+        entityManager.clear();
+        return entityManager.createQuery("SELECT p FROM Producto p WHERE p.codigoInterno = :codigo", Producto.class)
+                .setParameter("codigo", codigo)
+                .getSingleResult();
+    }
+
+    private <T> T persistir(T entidad) {
+        entityManager.persist(entidad);
+        return entidad;
+    }
+
+    private static Sede sede(String nombre, String codigo) {
+        Sede sede = new Sede();
+        sede.setNombre(nombre);
+        sede.setCodigo(codigo);
+        return sede;
+    }
+
+    private static Categoria categoria(String nombre) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre(nombre);
+        return categoria;
+    }
+
+    private static Subcategoria subcategoria(String nombre, Categoria categoria) {
+        Subcategoria subcategoria = new Subcategoria();
+        subcategoria.setNombre(nombre);
+        subcategoria.setCategoria(categoria);
+        return subcategoria;
+    }
+
+    private static Marca marca(String nombre) {
+        Marca marca = new Marca();
+        marca.setNombre(nombre);
+        return marca;
+    }
+
+    private static Producto producto(String codigo, Sede sede, Subcategoria subcategoria, Marca marca,
+                                     String precio, boolean activo) {
+        Producto producto = new Producto();
+        producto.setCodigoInterno(codigo);
+        producto.setDescripcion(codigo);
+        producto.setSede(sede);
+        producto.setCategoria(subcategoria.getCategoria());
+        producto.setSubcategoria(subcategoria);
+        producto.setMarcaProducto(marca);
+        producto.setPrecioVenta(new BigDecimal(precio));
+        producto.setEstado(activo);
+        return producto;
+    }
+}
@@ -0,0 +1,109 @@
+package com.deybimotors.service;
+
+import com.deybimotors.almacenamiento.AlmacenamientoLocal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imágenes compartidas por contenido: misma ruta para el mismo archivo y
+ * eliminación solo sin referencias ni reserva vigente
+ */
+class FileStorageServiceTest {
+
+    @TempDir
+    private Path directorio;
+
+    private FileStorageService servicio;
+
+    @BeforeEach
+    void iniciar() {
+        servicio = new FileStorageService(new AlmacenamientoLocal(directorio.resolve("documents"), "uploads/documents/"));
+        ReflectionTestUtils.setField(servicio, "imageUploadDir", directorio.resolve("images").toString());
+        ReflectionTestUtils.setField(servicio, "reservaMs", 0L);
+    }
+
+    @Test
+    void mismoContenidoSeGuardaUnaVez() throws Exception {
+        String primera = servicio.guardarImagen(imagen("filtro.png", "contenido"), "productos");
+        String segunda = servicio.guardarImagen(imagen("otro-nombre.png", "contenido"), "productos");
+        String distinta = servicio.guardarImagen(imagen("filtro.png", "otro contenido"), "productos");
+
+        assertThat(segunda).isEqualTo(primera);
+        assertThat(distinta).isNotEqualTo(primera);
+        assertThat(servicio.resolverImagen(primera)).exists();
+        try (var archivos = Files.walk(directorio.resolve("images"))) {
+            assertThat(archivos.filter(Files::isRegularFile)).hasSize(2);
+        }
+    }
+
+    @Test
+    void imagenReservadaSeDifiereSinConsultarReferencias() throws Exception {
+        ReflectionTestUtils.setField(servicio, "reservaMs", 60_000L);
+        String ruta = servicio.guardarImagen(imagen("filtro.png", "contenido"), "productos");
+        AtomicBoolean consultada = new AtomicBoolean();
+
+        FileStorageService.ResultadoEliminacion resultado = servicio.eliminarImagenSinReferencias(ruta, () -> {
+            consultada.set(true);
+            return false;
+        });
+
+        assertThat(resultado.diferida()).isTrue();
+        assertThat(resultado.completada()).isFalse();
+        assertThat(resultado.diferidaHasta()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(consultada).isFalse();
+        assertThat(servicio.resolverImagen(ruta)).exists();
+    }
+
+    @Test
+    void imagenReferenciadaSeConserva() throws Exception {
+        String ruta = servicio.guardarImagen(imagen("filtro.png", "contenido"), "productos");
+
+        FileStorageService.ResultadoEliminacion resultado = servicio.eliminarImagenSinReferencias(ruta, () -> true);
+
+        assertThat(resultado.completada()).isTrue();
+        assertThat(resultado.diferida()).isFalse();
+        assertThat(servicio.resolverImagen(ruta)).exists();
+    }
+
+    @Test
+    void imagenSinReferenciasSeEliminaConSusVariantes() throws Exception {
+        String ruta = servicio.guardarImagen(imagen("filtro.png", "contenido"), "productos");
+        String miniatura = servicio.guardarVariante(ruta, FileStorageService.VARIANTE_MINIATURA, new byte[]{1});
+        String mediana = servicio.guardarVariante(ruta, FileStorageService.VARIANTE_MEDIANA, new byte[]{2});
+
+        FileStorageService.ResultadoEliminacion resultado = servicio.eliminarImagenSinReferencias(ruta, () -> false);
+
+        assertThat(resultado.completada()).isTrue();
+        assertThat(servicio.resolverImagen(ruta)).doesNotExist();
+        assertThat(servicio.resolverImagen(miniatura)).doesNotExist();
+        assertThat(servicio.resolverImagen(mediana)).doesNotExist();
+    }
+
+    @Test
+    void temporalesFueraDelDirectorioServido() throws Exception {
+        String ruta = servicio.guardarImagen(imagen("filtro.png", "contenido"), "productos");
+        servicio.guardarVariante(ruta, FileStorageService.VARIANTE_MINIATURA, new byte[]{1});
+
+        try (var archivos = Files.walk(directorio.resolve("images"))) {
+            assertThat(archivos.map(Path::toString)).noneMatch(nombre -> nombre.endsWith(".tmp"));
+        }
+        try (var temporales = Files.list(directorio.resolve("images-subidas"))) {
+            assertThat(temporales).isEmpty();
+        }
+    }
+
+    private static MockMultipartFile imagen(String nombre, String contenido) {
+        return new MockMultipartFile("archivo", nombre, "image/png", contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,239 @@
+package com.deybimotors.service;
+
+import com.deybimotors.dto.ProductoDTO;
+import com.deybimotors.repository.ProductoOemRepository;
+import com.deybimotors.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de escaneo en memoria
+ * Los cambios confirmados durante una recarga completa no se pisan con la lectura anterior,
+ * las claves siguen al producto cuando cambian sus códigos, las actualizaciones
+ * masivas se releen fuera del request y la resolución en lote busca como OEM
+ * solo los códigos que no están en el índice.
+ */
+@ExtendWith(MockitoExtension.class)
+class IndiceEscaneoServiceTest {
+
+    private static final long SEDE_CENTRAL = 1L;
+    private static final long SEDE_NORTE = 2L;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ProductoOemRepository productoOemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private ThreadPoolExecutor indiceEscaneoExecutor;
+
+    private IndiceEscaneoService servicio;
+
+    @BeforeEach
+    void iniciar() {
+        servicio = new IndiceEscaneoService(productoRepository, productoOemRepository, transactionTemplate,
+                entityManagerFactory, new SimpleMeterRegistry(), indiceEscaneoExecutor);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocacion -> invocacion.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        // El pool del índice corre la tarea en el mismo hilo
+        lenient().doAnswer(invocacion -> {
+            invocacion.<Runnable>getArgument(0).run();
+            return null;
+        }).when(indiceEscaneoExecutor).execute(any());
+    }
+
+    @Test
+    void cambiosConfirmadosDuranteLaRecargaNoSePisan() {
+        cargar(producto(1L, "A-1", null, "10.00"), producto(2L, "A-2", null, "20.00"));
+
+        // La consulta de la recarga leyó antes de que se confirmaran estos cambios
+        doAnswer(invocacion -> {
+            servicio.indexar(producto(1L, "A-1", null, "15.00"));
+            servicio.quitar(2L);
+            servicio.indexar(producto(4L, "A-4", null, "40.00"));
+            return List.of(producto(1L, "A-1", null, "10.00"), producto(2L, "A-2", null, "20.00"),
+                    producto(3L, "A-3", null, "30.00"));
+        }).when(productoRepository).listarParaEscaneo();
+        servicio.recargar();
+
+        assertThat(servicio.buscar("A-1")).singleElement()
+                .extracting(ProductoDTO.EscaneoResponse::precioVenta).isEqualTo(new BigDecimal("15.00"));
+        assertThat(servicio.buscar("A-2")).isEmpty();
+        assertThat(servicio.buscar("A-3")).hasSize(1);
+        assertThat(servicio.buscar("A-4")).hasSize(1);
+
+        // Terminada la recarga, la siguiente vuelve a mandar
+        cargar(producto(3L, "A-3", null, "30.00"));
+
+        assertThat(servicio.buscar("A-1")).isEmpty();
+        assertThat(servicio.buscar("A-4")).isEmpty();
+        assertThat(servicio.buscar("A-3")).hasSize(1);
+    }
+
+    @Test
+    void cambioDeCodigoMueveLasClaves() {
+        cargar(producto(1L, "A-1", "M-1", "10.00"), producto(2L, "A-2", "m-1", "20.00"));
+        assertThat(ids(servicio.buscar("m-1"))).containsExactly(1L, 2L);
+
+        servicio.indexar(producto(1L, "A-9", "M-2", "10.00"));
+
+        assertThat(servicio.buscar("A-1")).isEmpty();
+        assertThat(ids(servicio.buscar("a-9"))).containsExactly(1L);
+        assertThat(ids(servicio.buscar("M-1"))).containsExactly(2L);
+        assertThat(ids(servicio.buscar("M-2"))).containsExactly(1L);
+
+        // Sin código de marca: deja de encontrarse por el anterior
+        servicio.indexar(producto(2L, "A-2", null, "20.00"));
+
+        assertThat(servicio.buscar("M-1")).isEmpty();
+        assertThat(ids(servicio.buscar("A-2"))).containsExactly(2L);
+    }
+
+    @Test
+    void productoQuitadoLiberaSusClaves() {
+        cargar(producto(1L, "A-1", "M-1", "10.00"), producto(2L, "A-2", "M-1", "20.00"));
+
+        servicio.quitar(1L);
+
+        assertThat(servicio.buscar("A-1")).isEmpty();
+        assertThat(ids(servicio.buscar("M-1"))).containsExactly(2L);
+
+        servicio.quitar(2L);
+
+        assertThat(servicio.buscar("M-1")).isEmpty();
+    }
+
+    @Test
+    void codigoInternoTienePrioridadSobreElDeMarca() {
+        cargar(producto(1L, "X-1", null, "10.00"), producto(2L, "A-2", "X-1", "20.00"));
+
+        assertThat(servicio.resolver(List.of("x-1")).encontrados()).singleElement().satisfies(resuelto -> {
+            assertThat(resuelto.tipo()).isEqualTo(IndiceEscaneoService.TIPO_INTERNO);
+            assertThat(ids(resuelto.productos())).containsExactly(1L);
+        });
+    }
+
+    @Test
+    void renombrarSedeSoloAfectaSusProductos() {
+        cargar(producto(1L, "A-1", null, "10.00"),
+                new ProductoDTO.EscaneoResponse(2L, "A-2", null, "A-2", new BigDecimal("20.00"), 5, SEDE_NORTE, "Norte"));
+
+        servicio.renombrarSede(SEDE_CENTRAL, "Central Lima");
+
+        assertThat(servicio.buscar("A-1")).singleElement()
+                .extracting(ProductoDTO.EscaneoResponse::sedeNombre).isEqualTo("Central Lima");
+        assertThat(servicio.buscar("A-2")).singleElement()
+                .extracting(ProductoDTO.EscaneoResponse::sedeNombre).isEqualTo("Norte");
+    }
+
+    @Test
+    void resolverBuscaComoOemSoloLosFaltantes() {
+        cargar(producto(1L, "A-1", null, "10.00"), producto(3L, "A-3", null, "30.00"));
+        // El producto 2 está inactivo: no está en el índice
+        when(productoOemRepository.buscarProductosPorCodigosOem(anyCollection())).thenReturn(List.of(
+                new ProductoOemRepository.CodigoOemProducto("OEM-1", 3L),
+                new ProductoOemRepository.CodigoOemProducto("OEM-2", 2L)));
+
+        ProductoDTO.ResolverCodigosResponse respuesta =
+                servicio.resolver(List.of(" a-1 ", "oem-1", "OEM-2", "NO-EXISTE", "A-1"));
+
+        assertThat(respuesta.encontrados()).extracting(ProductoDTO.CodigoResuelto::codigo, ProductoDTO.CodigoResuelto::tipo)
+                .containsExactly(
+                        tuple("a-1", IndiceEscaneoService.TIPO_INTERNO),
+                        tuple("oem-1", IndiceEscaneoService.TIPO_OEM));
+        assertThat(ids(respuesta.encontrados().get(1).productos())).containsExactly(3L);
+        assertThat(respuesta.noEncontrados()).containsExactly("OEM-2", "NO-EXISTE");
+
+        verify(productoOemRepository).buscarProductosPorCodigosOem(
+                Set.of("OEM-1", "oem-1", "OEM-2", "NO-EXISTE"));
+        verify(productoRepository, never()).listarParaEscaneoPorIds(any());
+        verify(productoRepository, never()).buscarParaEscaneo(any());
+    }
+
+    @Test
+    void resolverSinIndiceConsultaLaBd() {
+        when(productoRepository.buscarParaEscaneo(anyCollection()))
+                .thenReturn(List.of(producto(1L, "A-1", "M-1", "10.00")));
+        when(productoOemRepository.buscarProductosPorCodigosOem(anyCollection()))
+                .thenReturn(List.of(new ProductoOemRepository.CodigoOemProducto("OEM-1", 5L)));
+        when(productoRepository.listarParaEscaneoPorIds(Set.of(5L)))
+                .thenReturn(List.of(producto(5L, "A-5", null, "50.00")));
+
+        ProductoDTO.ResolverCodigosResponse respuesta = servicio.resolver(List.of("m-1", "OEM-1"));
+
+        assertThat(respuesta.encontrados()).extracting(ProductoDTO.CodigoResuelto::tipo)
+                .containsExactly(IndiceEscaneoService.TIPO_MARCA, IndiceEscaneoService.TIPO_OEM);
+        assertThat(ids(respuesta.encontrados().get(1).productos())).containsExactly(5L);
+        assertThat(respuesta.noEncontrados()).isEmpty();
+    }
+
+    @Test
+    void productosModificadosSeReleenYLosInactivosSalen() {
+        cargar(producto(1L, "A-1", null, "10.00"), producto(2L, "A-2", null, "20.00"));
+        when(productoRepository.findIdsByCodigoInternoIn(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(productoRepository.listarParaEscaneoPorIds(List.of(1L, 2L)))
+                .thenReturn(List.of(producto(1L, "A-1", null, "11.00")));
+
+        servicio.alModificarProductos(ProductosModificadosEvent.de(List.of("A-1", "A-2")));
+
+        assertThat(servicio.buscar("A-1")).singleElement()
+                .extracting(ProductoDTO.EscaneoResponse::precioVenta).isEqualTo(new BigDecimal("11.00"));
+        assertThat(servicio.buscar("A-2")).isEmpty();
+    }
+
+    @Test
+    void colaLlenaNoFallaElRequest() {
+        doThrow(new RejectedExecutionException("llena")).when(indiceEscaneoExecutor).execute(any());
+
+        assertThatCode(() -> servicio.alModificarProductos(ProductosModificadosEvent.de(List.of("A-1"))))
+                .doesNotThrowAnyException();
+        verify(productoRepository, never()).findIdsByCodigoInternoIn(any());
+    }
+
+    private void cargar(ProductoDTO.EscaneoResponse... productos) {
+        doReturn(List.of(productos)).when(productoRepository).listarParaEscaneo();
+        servicio.recargar();
+    }
+
+    private static ProductoDTO.EscaneoResponse producto(Long id, String codigo, String codigoMarca, String precio) {
+        return new ProductoDTO.EscaneoResponse(id, codigo, codigoMarca, codigo, new BigDecimal(precio), 5,
+                SEDE_CENTRAL, "Central");
+    }
+
+    private static List<Long> ids(List<ProductoDTO.EscaneoResponse> productos) {
+        return productos.stream().map(ProductoDTO.EscaneoResponse::id).toList();
+    }
+}
@@ -0,0 +1,181 @@
+package com.deybimotors.service;
+
+import com.deybimotors.almacenamiento.AlmacenamientoLocal;
+import com.deybimotors.config.IdentidadNodo;
+import com.deybimotors.entity.OperacionAlmacenamiento;
+import com.deybimotors.repository.CompraRepository;
+import com.deybimotors.repository.OperacionAlmacenamientoRepository;
+import com.deybimotors.repository.ProductoImagenRepository;
+import com.deybimotors.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Eliminación diferida de imágenes compartidas por contenido
+ * La imagen solo se borra cuando ninguna fila ni operación más reciente la referencia;
+ * una reserva vigente la pospone sin contar como intento fallido.
+ * Cada operación se ejecuta solo si este nodo logra reclamarla.
+ */
+@ExtendWith(MockitoExtension.class)
+class OperacionesAlmacenamientoServiceTest {
+
+    private static final long OPERACION_ID = 10L;
+
+    @TempDir
+    private Path directorio;
+
+    @Mock
+    private OperacionAlmacenamientoRepository operacionRepository;
+
+    @Mock
+    private ProductoImagenRepository productoImagenRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private CompraRepository compraRepository;
+
+    @Mock
+    private CloudinaryFileStorageService cloudinaryService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ThreadPoolExecutor almacenamientoExecutor;
+
+    @Mock
+    private IdentidadNodo identidadNodo;
+
+    private FileStorageService fileStorageService;
+    private OperacionesAlmacenamientoService servicio;
+    private String ruta;
+    private OperacionAlmacenamiento operacion;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        fileStorageService = new FileStorageService(
+                new AlmacenamientoLocal(directorio.resolve("documents"), "uploads/documents/"));
+        ReflectionTestUtils.setField(fileStorageService, "imageUploadDir", directorio.resolve("images").toString());
+        ReflectionTestUtils.setField(fileStorageService, "reservaMs", 0L);
+
+        servicio = new OperacionesAlmacenamientoService(operacionRepository, productoImagenRepository,
+                productoRepository, compraRepository, fileStorageService, cloudinaryService,
+                transactionTemplate, eventPublisher, almacenamientoExecutor, identidadNodo);
+        ReflectionTestUtils.setField(servicio, "maxEsperaMin", 60L);
+        ReflectionTestUtils.setField(servicio, "asignacionSeg", 300L);
+
+        ruta = guardarImagen();
+        operacion = new OperacionAlmacenamiento();
+        operacion.setId(OPERACION_ID);
+        operacion.setBackend(OperacionAlmacenamiento.Backend.LOCAL);
+        operacion.setRuta(ruta);
+        operacion.setMotivo("Imagen reemplazada");
+        operacion.setEjecutarDesde(LocalDateTime.now().minusSeconds(1));
+        lenient().when(identidadNodo.getId()).thenReturn("nodo-1");
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocacion -> invocacion.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(operacionRepository.reclamar(eq(OPERACION_ID), eq("nodo-1"), any(), any())).thenReturn(1);
+        lenient().when(operacionRepository.findById(OPERACION_ID)).thenReturn(Optional.of(operacion));
+    }
+
+    @Test
+    void operacionReclamadaPorOtroNodoNoSeEjecuta() {
+        when(operacionRepository.reclamar(eq(OPERACION_ID), eq("nodo-1"), any(), any())).thenReturn(0);
+
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).exists();
+        verify(operacionRepository, never()).findById(any());
+        verify(operacionRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void imagenDeOtroProductoSeConserva() {
+        when(productoImagenRepository.existsByUrl(ruta)).thenReturn(true);
+
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).exists();
+        verify(operacionRepository).deleteById(OPERACION_ID);
+    }
+
+    @Test
+    void fotoPrincipalDeOtroProductoSeConserva() {
+        when(productoRepository.existsByFotoUrl(ruta)).thenReturn(true);
+
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).exists();
+        verify(operacionRepository).deleteById(OPERACION_ID);
+    }
+
+    @Test
+    void operacionMasRecienteSobreLaRutaDecide() {
+        when(operacionRepository.existsByRutaAndIdGreaterThan(ruta, OPERACION_ID)).thenReturn(true);
+
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).exists();
+        verify(operacionRepository).deleteById(OPERACION_ID);
+    }
+
+    @Test
+    void sinReferenciasSeElimina() {
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).doesNotExist();
+        verify(operacionRepository).deleteById(OPERACION_ID);
+    }
+
+    @Test
+    void imagenReservadaSeDifiereSinContarIntento() throws Exception {
+        // Otra subida acaba de reutilizar el mismo contenido
+        ReflectionTestUtils.setField(fileStorageService, "reservaMs", 60_000L);
+        guardarImagen();
+
+        servicio.ejecutar(OPERACION_ID);
+
+        assertThat(fileStorageService.resolverImagen(ruta)).exists();
+        assertThat(operacion.getIntentos()).isZero();
+        assertThat(operacion.getUltimoError()).isNull();
+        assertThat(operacion.getEjecutarDesde()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(operacion.getNodo()).isNull();
+        verify(operacionRepository).save(operacion);
+        verify(operacionRepository, never()).deleteById(any());
+        verifyNoInteractions(productoImagenRepository, productoRepository);
+    }
+
+    private String guardarImagen() throws Exception {
+        return fileStorageService.guardarImagen(new MockMultipartFile(
+                "archivo", "filtro.png", "image/png", "contenido".getBytes(StandardCharsets.UTF_8)), "productos");
+    }
+}